@@ -0,0 +1,61 @@
+package com.games.framework.component.eventkit;
+
+import com.games.framework.log.Log;
+import com.games.framework.utils.ByteBuddyUtil;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 单个事件的"融合"调用器，一个事件的所有监听方法合并到一个动态生成的类中执行
+ *
+ * <p> 实现类由{@link ByteBuddyUtil#generateEventInvoker}在注册完成之后生成，{@link #invoke(Object)}方法体
+ * 按照优先级顺序直接调用每一个静态监听方法，每个调用各自包裹异常捕获，一个监听方法的异常不会中断其他监听方法。
+ * 相比逐个调用{@link EventListenerEntry#getProxyConsumer()}，调用点都是单态的，JIT可以内联监听方法。
+ *
+ * <p> 无法直接调用的监听方法（非{@code public}，参数是基础类型等）通过{@link #invokeProxy(int, Object)}退化为代理调用。
+ *
+ * @author liu xuan jie
+ */
+public abstract class AbstractEventInvoker {
+
+    /**
+     * 事件唯一标识
+     */
+    @Getter
+    private final int eventKey;
+
+    /**
+     * 事件的所有监听方法信息（优先级排序），下标与生成代码中的调用顺序一致
+     */
+    private final EventListenerEntry[] entries;
+
+    protected AbstractEventInvoker(int eventKey, @NonNull EventListenerEntry[] entries) {
+        this.eventKey = eventKey;
+        this.entries = entries;
+    }
+
+    /**
+     * 按照优先级顺序执行事件的所有监听方法
+     *
+     * @param param 最终处理事件的执行方法所需要的参数，不允许为{@code null}
+     */
+    public abstract void invoke(Object param);
+
+    /**
+     * 通过动态代理调用第{@code index}个监听方法（生成代码调用）
+     */
+    protected final void invokeProxy(int index, Object param) {
+        this.entries[index].getProxyConsumer().accept(param);
+    }
+
+    /**
+     * 第{@code index}个监听方法执行异常（生成代码调用）
+     */
+    protected final void onException(Exception e, int index) {
+        Log.FRAME.warn("[Event] event key:{} handle:{} exception!", this.eventKey, this.entries[index], e);
+    }
+
+    public int listenerCount() {
+        return this.entries.length;
+    }
+}
@@ -3,6 +3,7 @@ package com.games.framework.component.eventkit;
 import com.games.framework.log.Log;
 import com.games.framework.utils.ByteBuddyUtil;
 import com.games.framework.utils.ScanUtil;
+import com.romje.component.collection.FrozenIntObjectMap;
 import com.romje.model.BoolResult;
 import com.romje.utils.ClassUtil;
 import com.romje.utils.CollectionUtil;
@@ -32,6 +33,17 @@ public enum EventDispatcher {
      */
     private final Map<Integer, List<EventListenerEntry>> eventListenersMap = new HashMap<>();
 
+    /**
+     * 注册完成之后冻结的调用器表，每个事件一个融合了所有监听方法的调用器，事件标识连续时按照下标直接定位
+     * <p> 冻结在启动阶段（引擎线程启动之前）完成，之后只读，不需要同步
+     */
+    private FrozenIntObjectMap<AbstractEventInvoker> frozenInvokerTable;
+
+    /**
+     * 注册完成之后冻结的按批次接收事件的监听方法（优先级排序），与{@link #frozenInvokerTable}同时冻结
+     */
+    private FrozenIntObjectMap<EventListenerEntry[]> frozenBatchTable;
+
     /**
      * 是否需要将“动态字节码代理类”输出到文件展示出来
      */
@@ -42,24 +54,150 @@ public enum EventDispatcher {
     /**
      * 事件触发，执行指定事件的所有监听方法
      * <p> 如果针对指定事件，没有任何监听方法需要执行，则认为成功，返回{@code true}
+     * <p> 逐个接收事件的监听方法先执行，按批次接收事件的监听方法（{@link EventListener#batch()}）以只有一个参数的批次后执行
      *
      * @param eventKey 事件唯一标识
      * @param param    最终处理事件的执行方法所需要的参数，不允许为{@code null}
      */
     public void dispatch(int eventKey, @NonNull Object param) {
+        FrozenIntObjectMap<AbstractEventInvoker> table = this.frozenInvokerTable;
+        if (Objects.nonNull(table)) {
+            AbstractEventInvoker invoker = table.get(eventKey);
+            if (Objects.nonNull(invoker)) {
+                invoker.invoke(param);
+            }
+            EventListenerEntry[] batchEntries = this.frozenBatchTable.get(eventKey);
+            if (Objects.nonNull(batchEntries)) {
+                List<Object> params = Collections.singletonList(param);
+                for (EventListenerEntry entry : batchEntries) {
+                    this.accept(eventKey, entry, params);
+                }
+            }
+            return;
+        }
+
         List<EventListenerEntry> eventListenerEntries = this.eventListenersMap.get(eventKey);
         if (EmptyUtil.isEmpty(eventListenerEntries)) {
             return;
         }
 
         for (EventListenerEntry entry : eventListenerEntries) {
-            // 异常捕获放到循环内，不要让一个异常中断所有监听者
+            if (!entry.isBatch()) {
+                this.accept(eventKey, entry, param);
+            }
+        }
+        List<Object> params = null;
+        for (EventListenerEntry entry : eventListenerEntries) {
+            if (entry.isBatch()) {
+                params = Objects.isNull(params) ? Collections.singletonList(param) : params;
+                this.accept(eventKey, entry, params);
+            }
+        }
+    }
+
+    /**
+     * 批量触发同一个事件：逐个接收事件的监听方法按照参数顺序逐个执行，之后按批次接收事件的监听方法以整个批次执行一次
+     *
+     * @param eventKey 事件唯一标识
+     * @param params   本批次所有事件的参数，不允许为{@code null}，监听方法执行期间不允许修改
+     */
+    public void dispatchBatch(int eventKey, @NonNull List<Object> params) {
+        if (params.isEmpty()) {
+            return;
+        }
+
+        FrozenIntObjectMap<AbstractEventInvoker> table = this.frozenInvokerTable;
+        if (Objects.nonNull(table)) {
+            AbstractEventInvoker invoker = table.get(eventKey);
+            if (Objects.nonNull(invoker)) {
+                for (int i = 0, size = params.size(); i < size; i++) {
+                    invoker.invoke(params.get(i));
+                }
+            }
+            EventListenerEntry[] batchEntries = this.frozenBatchTable.get(eventKey);
+            if (Objects.nonNull(batchEntries)) {
+                for (EventListenerEntry entry : batchEntries) {
+                    this.accept(eventKey, entry, params);
+                }
+            }
+            return;
+        }
+
+        List<EventListenerEntry> eventListenerEntries = this.eventListenersMap.get(eventKey);
+        if (EmptyUtil.isEmpty(eventListenerEntries)) {
+            return;
+        }
+
+        for (int i = 0, size = params.size(); i < size; i++) {
+            for (EventListenerEntry entry : eventListenerEntries) {
+                if (!entry.isBatch()) {
+                    this.accept(eventKey, entry, params.get(i));
+                }
+            }
+        }
+        for (EventListenerEntry entry : eventListenerEntries) {
+            if (entry.isBatch()) {
+                this.accept(eventKey, entry, params);
+            }
+        }
+    }
+
+    /**
+     * 通过动态代理执行单个监听方法，异常捕获放到每个监听方法上，不要让一个异常中断所有监听者
+     */
+    private void accept(int eventKey, EventListenerEntry entry, Object param) {
+        try {
+            entry.getProxyConsumer().accept(param);
+        } catch (Exception e) {
+            Log.FRAME.warn("[Event] event key:{} handle:{} exception!", eventKey, entry, e);
+        }
+    }
+
+    /**
+     * 冻结分发器：所有监听方法注册完成之后调用，为每个事件生成融合调用器（{@link AbstractEventInvoker}），之后不允许再注册
+     *
+     * @return 任何错误或者异常返回{@code false}，失败信息在{@link BoolResult#message()}中，此时分发器保持未冻结。
+     */
+    public BoolResult freeze() {
+        if (this.isFrozen()) {
+            return BoolResult.success();
+        }
+
+        Map<Integer, AbstractEventInvoker> invokerMap = new HashMap<>(this.eventListenersMap.size());
+        Map<Integer, EventListenerEntry[]> batchMap = new HashMap<>();
+        for (Map.Entry<Integer, List<EventListenerEntry>> mapEntry : this.eventListenersMap.entrySet()) {
+            int eventKey = mapEntry.getKey();
+            EventListenerEntry[] batchEntries = mapEntry.getValue().stream()
+                    .filter(EventListenerEntry::isBatch).toArray(EventListenerEntry[]::new);
+            if (batchEntries.length > 0) {
+                batchMap.put(eventKey, batchEntries);
+            }
+
+            EventListenerEntry[] entries = mapEntry.getValue().stream()
+                    .filter(entry -> !entry.isBatch()).toArray(EventListenerEntry[]::new);
+            if (entries.length == 0) {
+                continue;
+            }
             try {
-                entry.getProxyConsumer().accept(param);
-            } catch (Exception e) {
-                Log.FRAME.warn("[Event] event key:{} handle:{} exception!", eventKey, entry, e);
+                Class<?> clazz = ByteBuddyUtil.generateEventInvoker(eventKey, entries, this.isShow);
+                AbstractEventInvoker invoker = (AbstractEventInvoker) clazz
+                        .getConstructor(int.class, EventListenerEntry[].class).newInstance(eventKey, entries);
+                invokerMap.put(eventKey, invoker);
+            } catch (IOException | InstantiationException | IllegalAccessException | IllegalArgumentException |
+                     InvocationTargetException | NoSuchMethodException | SecurityException e) {
+                return BoolResult.fail("generate event invoker exception, event key:" + eventKey + ", " + e.getMessage());
             }
         }
+
+        this.frozenBatchTable = FrozenIntObjectMap.of(batchMap);
+        this.frozenInvokerTable = FrozenIntObjectMap.of(invokerMap);
+        Log.FRAME.info("[Event] dispatcher frozen, event count:{}, batch event count:{}, dense table:{}",
+                this.frozenInvokerTable.size(), this.frozenBatchTable.size(), this.frozenInvokerTable.isDense());
+        return BoolResult.success();
+    }
+
+    public boolean isFrozen() {
+        return Objects.nonNull(this.frozenInvokerTable);
     }
 
     /**
@@ -129,6 +267,10 @@ public enum EventDispatcher {
      * @return 任何错误或者异常返回{@code false}，失败信息在{@link BoolResult#message()}中。
      */
     private BoolResult registerListenMethod(Class<?> eventHandleClass, Method method) {
+        if (this.isFrozen()) {
+            return BoolResult.fail("event dispatcher is frozen, can not register: " + method.getName());
+        }
+
         // 监听方法必须是静态的
         if (ClassUtil.nonStaticMethod(method)) {
             return BoolResult.fail("event listener method non static: " + method.getName());
@@ -137,6 +279,11 @@ public enum EventDispatcher {
         EventListener annotation = method.getAnnotation(EventListener.class);
         Objects.requireNonNull(annotation);
 
+        // 按批次接收事件的监听方法，参数必须能够接收List
+        if (annotation.batch() && (method.getParameterCount() != 1 || !method.getParameterTypes()[0].isAssignableFrom(List.class))) {
+            return BoolResult.fail("batch event listener method parameter must be List: " + method.getName());
+        }
+
         try {
             Class<?> clazz = ByteBuddyUtil.generateConsumer(eventHandleClass, method, this.isShow);
             @SuppressWarnings("unchecked")
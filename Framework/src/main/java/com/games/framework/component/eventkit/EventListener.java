@@ -46,4 +46,15 @@ public @interface EventListener {
      * @return 默认是{@code 0}，大部分都是默认情况。
      */
     int innerOrder() default 0;
+
+    /**
+     * 是否按批次接收事件，只对Service中延迟派发的事件有意义（见{@code AbstractService#deferEvent}）
+     *
+     * <p> 按批次接收的处理方法，参数必须是{@link java.util.List}，一次收到本批次中该事件的所有参数（按照抛出顺序），
+     * 在同一批次逐个接收事件的处理方法全部执行之后执行。同步派发的事件以只有一个参数的批次调用。
+     * <p> 参数列表在处理方法返回之后会被复用，不允许修改或者持有。
+     *
+     * @return 默认{@code false}，逐个接收事件
+     */
+    boolean batch() default false;
 }
\ No newline at end of file
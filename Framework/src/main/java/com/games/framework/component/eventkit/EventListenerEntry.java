@@ -25,11 +25,21 @@ public class EventListenerEntry implements Comparable<EventListenerEntry> {
      */
     private String methodName;
 
+    /**
+     * 事件监听，最终针对事件的处理方法的原始方法
+     */
+    private Method listenMethod;
+
     /**
      * 事件监听，最终处理方法标识的注解信息
      */
     private EventListener annotation;
 
+    /**
+     * 事件监听，是否按批次接收事件，见{@link EventListener#batch()}
+     */
+    private boolean batch;
+
     /**
      * 事件监听，最终处理方法的函数式接口（动态代理）
      */
@@ -43,7 +53,9 @@ public class EventListenerEntry implements Comparable<EventListenerEntry> {
         EventListenerEntry instance = new EventListenerEntry();
         instance.className = listenClass.getSimpleName();
         instance.methodName = listenMethod.getName();
+        instance.listenMethod = listenMethod;
         instance.annotation = annotation;
+        instance.batch = annotation.batch();
         instance.proxyConsumer = consumer;
         return instance;
     }
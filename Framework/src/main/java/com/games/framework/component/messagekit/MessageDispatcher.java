@@ -5,6 +5,7 @@ import com.games.framework.component.packetkit.PacketListener;
 import com.games.framework.log.Log;
 import com.games.framework.utils.ByteBuddyUtil;
 import com.games.framework.utils.ScanUtil;
+import com.romje.component.collection.FrozenIntObjectMap;
 import com.romje.model.BoolResult;
 import com.romje.utils.ClassUtil;
 import com.romje.utils.EmptyUtil;
@@ -36,6 +37,12 @@ public enum MessageDispatcher {
      */
     private final Map<Integer, MessageListenerEntry> messageListenersMap = new HashMap<>();
 
+    /**
+     * 注册完成之后冻结的分发表，按照标识Id直接定位处理方法，派发时不再装箱查找{@link #messageListenersMap}
+     * <p> 冻结在启动阶段（引擎线程启动之前）完成，之后只读，不需要同步
+     */
+    private FrozenIntObjectMap<MessageListenerEntry> frozenListenersTable;
+
     /**
      * 是否需要将“动态字节码代理类”输出到文件展示出来
      */
@@ -52,7 +59,8 @@ public enum MessageDispatcher {
      * @param param2    最终处理方法所需要的参数，不允许为{@code null}
      */
     public void dispatch(int messageId, @NonNull Object param1, @NonNull Object param2) {
-        MessageListenerEntry entry = this.messageListenersMap.get(messageId);
+        FrozenIntObjectMap<MessageListenerEntry> table = this.frozenListenersTable;
+        MessageListenerEntry entry = Objects.nonNull(table) ? table.get(messageId) : this.messageListenersMap.get(messageId);
         if (Objects.isNull(entry)) {
             return;
         }
@@ -64,6 +72,23 @@ public enum MessageDispatcher {
         }
     }
 
+    /**
+     * 冻结分发器：所有处理方法注册完成之后调用，构建只读的分发表，之后不允许再注册
+     * <p> 标识Id连续时分发表为数组，按照下标直接定位；标识Id稀疏时退化为低负载的开放寻址表
+     */
+    public void freeze() {
+        if (this.isFrozen()) {
+            return;
+        }
+        this.frozenListenersTable = FrozenIntObjectMap.of(this.messageListenersMap);
+        Log.FRAME.info("[Message] dispatcher frozen, listener count:{}, dense table:{}",
+                this.frozenListenersTable.size(), this.frozenListenersTable.isDense());
+    }
+
+    public boolean isFrozen() {
+        return Objects.nonNull(this.frozenListenersTable);
+    }
+
     /**
      * 扫描指定包中的所有消息包处理类（使用了{@link MessageHandler}标识的类），
      * 注册这些处理类内的所有消息包处理方法（使用了{@link MessageListener}标识的方法）。
@@ -129,6 +154,10 @@ public enum MessageDispatcher {
      * @return 任何错误或者异常返回{@code false}，失败信息在{@link BoolResult#message()}中。
      */
     private BoolResult registerListenMethod(Class<?> handlerClass, Method method) {
+        if (this.isFrozen()) {
+            return BoolResult.fail("message dispatcher is frozen, can not register: " + method.getName());
+        }
+
         // 监听方法必须是静态的
         if (ClassUtil.nonStaticMethod(method)) {
             return BoolResult.fail("packet listener method non static: " + method.getName());
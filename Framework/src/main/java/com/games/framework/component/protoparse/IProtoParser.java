@@ -1,5 +1,6 @@
 package com.games.framework.component.protoparse;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.GeneratedMessageV3;
 
 /**
@@ -17,4 +18,13 @@ public interface IProtoParser {
      * @return 不会为{@code null}，对应最终生成的协议数据
      */
     GeneratedMessageV3 parseFrom(int packetId, byte[] bytes);
+
+    /**
+     * 根据“协议Id”从输入流中解析对应协议，输入流可以直接包装网络读缓冲区，不需要先复制成字节数组
+     *
+     * @param packetId 协议Id
+     * @param input    协议Id对应的协议“序列化流”，不允许为{@code null}
+     * @return 协议Id没有注册返回{@code null}，对应最终生成的协议数据
+     */
+    GeneratedMessageV3 parseFrom(int packetId, CodedInputStream input);
 }
\ No newline at end of file
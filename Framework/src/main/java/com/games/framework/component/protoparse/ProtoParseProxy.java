@@ -1,5 +1,6 @@
 package com.games.framework.component.protoparse;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.GeneratedMessageV3;
 import com.romje.model.BoolResult;
 import javassist.ClassPool;
@@ -28,6 +29,11 @@ public enum ProtoParseProxy implements IProtoParser {
         return this.realParser.parseFrom(packetId, bytes);
     }
 
+    @Override
+    public GeneratedMessageV3 parseFrom(int packetId, CodedInputStream input) {
+        return this.realParser.parseFrom(packetId, input);
+    }
+
     /**
      * 将消息映射关系注册进最终的“转换类”，内部使用字节码动态生成代理类
      *
@@ -57,6 +63,7 @@ public enum ProtoParseProxy implements IProtoParser {
 
         // 引入需要的类
         pool.importPackage("com.google.protobuf.GeneratedMessageV3");
+        pool.importPackage("com.google.protobuf.CodedInputStream");
         for (Map.Entry<Integer, Class<? extends GeneratedMessageV3>> entry : idProtoMap.entrySet()) {
             pool.importPackage(entry.getValue().getName());
         }
@@ -68,17 +75,22 @@ public enum ProtoParseProxy implements IProtoParser {
 
         CtClass superCt = pool.get(IProtoParser.class.getName());
         ctNewClass.addInterface(superCt);
-        String handleMethodStr = generateMethod(idProtoMap);
-        CtMethod method = CtMethod.make(handleMethodStr, ctNewClass);
-        ctNewClass.addMethod(method);
+        for (String paramType : new String[]{"byte[]", "CodedInputStream"}) {
+            String handleMethodStr = generateMethod(idProtoMap, paramType);
+            CtMethod method = CtMethod.make(handleMethodStr, ctNewClass);
+            ctNewClass.addMethod(method);
+        }
 
         ctNewClass.writeFile("output/");
         return ctNewClass.toClass();
     }
 
-    private String generateMethod(Map<Integer, Class<? extends GeneratedMessageV3>> idProtoMap) {
+    /**
+     * @param paramType 协议“序列化流”的参数类型，生成的方法调用协议类同样参数类型的{@code parseFrom}
+     */
+    private String generateMethod(Map<Integer, Class<? extends GeneratedMessageV3>> idProtoMap, String paramType) {
         StringBuilder methodStr = new StringBuilder();
-        methodStr.append("public GeneratedMessageV3 parseFrom(int packetId, byte[] bytes) throws Exception {");
+        methodStr.append("public GeneratedMessageV3 parseFrom(int packetId, ").append(paramType).append(" input) throws Exception {");
         methodStr.append("switch($1) {");
         for (Map.Entry<Integer, Class<? extends GeneratedMessageV3>> entry : idProtoMap.entrySet()) {
             methodStr.append("case ").append(entry.getKey()).append(":")
@@ -0,0 +1,36 @@
+package com.games.framework.constants;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 统一管理“引擎帧落后”时的处理策略
+ * <p> 当某一帧执行过久，或者线程调度延迟，导致引擎落后于预定的帧时间线时，按照该策略处理
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public enum FrameLagPolicyEnum {
+
+    /**
+     * “追帧”，落后时连续执行后续帧（不再等待），直到追上预定时间线
+     * <p>例如:逻辑依赖帧数累计的场景，不希望丢失任何一帧，单次追帧数量有上限，超出部分按照跳帧处理
+     */
+    CATCH_UP("catch up"),
+
+    /**
+     * “跳帧”，落后时直接丢弃已经错过的帧，从下一个对齐的时间点继续
+     * <p>例如:逻辑依赖真实时间戳的场景，补帧没有意义，反而会加重负载
+     */
+    SKIP("skip"),
+    ;
+
+    /**
+     * 策略描述信息
+     */
+    private final String describe;
+
+    FrameLagPolicyEnum(@NonNull String describe) {
+        this.describe = describe;
+    }
+}
@@ -0,0 +1,41 @@
+package com.games.framework.constants;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 统一管理“Service消息队列已满”时的处理策略
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public enum MailboxOverflowPolicyEnum {
+
+    /**
+     * “拒绝”，直接丢弃新消息，发送方收到失败结果
+     * <p>例如:大部分业务Service，消息堆积说明处理能力不足，继续接收只会让延迟越来越大
+     */
+    REJECT("reject"),
+
+    /**
+     * “阻塞”，发送方等待队列有空位，超时之后按照拒绝处理
+     * <p>例如:不允许丢失消息的场景，注意Service之间互相阻塞发送可能死锁，所以必须有超时
+     */
+    BLOCK("block"),
+
+    /**
+     * “丢弃最旧”，丢弃队列中最早的消息，为新消息腾出空间
+     * <p>例如:只关心最新状态的场景，例如位置同步，状态广播等
+     */
+    DROP_OLDEST("drop oldest"),
+    ;
+
+    /**
+     * 策略描述信息
+     */
+    private final String describe;
+
+    MailboxOverflowPolicyEnum(@NonNull String describe) {
+        this.describe = describe;
+    }
+}
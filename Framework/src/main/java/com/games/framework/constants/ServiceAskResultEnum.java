@@ -0,0 +1,47 @@
+package com.games.framework.constants;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 统一管理Service之间“请求-应答”的结果
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public enum ServiceAskResultEnum {
+
+    /**
+     * “成功”，收到了目标Service的应答
+     */
+    SUCCESS("success"),
+
+    /**
+     * “超时”，在指定时间内没有收到应答，之后到达的应答会被直接丢弃
+     */
+    TIMEOUT("timeout"),
+
+    /**
+     * “拒绝”，目标Service的消息队列已满，请求没有送达
+     */
+    REJECTED("rejected"),
+
+    /**
+     * “过载”，当前Service等待应答的请求数量已经达到上限，请求没有发送
+     */
+    OVERLOAD("overload"),
+    ;
+
+    /**
+     * 结果描述信息
+     */
+    private final String describe;
+
+    ServiceAskResultEnum(@NonNull String describe) {
+        this.describe = describe;
+    }
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
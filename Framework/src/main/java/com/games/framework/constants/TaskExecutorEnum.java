@@ -0,0 +1,65 @@
+package com.games.framework.constants;
+
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.FixedServiceExecutor;
+import com.games.framework.engine.processor.FixedThreadExecutor;
+import com.games.framework.engine.processor.ITaskExecutor;
+import com.games.framework.engine.processor.VirtualThreadExecutor;
+import com.games.framework.engine.processor.WorkStealingExecutor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.function.IntFunction;
+
+/**
+ * 统一管理“引擎驱动Service”的任务执行者类型
+ * <p> 不同的执行者适合不同的Service负载，启动时按需选择
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public enum TaskExecutorEnum {
+
+    /**
+     * 固定线程池，任意线程执行任意Service，同时执行的数量不超过线程数量
+     */
+    FIXED_THREAD(FixedThreadExecutor::newInstance, "fixed thread pool"),
+
+    /**
+     * 每个Service固定在一个线程上执行
+     */
+    FIXED_SERVICE(FixedServiceExecutor::newInstance, "service pinned to fixed thread"),
+
+    /**
+     * 工作窃取，Service优先在亲和线程上执行，空闲线程窃取繁忙线程的任务
+     */
+    WORK_STEALING(WorkStealingExecutor::newInstance, "work stealing with affinity"),
+
+    /**
+     * 每次驱动一个虚拟线程，线程数量即为载体线程数量，适合Service内部有阻塞调用的场景
+     */
+    VIRTUAL_THREAD(VirtualThreadExecutor::newInstance, "virtual thread per tick"),
+    ;
+
+    /**
+     * 执行者创建接口，参数为线程数量
+     */
+    private final IntFunction<ITaskExecutor<EngineTask>> creator;
+
+    /**
+     * 简单描述信息
+     */
+    private final String describe;
+
+    TaskExecutorEnum(@NonNull IntFunction<ITaskExecutor<EngineTask>> creator, @NonNull String describe) {
+        this.creator = creator;
+        this.describe = describe;
+    }
+
+    /**
+     * @param threadCount 执行线程数量（虚拟线程为载体线程数量）
+     */
+    public ITaskExecutor<EngineTask> create(int threadCount) {
+        return this.creator.apply(threadCount);
+    }
+}
@@ -1,8 +1,10 @@
 package com.games.framework.engine;
 
-import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.frame.FrameScheduler;
+import com.games.framework.engine.frame.FrameStatistics;
+import com.games.framework.engine.processor.TaskProcessor;
 import com.games.framework.log.Log;
-import com.romje.component.rate.TimeTicker;
+import com.romje.constants.TimeConst;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -20,44 +22,69 @@ public enum ServerEngine implements Runnable {
     INSTANCE;
 
     /**
-     * 引擎时间迭代器
+     * 引擎线程名称
+     */
+    private static final String ENGINE_THREAD_NAME = "ServerEngine";
+
+    /**
+     * 引擎帧调度器
+     */
+    @Setter
+    private FrameScheduler frameScheduler;
+
+    /**
+     * 引擎每帧驱动的任务处理器
      */
     @Setter
-    private TimeTicker timeTicker;
+    private TaskProcessor taskProcessor;
 
 
     public boolean start() {
-        if (Objects.isNull(this.timeTicker)) {
-            Log.FRAME.warn("[Engine] Server engine time ticker is null！");
+        if (Objects.isNull(this.frameScheduler)) {
+            Log.FRAME.warn("[Engine] Server engine frame scheduler is null！");
+            return false;
+        }
+
+        if (Objects.isNull(this.taskProcessor)) {
+            Log.FRAME.warn("[Engine] Server engine task processor is null！");
             return false;
         }
 
         // 启动引擎主线程即可
-        new Thread(this).start();
+        new Thread(this, ENGINE_THREAD_NAME).start();
         Log.FRAME.info("[Engine] Server engine thread start！");
         return true;
     }
 
     @Override
     public void run() {
-        int count = 1;
-        while (true) {
-            long curTime = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
-            if (this.timeTicker.tick(curTime)) {
-                // 驱动帧
-                Log.FRAME.info("[Engine] Server engine:{} test logic tick, count:{}!", Thread.currentThread().getId(), count++);
-
-            } else {
-                long diffNext = this.timeTicker.diffNext(curTime);
-                diffNext = Math.max(diffNext >> 1, 1);
-
-                try {
-                    Thread.sleep(diffNext);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        this.frameScheduler.start();
+        long lastFrameNanos = this.frameScheduler.getNextFrameNanos();
+        long lastMissedCount = 0L;
+        while (!Thread.currentThread().isInterrupted()) {
+            long frameStartNanos = this.frameScheduler.awaitNextFrame();
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            FrameStatistics statistics = this.frameScheduler.getStatistics();
+            if (statistics.getMissedFrameCount() != lastMissedCount) {
+                Log.FRAME.warn("[Engine] Server engine frame lag, lateness:{} ns, missed frames:{}!",
+                        statistics.getLastLatenessNanos(), statistics.getMissedFrameCount() - lastMissedCount);
+                lastMissedCount = statistics.getMissedFrameCount();
             }
+
+            // 驱动帧，单帧的异常不允许中断引擎
+            int interval = (int) ((frameStartNanos - lastFrameNanos) / TimeConst.NANOS_OF_MILLI);
+            lastFrameNanos = frameStartNanos;
+            try {
+                this.taskProcessor.tick(interval);
+            } catch (Exception e) {
+                Log.FRAME.error("[Engine] Server engine tick task processor exception!", e);
+            }
+
+            this.frameScheduler.finishFrame();
         }
+        Log.FRAME.info("[Engine] Server engine thread interrupted, stop！");
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.games.framework.engine.context;
 
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
 import com.romje.component.clock.IClock;
 import com.romje.component.clock.OffsetClock;
 import lombok.Getter;
@@ -22,6 +23,128 @@ public enum FrameworkContext {
     @Setter
     private IClock clock = OffsetClock.of(0L);
 
+    /**
+     * Service单次驱动最多处理的消息数量，小于等于{@code 0}代表不限制数量，只按照时间预算处理
+     */
     @Setter
     private int serviceHandleMessageCountPreTick = 1000;
+
+    /**
+     * Service单次驱动处理消息的默认时间预算：微秒，小于等于{@code 0}代表不限制时间，只按照数量上限处理
+     * <p> 每次驱动至少处理一条消息，超出预算的部分从下次驱动的预算中扣除，Service创建之后修改不影响已经创建的Service
+     */
+    @Setter
+    private long serviceHandleMessageBudgetMicros = 10_000L;
+
+    /**
+     * Service消息队列的默认容量，向上取整到2的幂，Service创建之后修改不影响已经创建的Service
+     */
+    @Setter
+    private int serviceMailboxCapacity = 1024;
+
+    /**
+     * Service消息队列已满时的默认处理策略
+     */
+    @Setter
+    private MailboxOverflowPolicyEnum serviceMailboxOverflowPolicy = MailboxOverflowPolicyEnum.REJECT;
+
+    /**
+     * Service消息队列阻塞策略下，发送方最长的等待时间：毫秒
+     */
+    @Setter
+    private long serviceMailboxBlockTimeoutMillis = 100L;
+
+    /**
+     * Service消息池默认的空闲数量上限，见{@link com.games.framework.engine.service.ServiceMessagePool}
+     */
+    @Setter
+    private int serviceMessagePoolMaxIdle = 1024;
+
+    /**
+     * 单个Service同时等待应答的请求数量上限，向上取整到2的幂，超出之后的请求直接失败
+     */
+    @Setter
+    private int serviceAskMaxPendingCount = 4096;
+
+    /**
+     * 单个Service延迟派发事件的缓冲上限，超出之后的事件直接同步派发，见{@link com.games.framework.engine.service.ServiceEventBuffer}
+     */
+    @Setter
+    private int serviceEventBufferCapacity = 4096;
+
+    /**
+     * 单个会话待发送内容的刷新阈值：字节，Service驱动期间待发送内容达到阈值时立即刷新，不等驱动结束，
+     * 见{@link com.games.framework.net.session.NetSession}
+     */
+    @Setter
+    private int sessionFlushThresholdBytes = 32 * 1024;
+
+    /**
+     * 会话发送合并统计定期输出到日志的间隔：毫秒，小于等于{@code 0}代表不输出，
+     * 见{@link com.games.framework.net.session.NetOutboundStatistics}
+     */
+    @Setter
+    private int netOutboundMetricsDumpIntervalMillis = 60_000;
+
+    /**
+     * 单个会话待发送内容的上限：字节，连接持续不可写导致积压超出上限时关闭连接，小于等于{@code 0}代表不限制，
+     * 见{@link com.games.framework.net.session.NetSession}
+     */
+    @Setter
+    private int sessionMaxPendingBytes = 1024 * 1024;
+
+    /**
+     * 是否统计Service消息的排队，处理耗时
+     */
+    @Setter
+    private boolean serviceMessageMetricsEnabled = true;
+
+    /**
+     * Service消息耗时单独统计的消息标识范围[0, capacity)，超出范围的合并统计，Service创建之后修改不影响已经创建的Service
+     */
+    @Setter
+    private int serviceMessageMetricsMarkCapacity = 1024;
+
+    /**
+     * Service消息耗时统计定期输出到日志的间隔：毫秒，小于等于{@code 0}代表不输出
+     */
+    @Setter
+    private int serviceMessageMetricsDumpIntervalMillis = 60_000;
+
+    /**
+     * Service消息耗时统计每次输出的条数上限：队列深度最大的前N个Service，处理耗时p99最大的前N个消息，小于等于{@code 0}代表不输出
+     */
+    @Setter
+    private int serviceMessageMetricsDumpTopN = 20;
+
+    /**
+     * Service空闲时降频的下限：毫秒，即空闲Service两次驱动之间的最长间隔
+     * <p> 小于等于Service自身帧率时不降频
+     */
+    @Setter
+    private int serviceIdleFrameRate = 1000;
+
+    /**
+     * Service定时任务时间轮的刻度：毫秒
+     */
+    @Setter
+    private int serviceTimerTickMillis = 10;
+
+    /**
+     * Service单次驱动的默认预算：毫秒，超出之后记录现场，小于等于{@code 0}代表不检查
+     */
+    @Setter
+    private int serviceTickBudgetMillis = 100;
+
+    /**
+     * Service驱动超时看门狗的检查间隔：毫秒
+     */
+    @Setter
+    private int serviceTickWatchdogIntervalMillis = 50;
+
+    /**
+     * Service驱动超时记录的最大保留数量，第一次记录之前设置才有效
+     */
+    @Setter
+    private int serviceTickOverrunRecordCapacity = 256;
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.games.framework.engine.frame;
+
+import com.games.framework.constants.FrameLagPolicyEnum;
+import com.romje.component.clock.IClock;
+import com.romje.constants.TimeConst;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 引擎帧调度器（非线程安全，只允许引擎线程使用）
+ *
+ * <p> 基于{@link IClock#nanoTime()}维护一条固定间隔的“预定帧时间线”，每一帧的预定开始时间
+ * 都是上一帧的预定开始时间加上帧间隔，而不是上一帧的实际开始时间加上帧间隔，这样单帧的调度误差
+ * 不会累积，时间线不会漂移。
+ *
+ * <p> 等待使用{@link LockSupport#parkNanos(long)}，距离预定时间足够近的时候改为自旋等待，
+ * 避免线程唤醒的误差（通常几十微秒到毫秒级别）直接体现为帧抖动。
+ *
+ * <p> 落后于时间线时，按照{@link FrameLagPolicyEnum}处理，并统计到{@link FrameStatistics}。
+ *
+ * @author liu xuan jie
+ */
+public class FrameScheduler {
+
+    /**
+     * 距离预定时间小于该值时，不再park，改为自旋等待：纳秒
+     */
+    private static final long SPIN_THRESHOLD_NANOS = 100_000L;
+
+    /**
+     * 默认最大连续追帧数量
+     */
+    private static final int DEFAULT_MAX_CATCH_UP_FRAMES = 5;
+
+    /**
+     * 调度器使用的时钟
+     */
+    private final IClock clock;
+
+    /**
+     * 帧间隔：纳秒
+     */
+    @Getter
+    private final long intervalNanos;
+
+    /**
+     * 落后时的处理策略
+     */
+    @Getter
+    private final FrameLagPolicyEnum lagPolicy;
+
+    /**
+     * {@link FrameLagPolicyEnum#CATCH_UP}策略下，最大的连续追帧数量，超过之后剩余落后的帧直接跳过
+     */
+    @Getter
+    private int maxCatchUpFrames = DEFAULT_MAX_CATCH_UP_FRAMES;
+
+    /**
+     * 当前已经连续追帧的数量
+     */
+    private int catchUpCount;
+
+    /**
+     * 下一帧的预定开始时间：纳秒
+     */
+    private long nextFrameNanos;
+
+    /**
+     * 当前帧的实际开始时间：纳秒
+     */
+    private long frameStartNanos;
+
+    /**
+     * 帧运行统计
+     */
+    @Getter
+    private final FrameStatistics statistics = new FrameStatistics();
+
+    private FrameScheduler(IClock clock, long intervalMillis, FrameLagPolicyEnum lagPolicy) {
+        this.clock = clock;
+        this.intervalNanos = Math.multiplyExact(Math.max(intervalMillis, 1L), TimeConst.NANOS_OF_MILLI);
+        this.lagPolicy = lagPolicy;
+    }
+
+    /**
+     * @param clock          调度器使用的时钟，不允许为{@code null}
+     * @param intervalMillis 帧间隔：毫秒，小于等于{@code 0}时按照{@code 1}处理
+     * @param lagPolicy      落后时的处理策略，不允许为{@code null}
+     */
+    public static FrameScheduler of(@NonNull IClock clock, long intervalMillis, @NonNull FrameLagPolicyEnum lagPolicy) {
+        return new FrameScheduler(clock, intervalMillis, lagPolicy);
+    }
+
+    /**
+     * @param maxCatchUpFrames 最大连续追帧数量，仅{@link FrameLagPolicyEnum#CATCH_UP}策略生效
+     */
+    public FrameScheduler setMaxCatchUpFrames(int maxCatchUpFrames) {
+        this.maxCatchUpFrames = Math.max(maxCatchUpFrames, 0);
+        return this;
+    }
+
+    /**
+     * 开始调度，以当前时间作为时间线起点，第一帧立即执行
+     */
+    public void start() {
+        this.nextFrameNanos = this.clock.nanoTime();
+        this.frameStartNanos = this.nextFrameNanos;
+        this.catchUpCount = 0;
+    }
+
+    /**
+     * 等待直到下一帧的预定开始时间，并推进时间线
+     *
+     * <p> 如果等待过程中线程被中断，会立即返回，调用者自行检查中断状态
+     *
+     * @return 本帧的实际开始时间：纳秒
+     */
+    public long awaitNextFrame() {
+        long scheduledNanos = this.nextFrameNanos;
+        long curNanos = this.parkUntil(scheduledNanos);
+
+        // 时钟被回拨（例如调整了时钟偏移量），预定时间远在未来，直接以当前时间重建时间线
+        if (scheduledNanos - curNanos > this.intervalNanos) {
+            scheduledNanos = curNanos;
+        }
+
+        long latenessNanos = Math.max(curNanos - scheduledNanos, 0L);
+        long behindFrames = latenessNanos / this.intervalNanos;
+        long missedFrames = 0L;
+        if (behindFrames > 0
+                && (this.lagPolicy == FrameLagPolicyEnum.SKIP || this.catchUpCount >= this.maxCatchUpFrames)) {
+            // 跳过所有已经错过的帧，下一帧对齐到时间线上的下一个时间点
+            missedFrames = behindFrames;
+            this.nextFrameNanos = scheduledNanos + (behindFrames + 1) * this.intervalNanos;
+            this.catchUpCount = 0;
+        } else {
+            this.nextFrameNanos = scheduledNanos + this.intervalNanos;
+            this.catchUpCount = behindFrames > 0 ? this.catchUpCount + 1 : 0;
+        }
+
+        this.frameStartNanos = curNanos;
+        this.statistics.recordFrameStart(latenessNanos, missedFrames);
+        return curNanos;
+    }
+
+    /**
+     * 当前帧执行结束，记录本帧耗时
+     *
+     * @return 本帧执行耗时：纳秒
+     */
+    public long finishFrame() {
+        long costNanos = this.clock.nanoTime() - this.frameStartNanos;
+        this.statistics.recordFrameCost(costNanos);
+        return costNanos;
+    }
+
+    /**
+     * @return 下一帧的预定开始时间：纳秒
+     */
+    public long getNextFrameNanos() {
+        return this.nextFrameNanos;
+    }
+
+    /**
+     * 等待到指定时间，远离目标时间时park，接近目标时间时自旋
+     *
+     * @param deadlineNanos 目标时间：纳秒
+     * @return 等待结束时的当前时间：纳秒
+     */
+    private long parkUntil(long deadlineNanos) {
+        while (true) {
+            long curNanos = this.clock.nanoTime();
+            long remainNanos = deadlineNanos - curNanos;
+            if (remainNanos <= 0 || remainNanos > this.intervalNanos || Thread.currentThread().isInterrupted()) {
+                return curNanos;
+            }
+
+            if (remainNanos > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(this, remainNanos - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.games.framework.engine.frame;
+
+import com.romje.constants.TimeConst;
+import lombok.Getter;
+
+/**
+ * 引擎帧的运行统计
+ *
+ * <p> 只由引擎线程写入，其他线程（例如运维查询）只读，字段使用{@code volatile}保证可见性即可
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public class FrameStatistics {
+
+    /**
+     * 帧开始时间超过预定时间该值以上，才认为是“迟到帧”：纳秒
+     */
+    private static final long LATE_TOLERANCE_NANOS = TimeConst.NANOS_OF_MILLI;
+
+    /**
+     * 已经执行的总帧数
+     */
+    private volatile long frameCount;
+
+    /**
+     * 迟到帧的总数量（迟到超过{@link #LATE_TOLERANCE_NANOS}）
+     */
+    private volatile long lateFrameCount;
+
+    /**
+     * 被跳过（没有执行）的总帧数
+     */
+    private volatile long missedFrameCount;
+
+    /**
+     * 最近一帧的迟到时间：纳秒
+     */
+    private volatile long lastLatenessNanos;
+
+    /**
+     * 历史最大迟到时间：纳秒
+     */
+    private volatile long maxLatenessNanos;
+
+    /**
+     * 累计迟到时间：纳秒，配合{@link #frameCount}计算平均值
+     */
+    private volatile long totalLatenessNanos;
+
+    /**
+     * 最近一帧的执行耗时：纳秒
+     */
+    private volatile long lastFrameCostNanos;
+
+    /**
+     * 历史最大单帧执行耗时：纳秒
+     */
+    private volatile long maxFrameCostNanos;
+
+    /**
+     * 记录一帧的开始情况
+     *
+     * @param latenessNanos 实际开始时间相对预定时间的迟到时间：纳秒
+     * @param missedFrames  本次被跳过的帧数
+     */
+    void recordFrameStart(long latenessNanos, long missedFrames) {
+        this.frameCount++;
+        this.lastLatenessNanos = latenessNanos;
+        this.totalLatenessNanos += latenessNanos;
+        if (latenessNanos > this.maxLatenessNanos) {
+            this.maxLatenessNanos = latenessNanos;
+        }
+
+        if (latenessNanos > LATE_TOLERANCE_NANOS) {
+            this.lateFrameCount++;
+        }
+        this.missedFrameCount += missedFrames;
+    }
+
+    /**
+     * 记录一帧的执行耗时
+     *
+     * @param costNanos 本帧执行耗时：纳秒
+     */
+    void recordFrameCost(long costNanos) {
+        this.lastFrameCostNanos = costNanos;
+        if (costNanos > this.maxFrameCostNanos) {
+            this.maxFrameCostNanos = costNanos;
+        }
+    }
+
+    /**
+     * @return 平均迟到时间：纳秒
+     */
+    public long averageLatenessNanos() {
+        long count = this.frameCount;
+        return count == 0 ? 0 : this.totalLatenessNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameStatistics{" +
+                "frameCount=" + frameCount +
+                ", lateFrameCount=" + lateFrameCount +
+                ", missedFrameCount=" + missedFrameCount +
+                ", lastLatenessNanos=" + lastLatenessNanos +
+                ", averageLatenessNanos=" + averageLatenessNanos() +
+                ", maxLatenessNanos=" + maxLatenessNanos +
+                ", lastFrameCostNanos=" + lastFrameCostNanos +
+                ", maxFrameCostNanos=" + maxFrameCostNanos +
+                '}';
+    }
+}
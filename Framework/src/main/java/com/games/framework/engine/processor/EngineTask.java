@@ -2,8 +2,12 @@ package com.games.framework.engine.processor;
 
 import com.games.framework.engine.context.FrameworkContext;
 import com.games.framework.engine.service.AbstractService;
+import com.games.framework.log.Log;
 import lombok.Getter;
 
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * 最终被提交执行的线程任务
  *
@@ -11,6 +15,9 @@ import lombok.Getter;
  */
 public class EngineTask implements Runnable {
 
+    private static final AtomicIntegerFieldUpdater<EngineTask> RUNNING_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(EngineTask.class, "running");
+
     /**
      * 服务器service
      */
@@ -19,34 +26,171 @@ public class EngineTask implements Runnable {
 
     /**
      * 上一次任务开始执行的时间戳：ms
+     * <p> 执行线程写入，引擎线程在任务完成之后读取，由{@link TaskCompletionQueue}保证可见性
      */
     private long lastStartTimestamp;
 
+    /**
+     * 上一次任务真实执行的耗时：纳秒
+     * <p> 执行线程写入，引擎线程在任务完成之后读取，由{@link TaskCompletionQueue}保证可见性
+     */
+    private long lastCostNanos;
+
     /**
      * 任务帧的帧率:毫秒
      */
     private final int frameRate;
 
+    /**
+     * Service空闲时降频的下限：毫秒，小于等于{@link #frameRate}时不降频
+     */
+    private final int idleFrameRate;
+
+    /**
+     * 当前实际使用的帧率：毫秒，Service空闲时逐步翻倍直到{@link #idleFrameRate}，不空闲时恢复{@link #frameRate}
+     * <p> 执行线程写入，引擎线程在任务完成之后读取，由{@link TaskCompletionQueue}保证可见性
+     */
+    private int curFrameRate;
+
+    /**
+     * 单次驱动的预算：纳秒，超出之后记录现场到{@link TickOverrunRecorder}，小于等于{@code 0}代表不检查
+     */
+    private long budgetNanos;
+
+    /**
+     * 驱动耗时直方图
+     */
+    @Getter
+    private final TickHistogram tickHistogram = new TickHistogram();
+
+    /**
+     * 驱动序号，每次驱动开始时递增，用于区分看门狗的采样属于哪一次驱动
+     */
+    private volatile long runSequence;
+
+    /**
+     * 本次驱动开始的时间：纳秒（看门狗读取）
+     */
+    private volatile long runStartNanos;
+
+    /**
+     * 正在执行本次驱动的线程，没有执行时为{@code null}（看门狗读取），必须在序号和开始时间之后写入
+     */
+    private volatile Thread runningThread;
+
+    /**
+     * 看门狗采样的线程栈以及所属的驱动序号
+     */
+    private volatile StackTraceElement[] sampledStack;
+
+    private volatile long sampledSequence = -1L;
+
+    /**
+     * 所属的帧阶段下标，仅{@link TaskProcessor}声明了帧阶段时有效，添加到处理器之前设置
+     */
+    private int phase;
+
+    /**
+     * 是否已经提交给执行者，并且还没有处理完成(单线程模型，仅{@link TaskProcessor}引擎线程操作)
+     */
+    private boolean handling;
+
+    /**
+     * 是否正在某个执行线程上运行，{@code 1}代表运行中
+     * <p> 同一个Service的驱动必须串行，处理器已经保证了完成之前不会再次提交，这里额外保护执行者的
+     * 错误（例如同一次提交被执行了两次），尤其是每次驱动都换一个线程的执行者（虚拟线程等）
+     */
+    private volatile int running;
+
+    /**
+     * 执行者自定义的下标（亲和线程下标，执行者内部的槽位下标等），{@code -1}代表还没有分配
+     * <p> 执行线程写入时，引擎线程在任务完成之后读取，由{@link TaskCompletionQueue}保证可见性
+     */
+    private int affinity = -1;
+
+    /**
+     * 任务执行结束后，通知处理器的完成队列，由{@link TaskProcessor}添加任务时绑定
+     */
+    private TaskCompletionQueue completionQueue;
+
+    /**
+     * 驱动超时的看门狗，设置了预算的任务由{@link TaskProcessor}添加任务时绑定
+     */
+    private TickWatchdog tickWatchdog;
+
+    /**
+     * 完成队列中的下一个任务（侵入式链表节点，仅{@link TaskCompletionQueue}使用）
+     */
+    @Getter
+    private EngineTask nextCompleted;
+
 
     /**
      * @param frameRate     内部service的业务帧率
+     * @param idleFrameRate 内部service空闲时降频的下限
      * @param serverService 内部业务逻辑service
      */
-    private EngineTask(int frameRate, AbstractService serverService) {
+    private EngineTask(int frameRate, int idleFrameRate, AbstractService serverService) {
         this.frameRate = frameRate;
+        this.idleFrameRate = idleFrameRate;
+        this.curFrameRate = frameRate;
+        this.budgetNanos = FrameworkContext.INSTANCE.getServiceTickBudgetMillis() * 1_000_000L;
         this.lastStartTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
         this.serverService = serverService;
     }
 
+    /**
+     * 空闲降频的下限使用{@link FrameworkContext#getServiceIdleFrameRate()}
+     */
     public static EngineTask newInstance(int frameRate, AbstractService serverService) {
-        return new EngineTask(frameRate, serverService);
+        return new EngineTask(frameRate, FrameworkContext.INSTANCE.getServiceIdleFrameRate(), serverService);
+    }
+
+    public static EngineTask newInstance(int frameRate, int idleFrameRate, AbstractService serverService) {
+        return new EngineTask(frameRate, idleFrameRate, serverService);
     }
 
     @Override
     public void run() {
-        long curTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
-        this.lastStartTimestamp = curTimestamp;
-        this.serverService.tick(curTimestamp);
+        if (!RUNNING_UPDATER.compareAndSet(this, 0, 1)) {
+            // 正在执行的那一次会负责通知完成队列，这里不能重复压入，否则会破坏完成队列的链表
+            Log.FRAME.error("[Engine] Service:{} tick concurrently, executor submit repeated!",
+                    this.serverService.getServiceId());
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        this.runSequence++;
+        this.runStartNanos = startNanos;
+        this.runningThread = Thread.currentThread();
+        TickWatchdog watchdog = this.budgetNanos > 0L ? this.tickWatchdog : null;
+        int watchdogSlot = Objects.isNull(watchdog) ? -1 : watchdog.register(this);
+        try {
+            long curTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
+            this.lastStartTimestamp = curTimestamp;
+            this.serverService.tick(curTimestamp);
+            this.adaptFrameRate();
+        } catch (Exception e) {
+            this.curFrameRate = this.frameRate;
+            Log.FRAME.error("[Engine] Service:{} tick exception!", this.serverService.getServiceId(), e);
+        } finally {
+            long costNanos = System.nanoTime() - startNanos;
+            if (Objects.nonNull(watchdog)) {
+                watchdog.unregister(watchdogSlot);
+            }
+            this.runningThread = null;
+            this.lastCostNanos = costNanos;
+            this.tickHistogram.record(costNanos);
+            if (this.budgetNanos > 0L && costNanos > this.budgetNanos) {
+                this.recordOverrun(costNanos);
+            }
+
+            this.running = 0;
+            // 不论成功与否，都必须通知处理器，否则该任务永远不会再次被驱动
+            if (Objects.nonNull(this.completionQueue)) {
+                this.completionQueue.push(this);
+            }
+        }
     }
 
 
@@ -56,6 +200,144 @@ public class EngineTask implements Runnable {
      * @param curTimestamp 毫秒时间戳
      */
     public boolean requireExe(long curTimestamp) {
-        return (int) (curTimestamp - this.lastStartTimestamp) >= frameRate;
+        int elapsed = (int) (curTimestamp - this.lastStartTimestamp);
+        if (elapsed >= this.curFrameRate) {
+            return true;
+        }
+
+        // 降频期间收到消息，立即按照正常帧率驱动
+        return elapsed >= this.frameRate && this.serverService.hasMessage();
+    }
+
+    public int getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * @param phase 帧阶段下标，对应{@link TaskProcessor#init(ITaskExecutor, String...)}中声明的顺序
+     * @return 当前任务，方便链式调用
+     */
+    public EngineTask setPhase(int phase) {
+        this.phase = phase;
+        return this;
+    }
+
+    /**
+     * @param budgetMillis 单次驱动的预算：毫秒，小于等于{@code 0}代表不检查，添加到处理器之前设置才会启用看门狗采样
+     * @return 当前任务，方便链式调用
+     */
+    public EngineTask setBudgetMillis(int budgetMillis) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        return this;
+    }
+
+    public long getBudgetNanos() {
+        return this.budgetNanos;
+    }
+
+    /**
+     * 本次驱动已经超出预算，并且还没有采样时，采样执行线程的线程栈（看门狗线程调用）
+     *
+     * @param curNanos 当前时间：纳秒
+     */
+    void sampleIfOverrun(long curNanos) {
+        Thread thread = this.runningThread;
+        if (Objects.isNull(thread) || this.budgetNanos <= 0L) {
+            return;
+        }
+
+        long sequence = this.runSequence;
+        if (curNanos - this.runStartNanos <= this.budgetNanos || this.sampledSequence == sequence) {
+            return;
+        }
+
+        StackTraceElement[] stackTrace = thread.getStackTrace();
+        // 采样期间驱动已经结束，栈已经不属于本次驱动
+        if (this.runningThread != thread || this.runSequence != sequence) {
+            return;
+        }
+        this.sampledStack = stackTrace;
+        this.sampledSequence = sequence;
+    }
+
+    /**
+     * 记录超出预算的现场（执行线程调用）
+     */
+    private void recordOverrun(long costNanos) {
+        StackTraceElement[] stackTrace = this.sampledSequence == this.runSequence ? this.sampledStack : null;
+        TickOverrunRecord record = new TickOverrunRecord(this.serverService.getServiceId(), this.lastStartTimestamp,
+                costNanos, this.budgetNanos, Thread.currentThread().getName(), stackTrace,
+                this.serverService.copyTickMessageMarks(), this.serverService.getTickMessageCount());
+        TickOverrunRecorder.INSTANCE.record(record);
+        Log.FRAME.warn("[Engine] Service:{} tick overrun, cost:{} ns, budget:{} ns, messages:{}, stack sampled:{}!",
+                record.getServiceId(), costNanos, this.budgetNanos, record.getMessageCount(), Objects.nonNull(stackTrace));
+    }
+
+    /**
+     * @return 当前实际使用的帧率：毫秒
+     */
+    public int getCurFrameRate() {
+        return this.curFrameRate;
+    }
+
+    /**
+     * 根据Service是否空闲调整下一次驱动的帧率（执行线程调用）
+     */
+    private void adaptFrameRate() {
+        if (this.idleFrameRate <= this.frameRate || !this.serverService.isIdle()) {
+            this.curFrameRate = this.frameRate;
+            return;
+        }
+
+        int nextFrameRate = Math.max(this.curFrameRate << 1, 1);
+        this.curFrameRate = Math.min(nextFrameRate, this.idleFrameRate);
+    }
+
+    /**
+     * 绑定任务完成后需要通知的完成队列
+     */
+    void bindCompletionQueue(TaskCompletionQueue completionQueue) {
+        this.completionQueue = completionQueue;
+    }
+
+    void bindWatchdog(TickWatchdog tickWatchdog) {
+        this.tickWatchdog = tickWatchdog;
+    }
+
+    /**
+     * 标记任务已经提交给执行者，正在处理中
+     */
+    void startHandling() {
+        this.handling = true;
+    }
+
+    /**
+     * 标记任务处理完成，可以再次被提交
+     */
+    void finishHandling() {
+        this.handling = false;
+    }
+
+    boolean isHandling() {
+        return this.handling;
+    }
+
+    /**
+     * @return 上一次执行的耗时：纳秒，仅在任务完成之后（{@link ITaskExecutor#onCompleted(Runnable)}）读取有意义
+     */
+    public long getLastCostNanos() {
+        return this.lastCostNanos;
+    }
+
+    public int getAffinity() {
+        return this.affinity;
+    }
+
+    public void setAffinity(int affinity) {
+        this.affinity = affinity;
+    }
+
+    void setNextCompleted(EngineTask nextCompleted) {
+        this.nextCompleted = nextCompleted;
     }
 }
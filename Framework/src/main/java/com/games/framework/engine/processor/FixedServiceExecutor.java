@@ -1,26 +1,114 @@
 package com.games.framework.engine.processor;
 
+import com.games.framework.log.Log;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 /**
+ * 每个Service固定在一个线程上执行的任务执行者
+ *
+ * <p> 首次提交按照{@code serviceId}取模分配线程，之后根据{@link EngineTask#getLastCostNanos()}统计每个
+ * Service的真实耗时，每隔一段时间在帧边界（{@link #onFrame()}）检查各线程的负载，负载倾斜时把最
+ * 繁忙线程上的部分Service迁移到最空闲的线程。
+ *
+ * <p> 迁移只修改Service下一次提交的线程：处理器保证任务完成之前不会再次提交，所以旧线程上的执行
+ * 一定在新线程的执行之前结束，单个Service的驱动顺序不变。
+ *
+ * <p> {@link EngineTask#getAffinity()}在当前执行者中代表任务的槽位下标，所有状态仅引擎线程操作，
+ * 只有发布的统计快照可以被其他线程读取。
+ *
  * @author liuxuanjie
  */
 public class FixedServiceExecutor implements ITaskExecutor<EngineTask> {
 
-    private ExecutorService[] serviceRunner;
+    /**
+     * 默认的负载检查间隔：毫秒
+     */
+    private static final long DEFAULT_REBALANCE_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 最繁忙线程的负载超过平均负载的倍数，才认为负载倾斜
+     */
+    private static final double IMBALANCE_RATIO = 1.25D;
+
+    /**
+     * 单次检查最多迁移的Service数量，避免一次迁移过多导致缓存全部失效
+     */
+    private static final int MAX_MIGRATION_PER_REBALANCE = 16;
+
+    private final ExecutorService[] serviceRunner;
+
+    /**
+     * 所有提交过的Service槽位，下标即为{@link EngineTask#getAffinity()}
+     */
+    private final List<ServiceSlot> slotList = new ArrayList<>();
+
+    /**
+     * 每个线程的平滑负载：纳秒/检查间隔（仅负载检查时使用）
+     */
+    private final long[] threadLoadNanos;
+
+    /**
+     * 负载检查间隔：纳秒
+     */
+    private final long rebalanceIntervalNanos;
+
+    /**
+     * 上一次负载检查的时间：纳秒
+     */
+    private long lastRebalanceNanos;
+
+    /**
+     * 累计迁移的Service数量
+     */
+    @Getter
+    private volatile long migratedCount;
 
+    /**
+     * 最近一次负载检查发布的统计快照，下标即为线程下标
+     */
+    private volatile ThreadStatistics[] statistics;
 
-    private FixedServiceExecutor(int threadCount) {
-        serviceRunner = new ExecutorService[threadCount];
+
+    private FixedServiceExecutor(int threadCount, long rebalanceIntervalMillis) {
+        threadCount = threadCount <= 0 ? 1 : threadCount;
+        this.serviceRunner = new ExecutorService[threadCount];
         for (int i = 0; i < threadCount; i++) {
-            serviceRunner[i] = Executors.newSingleThreadExecutor();
+            this.serviceRunner[i] = Executors.newSingleThreadExecutor();
         }
+
+        this.threadLoadNanos = new long[threadCount];
+        this.rebalanceIntervalNanos = Math.max(rebalanceIntervalMillis, 1L) * 1_000_000L;
+        this.lastRebalanceNanos = System.nanoTime();
+        this.statistics = new ThreadStatistics[0];
     }
 
     public static FixedServiceExecutor newInstance(int threadCount) {
-        return new FixedServiceExecutor(threadCount);
+        return new FixedServiceExecutor(threadCount, DEFAULT_REBALANCE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param rebalanceIntervalMillis 负载检查间隔：毫秒
+     */
+    public static FixedServiceExecutor newInstance(int threadCount, long rebalanceIntervalMillis) {
+        return new FixedServiceExecutor(threadCount, rebalanceIntervalMillis);
+    }
+
+    @Override
+    public void onFrame() {
+        long curNanos = System.nanoTime();
+        long elapsedNanos = curNanos - this.lastRebalanceNanos;
+        if (elapsedNanos < this.rebalanceIntervalNanos) {
+            return;
+        }
+
+        this.lastRebalanceNanos = curNanos;
+        this.rebalance(elapsedNanos);
     }
 
     @Override
@@ -29,12 +117,209 @@ public class FixedServiceExecutor implements ITaskExecutor<EngineTask> {
     }
 
     @Override
-    public Future<?> submit(EngineTask task) {
-        long serviceID = task.getServerService().getServiceId();
-        return serviceRunner[(int) (serviceID % serviceRunner.length)].submit(task);
+    public void submit(EngineTask task) {
+        ServiceSlot slot = this.findSlot(task);
+        if (slot == null) {
+            int threadIndex = (int) (task.getServerService().getServiceId() % this.serviceRunner.length);
+            slot = new ServiceSlot(task, threadIndex);
+            task.setAffinity(this.slotList.size());
+            this.slotList.add(slot);
+        }
+        this.serviceRunner[slot.threadIndex].execute(task);
     }
 
     @Override
-    public void handleFuture(Future<?> future) {
+    public void onCompleted(EngineTask task) {
+        ServiceSlot slot = this.findSlot(task);
+        if (slot != null) {
+            slot.windowCostNanos += task.getLastCostNanos();
+        }
+    }
+
+    /**
+     * 获取最近一次负载检查的统计快照（任意线程调用）
+     *
+     * @return 下标即为线程下标，还没有进行过负载检查时为空数组，不会为{@code null}
+     */
+    public ThreadStatistics[] snapshotStatistics() {
+        return this.statistics.clone();
+    }
+
+    /**
+     * @return 执行线程数量
+     */
+    public int threadCount() {
+        return this.serviceRunner.length;
+    }
+
+    private ServiceSlot findSlot(EngineTask task) {
+        int slotIndex = task.getAffinity();
+        if (slotIndex < 0 || slotIndex >= this.slotList.size()) {
+            return null;
+        }
+
+        ServiceSlot slot = this.slotList.get(slotIndex);
+        return slot.task == task ? slot : null;
+    }
+
+    /**
+     * 平滑所有Service的负载，负载倾斜时从最繁忙线程向最空闲线程迁移Service，最后发布统计快照
+     *
+     * @param elapsedNanos 距离上一次检查的时间：纳秒
+     */
+    private void rebalance(long elapsedNanos) {
+        Arrays.fill(this.threadLoadNanos, 0L);
+        long totalLoadNanos = 0L;
+        for (ServiceSlot slot : this.slotList) {
+            slot.loadNanos = (slot.loadNanos + slot.windowCostNanos) >> 1;
+            slot.windowCostNanos = 0L;
+            this.threadLoadNanos[slot.threadIndex] += slot.loadNanos;
+            totalLoadNanos += slot.loadNanos;
+        }
+
+        int threadCount = this.serviceRunner.length;
+        int migrated = 0;
+        while (migrated < MAX_MIGRATION_PER_REBALANCE) {
+            int hotIndex = 0;
+            int coldIndex = 0;
+            for (int i = 1; i < threadCount; i++) {
+                if (this.threadLoadNanos[i] > this.threadLoadNanos[hotIndex]) {
+                    hotIndex = i;
+                }
+                if (this.threadLoadNanos[i] < this.threadLoadNanos[coldIndex]) {
+                    coldIndex = i;
+                }
+            }
+
+            if (this.threadLoadNanos[hotIndex] * threadCount <= totalLoadNanos * IMBALANCE_RATIO) {
+                break;
+            }
+
+            // 迁移负载最接近差值一半的Service，迁移之后两个线程的较大负载最小
+            long gapNanos = this.threadLoadNanos[hotIndex] - this.threadLoadNanos[coldIndex];
+            ServiceSlot candidate = null;
+            for (ServiceSlot slot : this.slotList) {
+                if (slot.threadIndex != hotIndex || slot.loadNanos <= 0L || slot.loadNanos >= gapNanos) {
+                    continue;
+                }
+
+                if (candidate == null
+                        || Math.abs((gapNanos >> 1) - slot.loadNanos) < Math.abs((gapNanos >> 1) - candidate.loadNanos)) {
+                    candidate = slot;
+                }
+            }
+
+            if (candidate == null) {
+                break;
+            }
+
+            candidate.threadIndex = coldIndex;
+            this.threadLoadNanos[hotIndex] -= candidate.loadNanos;
+            this.threadLoadNanos[coldIndex] += candidate.loadNanos;
+            migrated++;
+        }
+
+        if (migrated > 0) {
+            this.migratedCount += migrated;
+            Log.FRAME.info("[Engine] Fixed service executor rebalance, migrated:{}, thread load:{} ns!",
+                    migrated, Arrays.toString(this.threadLoadNanos));
+        }
+
+        this.publishStatistics(elapsedNanos);
+    }
+
+    private void publishStatistics(long elapsedNanos) {
+        int threadCount = this.serviceRunner.length;
+        int[] serviceCounts = new int[threadCount];
+        for (ServiceSlot slot : this.slotList) {
+            serviceCounts[slot.threadIndex]++;
+        }
+
+        long[][] serviceIds = new long[threadCount][];
+        for (int i = 0; i < threadCount; i++) {
+            serviceIds[i] = new long[serviceCounts[i]];
+            serviceCounts[i] = 0;
+        }
+        for (ServiceSlot slot : this.slotList) {
+            serviceIds[slot.threadIndex][serviceCounts[slot.threadIndex]++] = slot.task.getServerService().getServiceId();
+        }
+
+        ThreadStatistics[] result = new ThreadStatistics[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            double utilization = (double) this.threadLoadNanos[i] / elapsedNanos;
+            result[i] = new ThreadStatistics(i, serviceIds[i], this.threadLoadNanos[i], Math.min(utilization, 1.0D));
+        }
+        this.statistics = result;
+    }
+
+
+    /**
+     * 执行线程的统计快照
+     */
+    @Getter
+    public static class ThreadStatistics {
+
+        private final int threadIndex;
+
+        /**
+         * 当前分配在该线程上的所有Service
+         */
+        private final long[] serviceIds;
+
+        /**
+         * 平滑之后，每个检查间隔内执行任务的耗时：纳秒
+         */
+        private final long loadNanos;
+
+        /**
+         * 平滑之后的利用率，[0, 1]
+         */
+        private final double utilization;
+
+        private ThreadStatistics(int threadIndex, long[] serviceIds, long loadNanos, double utilization) {
+            this.threadIndex = threadIndex;
+            this.serviceIds = serviceIds;
+            this.loadNanos = loadNanos;
+            this.utilization = utilization;
+        }
+
+        @Override
+        public String toString() {
+            return "ThreadStatistics{" +
+                    "threadIndex=" + threadIndex +
+                    ", serviceCount=" + serviceIds.length +
+                    ", loadNanos=" + loadNanos +
+                    ", utilization=" + String.format("%.2f", utilization) +
+                    '}';
+        }
+    }
+
+
+    /**
+     * Service在当前执行者中的分配与负载记录(单线程模型，仅引擎线程操作)
+     */
+    private static class ServiceSlot {
+
+        private final EngineTask task;
+
+        /**
+         * 下一次提交时使用的线程下标
+         */
+        private int threadIndex;
+
+        /**
+         * 当前检查间隔内累计的执行耗时：纳秒
+         */
+        private long windowCostNanos;
+
+        /**
+         * 平滑之后的负载：纳秒/检查间隔
+         */
+        private long loadNanos;
+
+        private ServiceSlot(EngineTask task, int threadIndex) {
+            this.task = task;
+            this.threadIndex = threadIndex;
+        }
     }
 }
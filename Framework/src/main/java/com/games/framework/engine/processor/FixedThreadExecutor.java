@@ -1,9 +1,7 @@
 package com.games.framework.engine.processor;
 
-import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 /**
  * 固定线程数量的任务执行者
@@ -18,7 +16,7 @@ public class FixedThreadExecutor implements ITaskExecutor<EngineTask> {
     private ExecutorService threadPool;
 
     /**
-     * 剩余可用的线程数量
+     * 剩余可用的线程数量(单线程模型，仅引擎线程操作)
      */
     private int remainUsableCount;
 
@@ -40,20 +38,14 @@ public class FixedThreadExecutor implements ITaskExecutor<EngineTask> {
 
 
     @Override
-    public Future<?> submit(EngineTask engineTask) {
+    public void submit(EngineTask engineTask) {
         this.remainUsableCount--;
-        return this.threadPool.submit(engineTask);
+        this.threadPool.execute(engineTask);
     }
 
 
     @Override
-    public void handleFuture(Future<?> future) {
-        if (Objects.isNull(future)) {
-            return;
-        }
-
-        if (future.isDone()) {
-            this.remainUsableCount++;
-        }
+    public void onCompleted(EngineTask engineTask) {
+        this.remainUsableCount++;
     }
 }
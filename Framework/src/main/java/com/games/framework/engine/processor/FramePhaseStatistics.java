@@ -0,0 +1,94 @@
+package com.games.framework.engine.processor;
+
+import lombok.Getter;
+
+/**
+ * 帧阶段的耗时统计
+ *
+ * <p> 只由引擎线程写入，其他线程读取的是某一帧结束时的近似值（字段之间不保证一致）
+ *
+ * @author liuxuanjie
+ */
+@Getter
+public class FramePhaseStatistics {
+
+    /**
+     * 阶段下标，即执行顺序
+     */
+    private final int phaseIndex;
+
+    /**
+     * 阶段名称
+     */
+    private final String phaseName;
+
+    /**
+     * 阶段内的任务总数量
+     */
+    private volatile int taskCount;
+
+    /**
+     * 最近一帧该阶段提交执行的任务数量
+     */
+    private volatile int lastSubmitCount;
+
+    /**
+     * 最近一帧该阶段的耗时（从开始提交到屏障结束）：纳秒
+     */
+    private volatile long lastCostNanos;
+
+    /**
+     * 历史最大的单帧耗时：纳秒
+     */
+    private volatile long maxCostNanos;
+
+    /**
+     * 累计耗时：纳秒
+     */
+    private volatile long totalCostNanos;
+
+    /**
+     * 累计执行的帧数
+     */
+    private volatile long frameCount;
+
+    FramePhaseStatistics(int phaseIndex, String phaseName) {
+        this.phaseIndex = phaseIndex;
+        this.phaseName = phaseName;
+    }
+
+    void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    void record(int submitCount, long costNanos) {
+        this.lastSubmitCount = submitCount;
+        this.lastCostNanos = costNanos;
+        if (costNanos > this.maxCostNanos) {
+            this.maxCostNanos = costNanos;
+        }
+        this.totalCostNanos += costNanos;
+        this.frameCount++;
+    }
+
+    /**
+     * @return 平均单帧耗时：纳秒
+     */
+    public long averageCostNanos() {
+        long frames = this.frameCount;
+        return frames <= 0L ? 0L : this.totalCostNanos / frames;
+    }
+
+    @Override
+    public String toString() {
+        return "FramePhaseStatistics{" +
+                "phaseIndex=" + phaseIndex +
+                ", phaseName='" + phaseName + '\'' +
+                ", taskCount=" + taskCount +
+                ", lastSubmitCount=" + lastSubmitCount +
+                ", lastCostNanos=" + lastCostNanos +
+                ", maxCostNanos=" + maxCostNanos +
+                ", averageCostNanos=" + averageCostNanos() +
+                '}';
+    }
+}
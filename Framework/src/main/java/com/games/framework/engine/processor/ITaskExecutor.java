@@ -1,14 +1,24 @@
 package com.games.framework.engine.processor;
 
-import java.util.concurrent.Future;
-
 /**
  * 任务执行者接口
  *
+ * <p> 执行者只负责把任务交给线程执行，不返回任何执行结果。任务执行结束后由任务自身通过
+ * {@link TaskCompletionQueue}通知处理器，处理器在引擎线程中统一回调{@link #onCompleted(Runnable)}。
+ * 所以{@link #onFrame()}，{@link #canSubmit()}，{@link #submit(Runnable)}，{@link #onCompleted(Runnable)}
+ * 全部只在引擎线程中调用，实现类内部的计数等状态不需要任何同步。
+ *
  * @author liuxuanjie
  */
 public interface ITaskExecutor<T extends Runnable> {
 
+    /**
+     * 帧边界回调（引擎线程回调），本帧完成的任务已经全部回调{@link #onCompleted(Runnable)}，
+     * 还没有开始提交新的任务，执行者可以在这里调整内部的任务分配
+     */
+    default void onFrame() {
+    }
+
     /**
      * 当前是否可提交任务执行
      */
@@ -17,10 +27,10 @@ public interface ITaskExecutor<T extends Runnable> {
     /**
      * 提交任务执行
      */
-    Future<?> submit(T task);
+    void submit(T task);
 
     /**
-     * 任务执行结果
+     * 任务执行完成（引擎线程回调）
      */
-    void handleFuture(Future<?> future);
+    void onCompleted(T task);
 }
@@ -0,0 +1,74 @@
+package com.games.framework.engine.processor;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 任务完成队列(多生单消模型)，无锁，无额外内存分配
+ *
+ * <p> 侵入式链表，直接使用{@link EngineTask}自身的字段作为链表节点，执行线程在任务结束时
+ * 通过CAS压入，引擎线程一次性取走全部已完成的任务。取出顺序与完成顺序相反，处理器不关心完成顺序。
+ *
+ * <p> 引擎线程需要等待任务完成时（阶段屏障），通过{@link #await()}挂起，不会空转，压入任务的线程负责唤醒。
+ *
+ * @author liuxuanjie
+ */
+public class TaskCompletionQueue {
+
+    /**
+     * 链表头，最后完成的任务
+     */
+    private final AtomicReference<EngineTask> head = new AtomicReference<>();
+
+    /**
+     * 正在等待任务完成的线程（引擎线程），没有等待者时为{@code null}
+     */
+    private volatile Thread waiter;
+
+    /**
+     * 压入一个已经完成的任务（任意执行线程调用）
+     *
+     * @param engineTask 不允许为{@code null}
+     */
+    void push(EngineTask engineTask) {
+        EngineTask oldHead;
+        do {
+            oldHead = this.head.get();
+            engineTask.setNextCompleted(oldHead);
+        } while (!this.head.compareAndSet(oldHead, engineTask));
+
+        // 先压入，再检查等待者，与等待者的“先登记，再检查队列”配合，保证不丢失唤醒
+        Thread waitThread = this.waiter;
+        if (waitThread != null) {
+            LockSupport.unpark(waitThread);
+        }
+    }
+
+    /**
+     * 挂起当前线程，直到至少有一个已完成的任务，或者当前线程被中断（引擎线程调用）
+     */
+    void await() {
+        if (this.head.get() != null) {
+            return;
+        }
+
+        Thread curThread = Thread.currentThread();
+        this.waiter = curThread;
+        while (this.head.get() == null && !curThread.isInterrupted()) {
+            LockSupport.park(this);
+        }
+        this.waiter = null;
+    }
+
+    /**
+     * 取走当前所有已经完成的任务（引擎线程调用）
+     *
+     * @return 已完成任务链表的头节点，通过{@link EngineTask#getNextCompleted()}遍历，没有返回{@code null}
+     */
+    EngineTask drain() {
+        if (this.head.get() == null) {
+            return null;
+        }
+        return this.head.getAndSet(null);
+    }
+}
@@ -1,14 +1,28 @@
 package com.games.framework.engine.processor;
 
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.engine.service.MessageMarkMetrics;
+import com.games.framework.log.Log;
+import com.games.framework.net.session.NetOutboundStatistics;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 
 /**
  * 任务处理器，管理所有线程任务的添加，提交，删除等操作
- * todo:这里的所有思路之后进行整理重构
+ *
+ * <p> 任务是否正在处理中直接记录在{@link EngineTask}自身的状态上，不需要任何查找，
+ * 所以一帧的开销与任务总数线性相关，并且帧内不产生额外的内存分配。
+ *
+ * <p> 任务执行结束后自己压入{@link TaskCompletionQueue}，处理器每帧只处理真正完成的任务，
+ * 不再轮询任何执行结果。
+ *
+ * <p> 初始化时声明了帧阶段，则按照阶段驱动：每一帧按照声明顺序依次驱动每个阶段，同一阶段内的任务
+ * 并行执行，阶段之间有屏障，上一阶段的任务全部完成之后才会开始下一阶段。等待期间引擎线程挂起在
+ * {@link TaskCompletionQueue}上，不会空转。没有声明阶段时，任务可以跨帧执行，不等待完成。
  *
  * @author liuxuanjie
  */
@@ -25,32 +39,90 @@ public class TaskProcessor {
     private List<EngineTask> allTaskList;
 
     /**
-     * 正在处理中的任务列表(单线程模型，仅当前类内部操作)
-     * 与{@link #futureList}位置一一对应，相当于两个list实现一个map
+     * 已经执行完成的任务(多生单消模型)
+     */
+    private TaskCompletionQueue completionQueue;
+
+    /**
+     * 正在处理中的任务数量(单线程模型，仅当前类内部操作)
      */
-    private List<EngineTask> handlingTaskList;
+    private int handlingCount;
 
     /**
-     * 任务执行结果(单线程模型，仅当前类内部操作)
+     * 下一帧开始遍历的任务下标(单线程模型，仅当前类内部操作)
+     * 执行者容量不足时，从上一次中断的位置继续，避免靠前的任务一直占用执行者
      */
-    private List<Future<?>> futureList;
+    private int scanStartIndex;
 
     /**
      * 任务执行者(解耦，自由适配)
      */
     private ITaskExecutor<EngineTask> taskExecutor;
 
+    /**
+     * 按照阶段分组的任务列表，下标即为阶段下标，没有声明阶段时为{@code null}(单线程模型，仅当前类内部操作)
+     */
+    private List<EngineTask>[] phaseTaskLists;
+
+    /**
+     * Service驱动超时的看门狗，第一次添加设置了预算的任务时启动，没有启动时为{@code null}
+     */
+    private TickWatchdog tickWatchdog;
+
+    /**
+     * 每个阶段的耗时统计，下标即为阶段下标，没有声明阶段时为空数组
+     */
+    private FramePhaseStatistics[] phaseStatistics;
+
+    /**
+     * 上一次输出Service消息耗时统计的时间戳：ms
+     */
+    private long lastMetricsDumpTimestamp;
+
+    /**
+     * 上一次输出会话发送合并统计的时间戳：ms
+     */
+    private long lastOutboundDumpTimestamp;
+
+    /**
+     * 处理器累计执行的帧数
+     */
+    private long frameCount;
+
+    /**
+     * 上一次输出会话发送合并统计时的累计值，输出的是两次之间的差值
+     */
+    private final OutboundMetricsSnapshot lastOutboundSnapshot = new OutboundMetricsSnapshot();
+
 
     private TaskProcessor() {
     }
 
 
-    public TaskProcessor init(ITaskExecutor<EngineTask> taskExecutor) {
+    /**
+     * @param taskExecutor 任务执行者
+     * @param phaseNames   按照执行顺序声明的帧阶段名称，为空代表不分阶段，任务通过{@link EngineTask#setPhase(int)}指定阶段下标
+     */
+    @SuppressWarnings("unchecked")
+    public TaskProcessor init(ITaskExecutor<EngineTask> taskExecutor, String... phaseNames) {
         this.preAddTaskQueue = new ConcurrentLinkedQueue<>();
         this.allTaskList = new ArrayList<>();
-        this.handlingTaskList = new ArrayList<>();
-        this.futureList = new ArrayList<>();
+        this.completionQueue = new TaskCompletionQueue();
+        this.handlingCount = 0;
+        this.scanStartIndex = 0;
         this.taskExecutor = taskExecutor;
+        if (Objects.nonNull(this.tickWatchdog)) {
+            this.tickWatchdog.stop();
+            this.tickWatchdog = null;
+        }
+
+        int phaseCount = Objects.isNull(phaseNames) ? 0 : phaseNames.length;
+        this.phaseTaskLists = phaseCount <= 0 ? null : new List[phaseCount];
+        this.phaseStatistics = new FramePhaseStatistics[phaseCount];
+        for (int i = 0; i < phaseCount; i++) {
+            this.phaseTaskLists[i] = new ArrayList<>();
+            this.phaseStatistics[i] = new FramePhaseStatistics(i, phaseNames[i]);
+        }
         return this;
     }
 
@@ -61,11 +133,19 @@ public class TaskProcessor {
      * @param interval 距离上次执行的时间间隔：ms
      */
     public void tick(int interval) {
+        this.frameCount++;
         // 注意一定是下一帧的最开始判断上一帧是否执行完，不要同一帧判断
-        this.tickFutures();
+        this.tickCompleted();
+        this.taskExecutor.onFrame();
 
         this.tickPreAddQueue();
-        this.tickTasks();
+        if (Objects.isNull(this.phaseTaskLists)) {
+            this.tickTasks();
+        } else {
+            this.tickPhases();
+        }
+        this.tickMetricsDump();
+        this.tickOutboundDump();
     }
 
 
@@ -80,50 +160,326 @@ public class TaskProcessor {
         }
     }
 
+    /**
+     * @return 当前已经添加成功的任务总数量
+     */
+    public int taskCount() {
+        return this.allTaskList.size();
+    }
+
+    /**
+     * @return 当前正在处理中的任务数量
+     */
+    public int handlingCount() {
+        return this.handlingCount;
+    }
+
+    /**
+     * 获取每个帧阶段的耗时统计（任意线程调用）
+     *
+     * @return 下标即为阶段下标，没有声明阶段时为空数组，不会为{@code null}
+     */
+    public FramePhaseStatistics[] phaseStatistics() {
+        return this.phaseStatistics.clone();
+    }
+
 
     private void tickPreAddQueue() {
         while (true) {
             EngineTask engineTask = this.preAddTaskQueue.poll();
             if (Objects.isNull(engineTask)) {
-                return;
+                break;
             }
 
+            engineTask.bindCompletionQueue(this.completionQueue);
+            if (engineTask.getBudgetNanos() > 0L) {
+                engineTask.bindWatchdog(this.startWatchdog());
+            }
             this.allTaskList.add(engineTask);
+            if (Objects.nonNull(this.phaseTaskLists)) {
+                this.addPhaseTask(engineTask);
+            }
+        }
+    }
+
+    /**
+     * 第一次添加设置了预算的任务时才启动看门狗，没有任何任务需要检查时不占用线程
+     */
+    private TickWatchdog startWatchdog() {
+        if (Objects.isNull(this.tickWatchdog)) {
+            this.tickWatchdog = TickWatchdog.start(FrameworkContext.INSTANCE.getServiceTickWatchdogIntervalMillis());
         }
+        return this.tickWatchdog;
+    }
+
+    private void addPhaseTask(EngineTask engineTask) {
+        int phase = engineTask.getPhase();
+        if (phase < 0 || phase >= this.phaseTaskLists.length) {
+            Log.FRAME.warn("[Engine] Service:{} phase:{} is not declared, use phase 0!",
+                    engineTask.getServerService().getServiceId(), phase);
+            phase = 0;
+        }
+
+        this.phaseTaskLists[phase].add(engineTask);
+        this.phaseStatistics[phase].setTaskCount(this.phaseTaskLists[phase].size());
     }
 
 
     private void tickTasks() {
-        long curTimestamp = System.currentTimeMillis();
-        for (int i = 0, iSize = this.allTaskList.size(); i < iSize; i++) {
-            if (this.taskExecutor.canSubmit()) {
-                EngineTask engineTask = this.allTaskList.get(i);
-                if (this.handlingTaskList.contains(engineTask)) {
+        long curTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
+        int taskSize = this.allTaskList.size();
+        int index = this.scanStartIndex < taskSize ? this.scanStartIndex : 0;
+        for (int i = 0; i < taskSize; i++, index = (index + 1 == taskSize) ? 0 : index + 1) {
+            if (!this.taskExecutor.canSubmit()) {
+                this.scanStartIndex = index;
+                return;
+            }
+
+            EngineTask engineTask = this.allTaskList.get(index);
+            if (engineTask.isHandling()) {
+                continue;
+            }
+
+            if (engineTask.requireExe(curTimestamp)) {
+                engineTask.startHandling();
+                this.handlingCount++;
+                this.taskExecutor.submit(engineTask);
+            }
+        }
+    }
+
+
+    /**
+     * 按照声明顺序依次驱动每个阶段，每个阶段的任务全部完成之后才开始下一阶段
+     */
+    private void tickPhases() {
+        long curTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
+        Thread curThread = Thread.currentThread();
+        for (int phase = 0; phase < this.phaseTaskLists.length; phase++) {
+            long startNanos = System.nanoTime();
+            List<EngineTask> taskList = this.phaseTaskLists[phase];
+            int submitCount = 0;
+            for (int i = 0, size = taskList.size(); i < size; i++) {
+                EngineTask engineTask = taskList.get(i);
+                if (engineTask.isHandling() || !engineTask.requireExe(curTimestamp)) {
                     continue;
                 }
 
-                if (engineTask.requireExe(curTimestamp)) {
-                    Future<?> future = this.taskExecutor.submit(engineTask);
-                    this.handlingTaskList.add(engineTask);
-                    this.futureList.add(future);
+                // 执行者容量不足时，等待阶段内的任务完成腾出容量
+                while (!this.taskExecutor.canSubmit()) {
+                    if (curThread.isInterrupted()) {
+                        return;
+                    }
+                    this.awaitCompleted();
                 }
+
+                engineTask.startHandling();
+                this.handlingCount++;
+                this.taskExecutor.submit(engineTask);
+                submitCount++;
             }
+
+            // 阶段屏障
+            while (this.handlingCount > 0) {
+                if (curThread.isInterrupted()) {
+                    return;
+                }
+                this.awaitCompleted();
+            }
+            this.phaseStatistics[phase].record(submitCount, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 按照{@link FrameworkContext#getServiceMessageMetricsDumpIntervalMillis()}定期输出消息耗时统计
+     */
+    private void tickMetricsDump() {
+        int dumpIntervalMillis = FrameworkContext.INSTANCE.getServiceMessageMetricsDumpIntervalMillis();
+        if (dumpIntervalMillis <= 0 || !FrameworkContext.INSTANCE.isServiceMessageMetricsEnabled()) {
+            return;
+        }
+
+        long curTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
+        if (this.lastMetricsDumpTimestamp <= 0L) {
+            this.lastMetricsDumpTimestamp = curTimestamp;
+            return;
         }
+        if (curTimestamp - this.lastMetricsDumpTimestamp < dumpIntervalMillis) {
+            return;
+        }
+        this.lastMetricsDumpTimestamp = curTimestamp;
+        this.dumpMessageMetrics();
     }
 
+    /**
+     * 输出消息耗时统计（引擎线程调用，统计为近似值）
+     *
+     * <p> 只输出有数据的部分，并且限制条数，避免Service数量很多时在引擎线程上同步输出大量日志：
+     * 队列深度最大的前N个Service，以及处理耗时p99最大的前N个消息，N见{@link FrameworkContext#getServiceMessageMetricsDumpTopN()}。
+     * 没有处理过消息并且队列为空的Service不输出。
+     */
+    public void dumpMessageMetrics() {
+        int topN = FrameworkContext.INSTANCE.getServiceMessageMetricsDumpTopN();
+        if (topN <= 0) {
+            return;
+        }
 
-    private void tickFutures() {
-        // 涉及遍历删除，倒序
-        for (int index = this.futureList.size() - 1; index >= 0; index--) {
-            Future<?> future = this.futureList.get(index);
-            if (future.isDone()) {
-                this.handlingTaskList.remove(index);
-                this.futureList.remove(index);
-                this.taskExecutor.handleFuture(future);
+        // 先取快照再排序，统计数据在其他线程中持续变化
+        List<ServiceMetricsSnapshot> serviceList = new ArrayList<>();
+        List<MarkMetricsSnapshot> markList = new ArrayList<>();
+        for (EngineTask engineTask : this.allTaskList) {
+            AbstractService service = engineTask.getServerService();
+            int markCount = markList.size();
+            for (MessageMarkMetrics metrics : service.getMessageMetrics().listMarkMetrics()) {
+                if (metrics.getHandleHistogram().count() > 0L) {
+                    markList.add(new MarkMetricsSnapshot(service.getServiceId(), metrics));
+                }
+            }
+            int mailboxDepth = service.getMailboxDepth();
+            if (markList.size() > markCount || mailboxDepth > 0) {
+                serviceList.add(new ServiceMetricsSnapshot(service, mailboxDepth));
             }
         }
+        if (serviceList.isEmpty()) {
+            return;
+        }
+
+        serviceList.sort((o1, o2) -> Integer.compare(o2.mailboxDepth, o1.mailboxDepth));
+        markList.sort((o1, o2) -> Long.compare(o2.handleP99Nanos, o1.handleP99Nanos));
+        Log.FRAME.info("[Engine] message metrics, service total:{} active:{} message total:{}, top {} by mailbox depth and handle p99",
+                this.allTaskList.size(), serviceList.size(), markList.size(), topN);
+        for (int i = 0, size = Math.min(topN, serviceList.size()); i < size; i++) {
+            ServiceMetricsSnapshot snapshot = serviceList.get(i);
+            AbstractService service = snapshot.service;
+            Log.FRAME.info("[Engine] Service:{} message metrics, mailbox depth:{} deferred total:{} rejected:{} dropped:{}",
+                    service.getServiceId(), snapshot.mailboxDepth, service.getTotalDeferredCount(),
+                    service.getMailbox().getRejectedCount(), service.getMailbox().getDroppedCount());
+        }
+        for (int i = 0, size = Math.min(topN, markList.size()); i < size; i++) {
+            MarkMetricsSnapshot snapshot = markList.get(i);
+            MessageMarkMetrics metrics = snapshot.metrics;
+            Log.FRAME.info("[Engine] Service:{} message:{} count:{} wait avg:{}ns p99:{}ns max:{}ns, handle avg:{}ns p99:{}ns max:{}ns",
+                    snapshot.serviceId, metrics.getMessageMark(), metrics.getHandleHistogram().count(),
+                    metrics.getWaitHistogram().averageNanos(), metrics.getWaitHistogram().percentileNanos(0.99D),
+                    metrics.getWaitHistogram().maxNanos(), metrics.getHandleHistogram().averageNanos(),
+                    snapshot.handleP99Nanos, metrics.getHandleHistogram().maxNanos());
+        }
+    }
+
+    /**
+     * 按照{@link FrameworkContext#getNetOutboundMetricsDumpIntervalMillis()}定期输出会话发送合并统计
+     */
+    private void tickOutboundDump() {
+        int dumpIntervalMillis = FrameworkContext.INSTANCE.getNetOutboundMetricsDumpIntervalMillis();
+        if (dumpIntervalMillis <= 0) {
+            return;
+        }
+
+        long curTimestamp = FrameworkContext.INSTANCE.getClock().currentTimeMillis();
+        if (this.lastOutboundDumpTimestamp <= 0L) {
+            this.lastOutboundDumpTimestamp = curTimestamp;
+            this.lastOutboundSnapshot.collect(this.allTaskList, this.frameCount);
+            return;
+        }
+        if (curTimestamp - this.lastOutboundDumpTimestamp < dumpIntervalMillis) {
+            return;
+        }
+        long windowMillis = curTimestamp - this.lastOutboundDumpTimestamp;
+        this.lastOutboundDumpTimestamp = curTimestamp;
+        this.dumpOutboundMetrics(windowMillis);
+    }
+
+    /**
+     * 输出上一次输出之后的会话发送合并统计（引擎线程调用，统计为近似值）
+     *
+     * <p> 输出的是统计窗口内的差值：每帧、每次Service驱动的平均刷新次数（即{@code write}系统调用次数），
+     * 每次刷新合并的消息包数量和字节数。窗口内没有任何刷新时不输出。
+     *
+     * @param windowMillis 统计窗口：ms，只用于输出
+     */
+    public void dumpOutboundMetrics(long windowMillis) {
+        OutboundMetricsSnapshot current = new OutboundMetricsSnapshot();
+        current.collect(this.allTaskList, this.frameCount);
+        OutboundMetricsSnapshot last = this.lastOutboundSnapshot;
+        // Service移除之后累计值会变小，差值按0处理
+        long frames = Math.max(0L, current.frameCount - last.frameCount);
+        long serviceTicks = Math.max(0L, current.serviceTickCount - last.serviceTickCount);
+        long tickFlushes = Math.max(0L, current.serviceFlushCount - last.serviceFlushCount);
+        long tickFlushBytes = Math.max(0L, current.serviceFlushBytes - last.serviceFlushBytes);
+        long flushes = Math.max(0L, current.flushCount - last.flushCount);
+        long packets = Math.max(0L, current.packetCount - last.packetCount);
+        long bytes = Math.max(0L, current.flushBytes - last.flushBytes);
+        long overloadCloses = Math.max(0L, current.overloadCloseCount - last.overloadCloseCount);
+        last.copy(current);
+        if (flushes <= 0L && overloadCloses <= 0L) {
+            return;
+        }
+
+        Log.FRAME.info("[Net] outbound metrics in {}ms, frames:{} flushes per frame:{}, service ticks:{} tick flushes:{} bytes:{} flushes per tick:{}, "
+                        + "flushes:{} packets:{} bytes:{} packets per flush:{} bytes per flush:{}, overload closes:{}",
+                windowMillis, frames, perUnit(flushes, frames), serviceTicks, tickFlushes, tickFlushBytes,
+                perUnit(tickFlushes, serviceTicks), flushes, packets, bytes, perUnit(packets, flushes),
+                flushes == 0L ? 0L : bytes / flushes, overloadCloses);
+    }
+
+    private static String perUnit(long count, long unit) {
+        return unit == 0L ? "0" : String.format("%.2f", (double) count / unit);
+    }
+
+    /**
+     * 挂起等待，直到有任务完成，并处理所有已完成的任务
+     */
+    private void awaitCompleted() {
+        this.completionQueue.await();
+        this.tickCompleted();
+    }
+
+
+    private void tickCompleted() {
+        EngineTask engineTask = this.completionQueue.drain();
+        while (Objects.nonNull(engineTask)) {
+            EngineTask nextTask = engineTask.getNextCompleted();
+            engineTask.setNextCompleted(null);
+            engineTask.finishHandling();
+            this.handlingCount--;
+            this.taskExecutor.onCompleted(engineTask);
+            engineTask = nextTask;
+        }
+    }
+
+
+    /**
+     * 输出统计时Service的快照
+     */
+    private static class ServiceMetricsSnapshot {
+
+        private final AbstractService service;
+
+        private final int mailboxDepth;
+
+        private ServiceMetricsSnapshot(AbstractService service, int mailboxDepth) {
+            this.service = service;
+            this.mailboxDepth = mailboxDepth;
+        }
     }
 
+    /**
+     * 输出统计时消息耗时的快照，排序依据的p99只计算一次
+     */
+    private static class MarkMetricsSnapshot {
+
+        private final long serviceId;
+
+        private final MessageMarkMetrics metrics;
+
+        private final long handleP99Nanos;
+
+        private MarkMetricsSnapshot(long serviceId, MessageMarkMetrics metrics) {
+            this.serviceId = serviceId;
+            this.metrics = metrics;
+            this.handleP99Nanos = metrics.getHandleHistogram().percentileNanos(0.99D);
+        }
+    }
 
     static class SingletonHolder {
 
@@ -134,4 +490,47 @@ public class TaskProcessor {
     public static TaskProcessor getInstance() {
         return SingletonHolder.instance;
     }
+
+    /**
+     * 会话发送合并统计的累计值快照
+     */
+    private static class OutboundMetricsSnapshot {
+        private long frameCount;
+        private long serviceTickCount;
+        private long serviceFlushCount;
+        private long serviceFlushBytes;
+        private long flushCount;
+        private long packetCount;
+        private long flushBytes;
+        private long overloadCloseCount;
+
+        private void collect(List<EngineTask> taskList, long frameCount) {
+            this.frameCount = frameCount;
+            this.serviceTickCount = 0L;
+            this.serviceFlushCount = 0L;
+            this.serviceFlushBytes = 0L;
+            for (EngineTask engineTask : taskList) {
+                AbstractService service = engineTask.getServerService();
+                this.serviceTickCount += engineTask.getTickHistogram().count();
+                this.serviceFlushCount += service.getTotalFlushCount();
+                this.serviceFlushBytes += service.getTotalFlushBytes();
+            }
+            NetOutboundStatistics statistics = NetOutboundStatistics.INSTANCE;
+            this.flushCount = statistics.getFlushCount();
+            this.packetCount = statistics.getPacketCount();
+            this.flushBytes = statistics.getFlushBytes();
+            this.overloadCloseCount = statistics.getOverloadCloseCount();
+        }
+
+        private void copy(OutboundMetricsSnapshot other) {
+            this.frameCount = other.frameCount;
+            this.serviceTickCount = other.serviceTickCount;
+            this.serviceFlushCount = other.serviceFlushCount;
+            this.serviceFlushBytes = other.serviceFlushBytes;
+            this.flushCount = other.flushCount;
+            this.packetCount = other.packetCount;
+            this.flushBytes = other.flushBytes;
+            this.overloadCloseCount = other.overloadCloseCount;
+        }
+    }
 }
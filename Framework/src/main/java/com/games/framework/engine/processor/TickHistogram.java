@@ -0,0 +1,122 @@
+package com.games.framework.engine.processor;
+
+/**
+ * 耗时直方图，用于Service单次驱动耗时，以及消息的排队，处理耗时
+ *
+ * <p> 按照微秒的2的幂分桶：下标0为小于1微秒，下标{@code i}为[2^(i-1), 2^i)微秒，最后一个桶包含所有更大的值。
+ * 记录只有数组写入，没有任何分配。
+ *
+ * <p> 只允许Service的执行线程写入，同一个Service的驱动是串行的，所以同一时刻只有一个线程写入，前后两次写入之间的
+ * 可见性由{@link TaskCompletionQueue}保证。其他线程读取的是近似值。
+ *
+ * @author liuxuanjie
+ */
+public class TickHistogram {
+
+    /**
+     * 桶数量，最后一个桶的下限约为35分钟，足够覆盖所有正常情况
+     */
+    public static final int BUCKET_COUNT = 32;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+
+    /**
+     * 记录的总次数
+     */
+    private long count;
+
+    /**
+     * 记录过的最大耗时：纳秒
+     */
+    private long maxNanos;
+
+    /**
+     * 累计耗时：纳秒
+     */
+    private long totalNanos;
+
+    /**
+     * 记录一次耗时
+     *
+     * @param costNanos 耗时：纳秒
+     */
+    public void record(long costNanos) {
+        this.buckets[bucketIndex(costNanos)]++;
+        this.count++;
+        this.totalNanos += costNanos;
+        if (costNanos > this.maxNanos) {
+            this.maxNanos = costNanos;
+        }
+    }
+
+    /**
+     * @return 每个桶的计数副本，下标含义见类注释
+     */
+    public long[] snapshotBuckets() {
+        return this.buckets.clone();
+    }
+
+    public long count() {
+        return this.count;
+    }
+
+    public long maxNanos() {
+        return this.maxNanos;
+    }
+
+    public long averageNanos() {
+        long curCount = this.count;
+        return curCount <= 0L ? 0L : this.totalNanos / curCount;
+    }
+
+    /**
+     * 估算百分位耗时，返回所在桶的上限
+     *
+     * @param percentile (0, 1]，例如{@code 0.99}
+     * @return 耗时上限：纳秒，没有任何记录时返回{@code 0}
+     */
+    public long percentileNanos(double percentile) {
+        long[] snapshot = this.snapshotBuckets();
+        long total = 0L;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+
+        if (total <= 0L) {
+            return 0L;
+        }
+
+        long threshold = (long) Math.ceil(total * percentile);
+        long accumulated = 0L;
+        for (int i = 0; i < snapshot.length; i++) {
+            accumulated += snapshot[i];
+            if (accumulated >= threshold) {
+                return bucketUpperNanos(i);
+            }
+        }
+        return this.maxNanos;
+    }
+
+    /**
+     * @return 桶的上限（不包含）：纳秒
+     */
+    public static long bucketUpperNanos(int bucketIndex) {
+        return (1L << bucketIndex) * 1000L;
+    }
+
+    private static int bucketIndex(long costNanos) {
+        long micros = costNanos / 1000L;
+        int index = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "TickHistogram{" +
+                "count=" + count +
+                ", averageNanos=" + averageNanos() +
+                ", p99Nanos=" + percentileNanos(0.99D) +
+                ", maxNanos=" + maxNanos +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.games.framework.engine.processor;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 一次Service驱动超出预算的现场记录，创建之后不可修改
+ *
+ * @author liuxuanjie
+ */
+@Getter
+public class TickOverrunRecord {
+
+    private final long serviceId;
+
+    /**
+     * 本次驱动开始的时间戳：毫秒
+     */
+    private final long startTimestamp;
+
+    /**
+     * 本次驱动的耗时：纳秒
+     */
+    private final long costNanos;
+
+    /**
+     * 本次驱动的预算：纳秒
+     */
+    private final long budgetNanos;
+
+    /**
+     * 执行本次驱动的线程名称
+     */
+    private final String threadName;
+
+    /**
+     * 超出预算时采样的线程栈，驱动在采样之前就已经结束时为{@code null}
+     */
+    private final StackTraceElement[] stackTrace;
+
+    /**
+     * 本次驱动处理的消息标识（按照处理顺序，超出容量的部分不记录）
+     */
+    private final int[] messageMarks;
+
+    /**
+     * 本次驱动处理的消息总数量
+     */
+    private final int messageCount;
+
+    TickOverrunRecord(long serviceId, long startTimestamp, long costNanos, long budgetNanos, String threadName,
+                      StackTraceElement[] stackTrace, int[] messageMarks, int messageCount) {
+        this.serviceId = serviceId;
+        this.startTimestamp = startTimestamp;
+        this.costNanos = costNanos;
+        this.budgetNanos = budgetNanos;
+        this.threadName = threadName;
+        this.stackTrace = stackTrace;
+        this.messageMarks = messageMarks;
+        this.messageCount = messageCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TickOverrunRecord{")
+                .append("serviceId=").append(serviceId)
+                .append(", startTimestamp=").append(startTimestamp)
+                .append(", costNanos=").append(costNanos)
+                .append(", budgetNanos=").append(budgetNanos)
+                .append(", threadName='").append(threadName).append('\'')
+                .append(", messageCount=").append(messageCount)
+                .append(", messageMarks=").append(Arrays.toString(messageMarks))
+                .append('}');
+        if (Objects.nonNull(stackTrace)) {
+            for (StackTraceElement element : stackTrace) {
+                builder.append(System.lineSeparator()).append("\tat ").append(element);
+            }
+        }
+        return builder.toString();
+    }
+}
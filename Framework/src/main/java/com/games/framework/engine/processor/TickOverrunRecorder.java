@@ -0,0 +1,68 @@
+package com.games.framework.engine.processor;
+
+import com.games.framework.engine.context.FrameworkContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Service驱动超出预算记录的环形缓冲区，全局单例
+ *
+ * <p> 容量为{@link FrameworkContext#getServiceTickOverrunRecordCapacity()}，第一次使用时确定，写满之后覆盖最旧的记录。
+ * 超出预算本身是低频事件，所以直接使用对象锁，任意线程都可以写入和读取。
+ *
+ * @author liuxuanjie
+ */
+public enum TickOverrunRecorder {
+
+    INSTANCE;
+
+    private final TickOverrunRecord[] records;
+
+    /**
+     * 下一条记录写入的位置
+     */
+    private int writeIndex;
+
+    /**
+     * 累计的超出预算次数（包括已经被覆盖的）
+     */
+    private long totalCount;
+
+    TickOverrunRecorder() {
+        this.records = new TickOverrunRecord[Math.max(FrameworkContext.INSTANCE.getServiceTickOverrunRecordCapacity(), 1)];
+    }
+
+    synchronized void record(TickOverrunRecord record) {
+        this.records[this.writeIndex] = record;
+        this.writeIndex = (this.writeIndex + 1) % this.records.length;
+        this.totalCount++;
+    }
+
+    /**
+     * @return 当前缓冲区内的所有记录，按照时间从新到旧排序
+     */
+    public synchronized List<TickOverrunRecord> snapshot() {
+        List<TickOverrunRecord> result = new ArrayList<>(this.records.length);
+        for (int i = 1; i <= this.records.length; i++) {
+            TickOverrunRecord record = this.records[(this.writeIndex - i + this.records.length) % this.records.length];
+            if (Objects.isNull(record)) {
+                break;
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    public synchronized long totalCount() {
+        return this.totalCount;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < this.records.length; i++) {
+            this.records[i] = null;
+        }
+        this.writeIndex = 0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.games.framework.engine.processor;
+
+import com.games.framework.log.Log;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Service驱动超时的看门狗
+ *
+ * <p> 驱动结束之后再获取线程栈已经没有意义，所以由独立的守护线程定期检查所有正在执行的任务，
+ * 执行时间超出预算的任务，立即采样其执行线程的线程栈，驱动结束时由{@link EngineTask}合并到超时记录中。
+ *
+ * <p> 只检查正在执行的任务：设置了预算的任务开始驱动时占用一个槽位，驱动结束时归还，看门狗只扫描固定容量的槽位数组，
+ * 检查开销与任务总数无关。同时执行的任务超出槽位容量时，超出的部分本次驱动不检查（仍然会记录超时，只是没有线程栈）。
+ *
+ * @author liuxuanjie
+ */
+public class TickWatchdog implements Runnable {
+
+    /**
+     * 看门狗线程名称
+     */
+    private static final String WATCHDOG_THREAD_NAME = "ServiceTickWatchdog";
+
+    /**
+     * 槽位容量，必须是2的幂，远大于执行者的线程数量即可
+     */
+    private static final int SLOT_CAPACITY = 1024;
+
+    private static final int SLOT_MASK = SLOT_CAPACITY - 1;
+
+    /**
+     * 检查间隔：纳秒
+     */
+    private final long checkIntervalNanos;
+
+    private final Thread thread;
+
+    /**
+     * 正在执行的任务，执行线程占用与归还，看门狗线程读取
+     */
+    private final AtomicReferenceArray<EngineTask> runningSlots = new AtomicReferenceArray<>(SLOT_CAPACITY);
+
+    private TickWatchdog(long checkIntervalMillis) {
+        this.checkIntervalNanos = Math.max(checkIntervalMillis, 1L) * 1_000_000L;
+        this.thread = new Thread(this, WATCHDOG_THREAD_NAME);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 创建并启动看门狗线程
+     *
+     * @param checkIntervalMillis 检查间隔：毫秒
+     */
+    public static TickWatchdog start(long checkIntervalMillis) {
+        TickWatchdog watchdog = new TickWatchdog(checkIntervalMillis);
+        watchdog.thread.start();
+        return watchdog;
+    }
+
+    /**
+     * 任务开始驱动时占用一个槽位（执行线程调用）
+     *
+     * @return 槽位下标，槽位已满时返回{@code -1}
+     */
+    int register(EngineTask task) {
+        int start = (int) task.getServerService().getServiceId() & SLOT_MASK;
+        for (int i = 0; i < SLOT_CAPACITY; i++) {
+            int index = (start + i) & SLOT_MASK;
+            if (Objects.isNull(this.runningSlots.get(index)) && this.runningSlots.compareAndSet(index, null, task)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 任务驱动结束时归还槽位（执行线程调用）
+     */
+    void unregister(int slot) {
+        if (slot >= 0) {
+            this.runningSlots.set(slot, null);
+        }
+    }
+
+    public void stop() {
+        this.thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, this.checkIntervalNanos);
+            try {
+                long curNanos = System.nanoTime();
+                for (int i = 0; i < SLOT_CAPACITY; i++) {
+                    EngineTask task = this.runningSlots.get(i);
+                    if (Objects.nonNull(task)) {
+                        task.sampleIfOverrun(curNanos);
+                    }
+                }
+            } catch (Exception e) {
+                Log.FRAME.error("[Engine] Service tick watchdog check exception!", e);
+            }
+        }
+    }
+}
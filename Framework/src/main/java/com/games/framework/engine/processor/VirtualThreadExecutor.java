@@ -0,0 +1,140 @@
+package com.games.framework.engine.processor;
+
+import com.games.framework.log.Log;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程任务执行者，每一次Service驱动都在一个新的虚拟线程上执行
+ *
+ * <p> Service内部的阻塞调用（读文件，持久化，跨节点调用等）只会挂起虚拟线程，载体线程可以继续
+ * 执行其他Service，不会像固定线程池那样直接占住一个平台线程。
+ *
+ * <p> 载体线程池通过JDK系统参数配置（{@code jdk.virtualThreadScheduler.*}），必须在第一个虚拟
+ * 线程创建之前设置，所以只有外部没有显式配置的时候，才会使用当前执行者的参数。
+ *
+ * <p> 框架编译目标是Java 11，虚拟线程通过反射获取；运行环境低于Java 21时，退化为固定数量的平台线
+ * 程池（载体线程数量），行为与{@link FixedThreadExecutor}一致但不限制提交。
+ *
+ * <p> 同一个Service的驱动依然是串行的：处理器保证任务完成之前不会再次提交，{@link EngineTask}
+ * 内部也有执行保护，并且前后两次驱动之间通过完成队列建立了内存可见性，与是否换了线程无关。
+ *
+ * @author liuxuanjie
+ */
+public class VirtualThreadExecutor implements ITaskExecutor<EngineTask> {
+
+    /**
+     * 载体线程池并行度的系统参数
+     */
+    private static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+    /**
+     * 载体线程池最大线程数的系统参数（阻塞时补偿创建的载体线程上限）
+     */
+    private static final String MAX_POOL_SIZE_PROPERTY = "jdk.virtualThreadScheduler.maxPoolSize";
+
+    /**
+     * 创建虚拟线程执行器的方法名（Java 21+）
+     */
+    private static final String VIRTUAL_EXECUTOR_METHOD_NAME = "newVirtualThreadPerTaskExecutor";
+
+    /**
+     * 平台线程退化模式下的线程名称前缀
+     */
+    private static final String FALLBACK_THREAD_NAME_PREFIX = "ServiceCarrier-";
+
+    /**
+     * 实际执行的线程池
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * 是否真正运行在虚拟线程上，{@code false}代表退化为平台线程
+     */
+    @Getter
+    private final boolean virtual;
+
+    private VirtualThreadExecutor(int parallelism, int maxPoolSize) {
+        parallelism = parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        maxPoolSize = Math.max(maxPoolSize, parallelism);
+        configCarrierPool(parallelism, maxPoolSize);
+
+        ExecutorService virtualExecutor = newVirtualExecutor();
+        this.virtual = Objects.nonNull(virtualExecutor);
+        if (this.virtual) {
+            this.executorService = virtualExecutor;
+            Log.FRAME.info("[Engine] Virtual thread executor, carrier parallelism:{}, max pool size:{}",
+                    System.getProperty(PARALLELISM_PROPERTY), System.getProperty(MAX_POOL_SIZE_PROPERTY));
+        } else {
+            this.executorService = newFallbackExecutor(parallelism);
+            Log.FRAME.warn("[Engine] Virtual thread is not supported in java:{}, fallback to {} platform threads!",
+                    Runtime.version(), parallelism);
+        }
+    }
+
+    /**
+     * @param parallelism 载体线程数量，小于等于{@code 0}时使用CPU核数
+     */
+    public static VirtualThreadExecutor newInstance(int parallelism) {
+        return new VirtualThreadExecutor(parallelism, parallelism << 1);
+    }
+
+    /**
+     * @param parallelism 载体线程数量，小于等于{@code 0}时使用CPU核数
+     * @param maxPoolSize 载体线程最大数量，虚拟线程被固定（pinned）在载体上阻塞时，JDK会临时补偿
+     *                    创建载体线程，该值是补偿的上限，小于{@code parallelism}时按照{@code parallelism}处理
+     */
+    public static VirtualThreadExecutor newInstance(int parallelism, int maxPoolSize) {
+        return new VirtualThreadExecutor(parallelism, maxPoolSize);
+    }
+
+    @Override
+    public boolean canSubmit() {
+        return true;
+    }
+
+    @Override
+    public void submit(EngineTask task) {
+        this.executorService.execute(task);
+    }
+
+    @Override
+    public void onCompleted(EngineTask task) {
+    }
+
+    private static void configCarrierPool(int parallelism, int maxPoolSize) {
+        if (Objects.isNull(System.getProperty(PARALLELISM_PROPERTY))) {
+            System.setProperty(PARALLELISM_PROPERTY, String.valueOf(parallelism));
+        }
+
+        if (Objects.isNull(System.getProperty(MAX_POOL_SIZE_PROPERTY))) {
+            System.setProperty(MAX_POOL_SIZE_PROPERTY, String.valueOf(maxPoolSize));
+        }
+    }
+
+    /**
+     * @return 运行环境不支持虚拟线程时返回{@code null}
+     */
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod(VIRTUAL_EXECUTOR_METHOD_NAME);
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newFallbackExecutor(int threadCount) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, FALLBACK_THREAD_NAME_PREFIX + threadIndex.getAndIncrement()));
+    }
+}
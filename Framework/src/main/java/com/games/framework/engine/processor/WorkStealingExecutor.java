@@ -0,0 +1,318 @@
+package com.games.framework.engine.processor;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 工作窃取的任务执行者
+ *
+ * <p> 每个工作线程有自己的任务队列，任务优先提交到其亲和线程（上一次执行它的线程，首次按照
+ * {@code serviceId}取模），保证缓存局部性。工作线程自己的队列为空时，会从其他线程队列的尾部窃
+ * 取任务，避免一个繁忙的Service拖住一个线程，而其他线程空闲。被窃取的任务亲和线程随之改变。
+ *
+ * <p> 同一个Service不会同时在两个线程上执行：处理器保证任务完成之前不会再次提交，而一个任务
+ * 同一时刻只存在于一个队列中，出队在队列锁内完成，只会被一个线程取走。
+ *
+ * @author liuxuanjie
+ */
+public class WorkStealingExecutor implements ITaskExecutor<EngineTask> {
+
+    /**
+     * 工作线程名称前缀
+     */
+    private static final String WORKER_NAME_PREFIX = "ServiceWorker-";
+
+    /**
+     * 空闲工作线程单次park的最长时间：纳秒
+     * <p> 空闲标记与重新检查已经保证不丢失唤醒，超时只是兜底，不能太短，否则空闲线程会频繁醒来扫描所有队列
+     */
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    /**
+     * 所有工作线程
+     */
+    private final Worker[] workers;
+
+    /**
+     * 当前处于空闲（park）状态的工作线程数量，没有空闲线程时提交任务不需要扫描唤醒
+     */
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * 上一次统计快照的时间：纳秒
+     */
+    private long lastSnapshotNanos;
+
+    private WorkStealingExecutor(int threadCount) {
+        threadCount = threadCount <= 0 ? 1 : threadCount;
+        this.workers = new Worker[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            this.workers[i] = new Worker(i);
+        }
+
+        this.lastSnapshotNanos = System.nanoTime();
+        for (Worker worker : this.workers) {
+            worker.thread.start();
+        }
+    }
+
+    public static WorkStealingExecutor newInstance(int threadCount) {
+        return new WorkStealingExecutor(threadCount);
+    }
+
+    @Override
+    public boolean canSubmit() {
+        return true;
+    }
+
+    @Override
+    public void submit(EngineTask task) {
+        int workerIndex = task.getAffinity();
+        if (workerIndex < 0 || workerIndex >= this.workers.length) {
+            workerIndex = (int) (task.getServerService().getServiceId() % this.workers.length);
+        }
+
+        Worker worker = this.workers[workerIndex];
+        worker.push(task);
+        this.signal(worker);
+    }
+
+    @Override
+    public void onCompleted(EngineTask task) {
+    }
+
+    /**
+     * @return 工作线程数量
+     */
+    public int workerCount() {
+        return this.workers.length;
+    }
+
+    /**
+     * 获取所有工作线程的统计快照，利用率为距离上一次快照期间的忙碌时间占比
+     *
+     * @return 下标即为工作线程下标，不会为{@code null}
+     */
+    public synchronized WorkerStatistics[] snapshotStatistics() {
+        long curNanos = System.nanoTime();
+        long elapsedNanos = Math.max(curNanos - this.lastSnapshotNanos, 1L);
+        this.lastSnapshotNanos = curNanos;
+
+        WorkerStatistics[] result = new WorkerStatistics[this.workers.length];
+        for (int i = 0; i < this.workers.length; i++) {
+            Worker worker = this.workers[i];
+            long busyNanos = worker.busyNanos;
+            double utilization = (double) (busyNanos - worker.lastSnapshotBusyNanos) / elapsedNanos;
+            worker.lastSnapshotBusyNanos = busyNanos;
+            result[i] = new WorkerStatistics(i, worker.executedCount, worker.stealCount,
+                    busyNanos, Math.min(utilization, 1.0D), worker.size());
+        }
+        return result;
+    }
+
+    /**
+     * 任务提交之后，唤醒合适的工作线程
+     * <p> 亲和线程空闲则唤醒亲和线程，否则唤醒任意一个空闲线程过来窃取
+     */
+    private void signal(Worker target) {
+        if (target.parked) {
+            LockSupport.unpark(target.thread);
+            return;
+        }
+
+        if (this.idleCount.get() <= 0) {
+            return;
+        }
+
+        for (int i = 1, length = this.workers.length; i < length; i++) {
+            Worker worker = this.workers[(target.index + i) % length];
+            if (worker.parked) {
+                LockSupport.unpark(worker.thread);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从其他工作线程的队列尾部窃取一个任务
+     */
+    private EngineTask steal(Worker thief) {
+        for (int i = 1, length = this.workers.length; i < length; i++) {
+            EngineTask task = this.workers[(thief.index + i) % length].pollLast();
+            if (Objects.nonNull(task)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * 工作线程的统计快照
+     */
+    @Getter
+    public static class WorkerStatistics {
+
+        private final int workerIndex;
+
+        /**
+         * 累计执行的任务数量（包括窃取的）
+         */
+        private final long executedCount;
+
+        /**
+         * 累计窃取的任务数量
+         */
+        private final long stealCount;
+
+        /**
+         * 累计执行任务的耗时：纳秒
+         */
+        private final long busyNanos;
+
+        /**
+         * 距离上一次快照期间的利用率，[0, 1]
+         */
+        private final double utilization;
+
+        /**
+         * 快照时队列中等待执行的任务数量
+         */
+        private final int queueSize;
+
+        private WorkerStatistics(int workerIndex, long executedCount, long stealCount,
+                                 long busyNanos, double utilization, int queueSize) {
+            this.workerIndex = workerIndex;
+            this.executedCount = executedCount;
+            this.stealCount = stealCount;
+            this.busyNanos = busyNanos;
+            this.utilization = utilization;
+            this.queueSize = queueSize;
+        }
+
+        @Override
+        public String toString() {
+            return "WorkerStatistics{" +
+                    "workerIndex=" + workerIndex +
+                    ", executedCount=" + executedCount +
+                    ", stealCount=" + stealCount +
+                    ", busyNanos=" + busyNanos +
+                    ", utilization=" + String.format("%.2f", utilization) +
+                    ", queueSize=" + queueSize +
+                    '}';
+        }
+    }
+
+
+    /**
+     * 工作线程，统计字段只由自身线程写入
+     */
+    private class Worker implements Runnable {
+
+        private final int index;
+
+        private final Thread thread;
+
+        /**
+         * 任务队列，头部由自身线程取出，尾部被其他线程窃取，所有操作在队列锁内完成
+         */
+        private final ArrayDeque<EngineTask> deque = new ArrayDeque<>();
+
+        /**
+         * 是否处于空闲（park）状态
+         */
+        private volatile boolean parked;
+
+        private volatile long executedCount;
+
+        private volatile long stealCount;
+
+        private volatile long busyNanos;
+
+        /**
+         * 上一次快照时的忙碌时间，仅{@link #snapshotStatistics()}使用
+         */
+        private long lastSnapshotBusyNanos;
+
+        private Worker(int index) {
+            this.index = index;
+            this.thread = new Thread(this, WORKER_NAME_PREFIX + index);
+        }
+
+        private void push(EngineTask task) {
+            synchronized (this.deque) {
+                this.deque.offerLast(task);
+            }
+        }
+
+        private EngineTask pollFirst() {
+            synchronized (this.deque) {
+                return this.deque.pollFirst();
+            }
+        }
+
+        private EngineTask pollLast() {
+            synchronized (this.deque) {
+                return this.deque.pollLast();
+            }
+        }
+
+        private int size() {
+            synchronized (this.deque) {
+                return this.deque.size();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                EngineTask task = this.pollFirst();
+                boolean stolen = false;
+                if (Objects.isNull(task)) {
+                    task = steal(this);
+                    stolen = Objects.nonNull(task);
+                }
+
+                if (Objects.nonNull(task)) {
+                    this.execute(task, stolen);
+                    continue;
+                }
+
+                // 先标记空闲，再检查一次自身队列与所有可窃取的队列，与提交者的“先入队，再检查空闲标记”配合，保证不丢失唤醒：
+                // 提交者看不到空闲标记时，这里一定能看到刚入队的任务
+                this.parked = true;
+                idleCount.incrementAndGet();
+                task = this.pollFirst();
+                stolen = false;
+                if (Objects.isNull(task)) {
+                    task = steal(this);
+                    stolen = Objects.nonNull(task);
+                }
+                if (Objects.isNull(task)) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idleCount.decrementAndGet();
+                this.parked = false;
+
+                if (Objects.nonNull(task)) {
+                    this.execute(task, stolen);
+                }
+            }
+        }
+
+        private void execute(EngineTask task, boolean stolen) {
+            task.setAffinity(this.index);
+            long startNanos = System.nanoTime();
+            task.run();
+            this.busyNanos += System.nanoTime() - startNanos;
+            this.executedCount++;
+            if (stolen) {
+                this.stealCount++;
+            }
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package com.games.framework.engine.service;
 
-import com.games.framework.component.messagekit.MessageDispatcher;
+import com.games.framework.component.eventkit.EventDispatcher;
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.constants.ServiceAskResultEnum;
 import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.log.Log;
+import com.games.framework.net.session.NetSession;
+import com.google.protobuf.GeneratedMessageV3;
+import com.romje.component.collection.LongObjectHashMap;
+import com.romje.component.pool.object.DefaultObjectPool;
+import com.romje.component.pool.object.ObjectPoolConfig;
+import com.romje.component.timer.ITimerTask;
+import com.romje.component.timer.TimingWheel;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * 关于service最底层的抽象
@@ -15,16 +27,155 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  */
 public abstract class AbstractService {
 
+    /**
+     * 单次驱动最多记录的消息标识数量
+     */
+    private static final int TICK_MESSAGE_MARK_CAPACITY = 64;
+
+    /**
+     * 当前线程正在驱动的Service，驱动期间才有值，见{@link #currentTickService()}
+     */
+    private static final ThreadLocal<AbstractService> TICKING_SERVICE = new ThreadLocal<>();
+
     @Getter
     protected final long serviceId;
 
+    /**
+     * 本次驱动处理过的消息标识，用于驱动超时时定位(单线程模型，仅执行线程操作)
+     */
+    private final int[] tickMessageMarks = new int[TICK_MESSAGE_MARK_CAPACITY];
+
+    /**
+     * 本次驱动处理过的消息数量
+     */
+    @Getter
+    private int tickMessageCount;
+
+    /**
+     * 本次驱动因为时间预算或者数量上限，留到后续驱动处理的消息数量（近似值）
+     */
+    @Getter
+    private int tickDeferredCount;
+
+    /**
+     * 累计留到后续驱动处理的消息数量（每次驱动剩余的消息都会计入，同一条消息可能计入多次）
+     */
+    @Getter
+    private long totalDeferredCount;
+
+    /**
+     * 单次驱动处理消息的时间预算：纳秒，小于等于{@code 0}代表不限制时间
+     */
+    @Getter
+    private long messageBudgetNanos;
+
+    /**
+     * 之前的驱动超出时间预算的部分：纳秒，从后续驱动的预算中扣除，最多扣除一次完整预算
+     */
+    private long messageBudgetDebtNanos;
+
+    /**
+     * 按照消息标识统计的排队，处理耗时
+     */
+    @Getter
+    private final ServiceMessageMetrics messageMetrics;
+
     /**
      * service上的异步消息队列(多生单消模型)
      */
-    private ConcurrentLinkedQueue<AbstractServiceMessage> messageQueue;
+    @Getter
+    private final ServiceMailbox mailbox;
+
+    /**
+     * service上的定时任务时间轮，第一次使用时创建(单线程模型，仅执行线程操作)
+     */
+    private TimingWheel timingWheel;
+
+    /**
+     * 延迟派发的事件缓冲，第一次延迟派发事件时创建(单线程模型，仅执行线程操作)
+     */
+    private ServiceEventBuffer eventBuffer;
+
+    /**
+     * 本次驱动派发的延迟事件数量
+     */
+    @Getter
+    private int tickEventCount;
+
+    /**
+     * 本次驱动中写入过的会话，驱动结束时按照写入顺序统一刷新，已经登记的会话不重复登记，第一次发送消息包时创建(单线程模型，仅执行线程操作)
+     */
+    private LinkedHashSet<NetSession> flushSessions;
+
+    /**
+     * 本次驱动的会话刷新次数，一次刷新对应一次{@code write}系统调用
+     */
+    @Getter
+    private int tickFlushCount;
+
+    /**
+     * 本次驱动刷新的总字节数
+     */
+    @Getter
+    private int tickFlushBytes;
+
+    /**
+     * 累计的会话刷新次数，与{@link #tickFlushCount}配合计算每次驱动的平均刷新次数
+     */
+    @Getter
+    private long totalFlushCount;
+
+    /**
+     * 累计刷新的总字节数
+     */
+    @Getter
+    private long totalFlushBytes;
 
+    /**
+     * 消息合并表，默认不开启，见{@link #enableCoalescing(int)}
+     */
+    private volatile ServiceCoalescingTable coalescingTable;
+
+    /**
+     * 等待应答的请求，key：请求标识(单线程模型，仅执行线程操作)
+     */
+    private final LongObjectHashMap<ServicePromise<?>> pendingPromises = new LongObjectHashMap<>();
+
+    /**
+     * 请求结果的对象池，第一次发起请求时创建(单线程模型，仅执行线程操作)
+     */
+    private DefaultObjectPool<ServicePromise<?>> promisePool;
+
+    /**
+     * 最近一次发起请求使用的请求标识
+     */
+    private long lastCorrelationId;
+
+    /**
+     * 消息队列的容量与满时的处理策略使用{@link FrameworkContext}中的默认值
+     */
     public AbstractService(int serviceId) {
+        this(serviceId, FrameworkContext.INSTANCE.getServiceMailboxCapacity(),
+                FrameworkContext.INSTANCE.getServiceMailboxOverflowPolicy());
+    }
+
+    /**
+     * @param mailboxCapacity 消息队列的容量，向上取整到2的幂
+     * @param overflowPolicy  消息队列已满时的处理策略
+     */
+    public AbstractService(int serviceId, int mailboxCapacity, @NonNull MailboxOverflowPolicyEnum overflowPolicy) {
+        this(serviceId, new ServiceMailbox(mailboxCapacity, overflowPolicy,
+                FrameworkContext.INSTANCE.getServiceMailboxBlockTimeoutMillis()));
+    }
+
+    /**
+     * @param mailbox 自定义的消息队列，例如统计或者限流的扩展
+     */
+    public AbstractService(int serviceId, @NonNull ServiceMailbox mailbox) {
         this.serviceId = serviceId;
+        this.mailbox = mailbox;
+        this.messageBudgetNanos = FrameworkContext.INSTANCE.getServiceHandleMessageBudgetMicros() * 1_000L;
+        this.messageMetrics = new ServiceMessageMetrics(FrameworkContext.INSTANCE.getServiceMessageMetricsMarkCapacity());
     }
 
     public abstract boolean init();
@@ -35,27 +186,328 @@ public abstract class AbstractService {
      * @param millisTimestamp 本次驱动帧的时间戳：毫秒
      */
     public void tick(long millisTimestamp) {
-        this.tickMessage();
-        this.tickLogic(millisTimestamp);
+        this.tickFlushCount = 0;
+        this.tickFlushBytes = 0;
+        TICKING_SERVICE.set(this);
+        try {
+            this.tickMessage();
+            this.tickTimer();
+            this.tickLogic(millisTimestamp);
+            this.tickEvent();
+            this.tickFlush();
+        } finally {
+            TICKING_SERVICE.remove();
+        }
+    }
+
+    /**
+     * @return 当前线程正在驱动的Service，不在Service驱动期间时为{@code null}
+     */
+    public static AbstractService currentTickService() {
+        return TICKING_SERVICE.get();
+    }
+
+    /**
+     * 按批次派发本次驱动之前缓冲的延迟事件，派发期间抛出的延迟事件在下一次驱动中派发
+     */
+    private void tickEvent() {
+        this.tickEventCount = Objects.nonNull(this.eventBuffer) ? this.eventBuffer.flush() : 0;
+    }
+
+    /**
+     * 延迟派发事件：事件先进入当前Service的事件缓冲，在本次驱动的最后按批次派发（只允许在当前Service的驱动线程中调用）
+     * <p> 缓冲已满时直接同步派发，见{@link FrameworkContext#getServiceEventBufferCapacity()}
+     *
+     * @param eventKey 事件唯一标识
+     * @param param    最终处理事件的执行方法所需要的参数，不允许为{@code null}
+     */
+    public void deferEvent(int eventKey, @NonNull Object param) {
+        this.deferEvent(eventKey, param, false);
+    }
+
+    /**
+     * 延迟派发事件并且去重：同一批次中已经有相同(事件标识，参数)的事件时丢弃当前事件，参数按照对象引用比较
+     * <p> 适用于只关心"发生过"的事件，例如同一帧内玩家多次升级，只需要刷新一次相关数据
+     *
+     * @see #deferEvent(int, Object)
+     */
+    public void deferDistinctEvent(int eventKey, @NonNull Object param) {
+        this.deferEvent(eventKey, param, true);
+    }
+
+    private void deferEvent(int eventKey, Object param, boolean distinct) {
+        if (Objects.isNull(this.eventBuffer)) {
+            this.eventBuffer = new ServiceEventBuffer(FrameworkContext.INSTANCE.getServiceEventBufferCapacity());
+        }
+        if (!this.eventBuffer.offer(eventKey, param, distinct)) {
+            EventDispatcher.INSTANCE.dispatch(eventKey, param);
+        }
+    }
+
+    /**
+     * @return 延迟派发的事件缓冲，没有延迟派发过事件时为{@code null}
+     */
+    public ServiceEventBuffer getEventBuffer() {
+        return this.eventBuffer;
+    }
+
+    /**
+     * 向会话发送消息包：消息包先编码进会话的待发送缓冲，在本次驱动的最后每个会话只刷新一次（只允许在当前Service的驱动线程中调用）
+     * <p> 会话待发送内容达到{@link FrameworkContext#getSessionFlushThresholdBytes()}时立即刷新
+     *
+     * @return 连接已经不可用，或者待发送内容超出{@link FrameworkContext#getSessionMaxPendingBytes()}关闭连接时返回{@code false}
+     */
+    public boolean sendPacket(@NonNull NetSession session, int packetId, @NonNull GeneratedMessageV3 message) {
+        int pendingBytes = session.write(packetId, message);
+        if (pendingBytes < 0) {
+            return false;
+        }
+        // 会话由空变为有待发送内容，由当前Service负责刷新
+        this.deferFlush(session, pendingBytes == 0);
+        return true;
+    }
+
+    /**
+     * 登记会话在本次驱动的最后刷新，已经登记的会话不重复登记（只允许在当前Service的驱动线程中调用）
+     * <p> 用于直接写入会话的待发送内容之后，例如广播写入的共享帧，见{@link com.games.framework.net.session.NetBroadcaster}；
+     * 会话待发送内容达到{@link FrameworkContext#getSessionFlushThresholdBytes()}时立即刷新
+     */
+    public void deferFlush(@NonNull NetSession session) {
+        this.deferFlush(session, true);
+    }
+
+    private void deferFlush(NetSession session, boolean register) {
+        if (register) {
+            if (Objects.isNull(this.flushSessions)) {
+                this.flushSessions = new LinkedHashSet<>();
+            }
+            this.flushSessions.add(session);
+        }
+        if (session.getPendingBytes() >= FrameworkContext.INSTANCE.getSessionFlushThresholdBytes()) {
+            this.recordFlush(session.flush());
+        }
+    }
+
+    /**
+     * 刷新本次驱动写入过的所有会话，已经提前刷新的会话没有待发送内容，直接跳过
+     */
+    private void tickFlush() {
+        if (Objects.isNull(this.flushSessions) || this.flushSessions.isEmpty()) {
+            return;
+        }
+
+        for (NetSession session : this.flushSessions) {
+            this.recordFlush(session.flush());
+        }
+        this.flushSessions.clear();
+    }
+
+    private void recordFlush(int bytes) {
+        if (bytes > 0) {
+            this.tickFlushCount++;
+            this.tickFlushBytes += bytes;
+            this.totalFlushCount++;
+            this.totalFlushBytes += bytes;
+        }
+    }
+
+    /**
+     * 驱动当前Service的定时任务，所有到期的定时任务在当前线程回调
+     */
+    private void tickTimer() {
+        if (Objects.nonNull(this.timingWheel)) {
+            this.timingWheel.advance();
+        }
+    }
+
+    /**
+     * 获取当前Service的时间轮，只允许在当前Service的驱动线程中使用（例如消息处理，逻辑驱动，定时任务回调中）
+     * <p> 定时任务在{@link #tick(long)}中回调，所以精度受Service帧率影响，空闲降频期间最多延迟到降频下限
+     *
+     * @return 不会为{@code null}
+     */
+    public TimingWheel getTimingWheel() {
+        if (Objects.isNull(this.timingWheel)) {
+            this.timingWheel = TimingWheel.of(FrameworkContext.INSTANCE.getClock(),
+                    FrameworkContext.INSTANCE.getServiceTimerTickMillis(),
+                    (timerId, e) -> Log.FRAME.error("[Service] Service:{} timer:{} exception!", this.serviceId, timerId, e));
+        }
+        return this.timingWheel;
+    }
+
+    /**
+     * 添加一次性定时任务，见{@link TimingWheel#schedule(long, ITimerTask)}
+     *
+     * @return 定时任务标识
+     */
+    public long schedule(long delayMillis, @NonNull ITimerTask task) {
+        return this.getTimingWheel().schedule(delayMillis, task);
+    }
+
+    /**
+     * 添加在指定时间触发的一次性定时任务，见{@link TimingWheel#scheduleAt(long, ITimerTask)}
+     *
+     * @return 定时任务标识
+     */
+    public long scheduleAt(long expireTimestamp, @NonNull ITimerTask task) {
+        return this.getTimingWheel().scheduleAt(expireTimestamp, task);
+    }
+
+    /**
+     * 添加周期定时任务，见{@link TimingWheel#schedulePeriodic(long, long, ITimerTask)}
+     *
+     * @return 定时任务标识
+     */
+    public long schedulePeriodic(long delayMillis, long periodMillis, @NonNull ITimerTask task) {
+        return this.getTimingWheel().schedulePeriodic(delayMillis, periodMillis, task);
+    }
+
+    /**
+     * @param timerId 定时任务标识
+     * @return 是否成功取消
+     */
+    public boolean cancelTimer(long timerId) {
+        return Objects.nonNull(this.timingWheel) && this.timingWheel.cancel(timerId);
     }
 
     /**
      * 驱动当前Service的消息处理
+     * <p> 按照时间预算处理消息，可选同时限制数量，每次驱动至少处理一条消息，保证消息不会一直积压。
+     * 超出预算的部分从下次驱动的预算中扣除，剩余的消息保持原有顺序，下次驱动最先处理。
      */
     private void tickMessage() {
-        int handleCount = FrameworkContext.INSTANCE.getServiceHandleMessageCountPreTick();
-        for (int i = 0; i < handleCount; i++) {
-            AbstractServiceMessage serviceMessage = messageQueue.poll();
+        this.tickMessageCount = 0;
+        this.tickDeferredCount = 0;
+        int countLimit = FrameworkContext.INSTANCE.getServiceHandleMessageCountPreTick();
+        if (countLimit <= 0) {
+            countLimit = Integer.MAX_VALUE;
+        }
+
+        boolean checkBudget = this.messageBudgetNanos > 0L;
+        long budgetNanos = this.messageBudgetNanos - this.messageBudgetDebtNanos;
+        long startNanos = checkBudget ? System.nanoTime() : 0L;
+        long costNanos = 0L;
+        while (this.tickMessageCount < countLimit) {
+            if (checkBudget && this.tickMessageCount > 0 && costNanos >= budgetNanos) {
+                break;
+            }
+            AbstractServiceMessage serviceMessage = this.mailbox.poll();
             if (Objects.isNull(serviceMessage)) {
                 break;
             }
+            this.handleMessage(serviceMessage);
+            if (checkBudget) {
+                costNanos = System.nanoTime() - startNanos;
+            }
+        }
+
+        int remainCount = this.mailbox.size();
+        if (remainCount <= 0) {
+            // 消息已经处理完，之前的超支不再延续，避免影响后续突发消息的处理
+            this.messageBudgetDebtNanos = 0L;
+            return;
+        }
+        if (checkBudget) {
+            this.messageBudgetDebtNanos = Math.min(Math.max(costNanos - budgetNanos, 0L), this.messageBudgetNanos);
+        }
+        this.tickDeferredCount = remainCount;
+        this.totalDeferredCount += remainCount;
+    }
+
+    /**
+     * 设置当前Service单次驱动处理消息的时间预算（执行线程中调用，或者Service启动之前调用）
+     *
+     * @param budgetMicros 单位：微秒，小于等于{@code 0}代表不限制时间，只按照数量上限处理
+     */
+    public void setMessageBudgetMicros(long budgetMicros) {
+        this.messageBudgetNanos = Math.max(budgetMicros, 0L) * 1_000L;
+        this.messageBudgetDebtNanos = 0L;
+    }
+
+    /**
+     * 处理一条消息，派发给指定的消息处理方法即可，当前线程驱动
+     */
+    private void handleMessage(AbstractServiceMessage queuedMessage) {
+        ServiceCoalescingTable curCoalescingTable = this.coalescingTable;
+        AbstractServiceMessage serviceMessage = Objects.isNull(curCoalescingTable) ? queuedMessage : curCoalescingTable.resolve(queuedMessage);
+        if (Objects.isNull(serviceMessage)) {
+            return;
+        }
+
+        int messageMark = serviceMessage.getMessageMark();
+        if (this.tickMessageCount < TICK_MESSAGE_MARK_CAPACITY) {
+            this.tickMessageMarks[this.tickMessageCount] = messageMark;
+        }
+        this.tickMessageCount++;
+
+        boolean metricsEnabled = FrameworkContext.INSTANCE.isServiceMessageMetricsEnabled();
+        long startNanos = metricsEnabled ? System.nanoTime() : 0L;
+        long waitNanos = startNanos - serviceMessage.getEnqueueNanos();
+        if (serviceMessage.isMulticast()) {
+            // 组播消息由多个Service共享，处理结束之后只释放自身的引用
+            serviceMessage.dispatch(this);
+            this.recordMessageMetrics(metricsEnabled, messageMark, startNanos, waitNanos);
+            serviceMessage.recycle();
+            return;
+        }
+
+        int deliverCount = serviceMessage.getDeliverCount();
+        if (serviceMessage.isReply()) {
+            this.completePromise(serviceMessage);
+        } else {
+            serviceMessage.dispatch(this);
+        }
+        this.recordMessageMetrics(metricsEnabled, messageMark, startNanos, waitNanos);
+        serviceMessage.recycleAfterDispatch(deliverCount);
+    }
 
-            // 派发给指定的消息处理方法即可，当前线程驱动
-            int messageMark = serviceMessage.getMessageMark();
-            MessageDispatcher.INSTANCE.dispatch(messageMark, this, serviceMessage);
+    private void recordMessageMetrics(boolean metricsEnabled, int messageMark, long startNanos, long waitNanos) {
+        if (metricsEnabled) {
+            this.messageMetrics.record(messageMark, waitNanos, System.nanoTime() - startNanos);
         }
     }
 
+    /**
+     * @return 本次驱动处理过的消息标识（按照处理顺序，最多{@value #TICK_MESSAGE_MARK_CAPACITY}个）
+     */
+    public int[] copyTickMessageMarks() {
+        return Arrays.copyOf(this.tickMessageMarks, Math.min(this.tickMessageCount, TICK_MESSAGE_MARK_CAPACITY));
+    }
+
+    /**
+     * 当前Service是否空闲，空闲的Service会被引擎逐步降低驱动频率，直到{@link FrameworkContext#getServiceIdleFrameRate()}
+     * <p> 有等待应答的请求或者等待到期的定时任务时不空闲，保证超时与定时的精度；有等待派发的延迟事件时不空闲
+     * <p> 每次驱动结束之后在执行线程中调用
+     */
+    public boolean isIdle() {
+        return this.mailbox.isEmpty() && this.pendingPromises.isEmpty()
+                && (Objects.isNull(this.timingWheel) || this.timingWheel.size() <= 0)
+                && (Objects.isNull(this.eventBuffer) || this.eventBuffer.isEmpty()) && this.isLogicIdle();
+    }
+
+    /**
+     * @return 当前消息队列中的消息数量（近似值，任意线程调用）
+     */
+    public int getMailboxDepth() {
+        return this.mailbox.size();
+    }
+
+    /**
+     * 当前Service是否还有未处理的消息（任意线程调用）
+     * <p> 降频期间一旦收到消息，引擎会立即恢复正常帧率驱动
+     */
+    public boolean hasMessage() {
+        return !this.mailbox.isEmpty();
+    }
+
+    /**
+     * 逻辑层是否空闲，默认不空闲（始终按照正常帧率驱动）
+     * <p> 例如：副本场景中没有任何活跃的Actor，公会没有任何进行中的活动等，子类按需重写
+     */
+    protected boolean isLogicIdle() {
+        return false;
+    }
+
     /**
      * 驱动当前Service的逻辑处理
      *
@@ -68,11 +520,49 @@ public abstract class AbstractService {
      *
      * @param targetService 不允许为{@code null}
      * @param message       不允许为{@code null}
+     * @return 目标Service的消息队列已满，并且按照策略拒绝时返回{@code false}
+     */
+    public boolean sendMessage(@NonNull AbstractService targetService, @NonNull AbstractServiceMessage message) {
+        return targetService.receivedMessage(this, message);
+    }
+
+    /**
+     * 向一组Service发送同一条消息，消息只有一个实例，所有接收方处理完之后才会归还
+     * <p> 接收方处理时{@link AbstractServiceMessage#getTarget()}为{@code null}，处理方法不允许修改或者转发组播消息
+     *
+     * @param targetServices 不允许为{@code null}，其中的元素不允许为{@code null}
+     * @param message        不允许为{@code null}，不允许正在组播
+     * @return 成功投递的Service数量
      */
-    public void sendMessage(@NonNull AbstractService targetService, @NonNull AbstractServiceMessage message) {
-        message.setSource(this);
-        message.setTarget(targetService);
-        targetService.receivedMessage(this, message);
+    public int multicast(@NonNull Collection<? extends AbstractService> targetServices, @NonNull AbstractServiceMessage message) {
+        message.beginMulticast(this);
+        int deliveredCount = 0;
+        for (AbstractService targetService : targetServices) {
+            if (targetService.receivedMulticast(message)) {
+                deliveredCount++;
+            }
+        }
+        // 释放发送方持有的引用，没有任何接收方时直接归还
+        message.recycle();
+        return deliveredCount;
+    }
+
+    /**
+     * 向Service组中的所有Service发送同一条消息，见{@link #multicast(Collection, AbstractServiceMessage)}
+     *
+     * @param includeSelf 当前Service也在组中时，是否发送给自身
+     * @return 成功投递的Service数量
+     */
+    public int broadcast(@NonNull ServiceGroup group, @NonNull AbstractServiceMessage message, boolean includeSelf) {
+        message.beginMulticast(this);
+        int deliveredCount = 0;
+        for (AbstractService targetService : group.snapshot()) {
+            if ((includeSelf || targetService != this) && targetService.receivedMulticast(message)) {
+                deliveredCount++;
+            }
+        }
+        message.recycle();
+        return deliveredCount;
     }
 
     /**
@@ -80,10 +570,193 @@ public abstract class AbstractService {
      *
      * @param sourceService 消息发送者，可以为{@code null}
      * @param message       不允许为{@code null}
+     * @return 消息队列已满，并且按照策略拒绝时返回{@code false}，被拒绝的池化消息会直接归还
      */
-    public void receivedMessage(AbstractService sourceService, @NonNull AbstractServiceMessage message) {
+    public boolean receivedMessage(AbstractService sourceService, @NonNull AbstractServiceMessage message) {
+        return this.receivedMessage(sourceService, message, true);
+    }
+
+    /**
+     * 当前Service接收一条消息，不阻塞：消息队列已满时即使策略是{@link MailboxOverflowPolicyEnum#BLOCK}也立即拒绝，
+     * 用于不允许阻塞的线程，例如网络IO线程
+     *
+     * @return 消息队列已满被拒绝时返回{@code false}，消息已经归还
+     */
+    public boolean tryReceivedMessage(AbstractService sourceService, @NonNull AbstractServiceMessage message) {
+        return this.receivedMessage(sourceService, message, false);
+    }
+
+    private boolean receivedMessage(AbstractService sourceService, AbstractServiceMessage message, boolean blocking) {
+        if (message.isMulticast()) {
+            throw new IllegalArgumentException("multicast service message can not be delivered alone: " + message.getClass().getName());
+        }
+        message.setSource(sourceService);
+        message.setTarget(this);
+        message.markDelivered();
+        if (blocking ? this.mailbox.offer(message) : this.mailbox.offerNonBlocking(message)) {
+            return true;
+        }
+
+        message.recycle();
+        return false;
+    }
+
+    /**
+     * 向其他Service发送需要合并的消息，目标Service中还没有处理的(消息标识，合并键)相同的旧消息会被直接替换（旧消息自动归还）
+     * <p> 适用于只关心最新值的状态类消息，目标Service没有开启合并时按照普通消息发送
+     *
+     * @param targetService 不允许为{@code null}
+     * @param message       不允许为{@code null}
+     * @param coalescingKey 合并键，例如玩家Id
+     * @return 目标Service的消息队列已满，并且按照策略拒绝时返回{@code false}
+     */
+    public boolean sendCoalesced(@NonNull AbstractService targetService, @NonNull AbstractServiceMessage message, long coalescingKey) {
+        return targetService.receivedCoalesced(this, message, coalescingKey);
+    }
+
+    /**
+     * 当前Service接收需要合并的消息，见{@link #sendCoalesced(AbstractService, AbstractServiceMessage, long)}
+     */
+    public boolean receivedCoalesced(AbstractService sourceService, @NonNull AbstractServiceMessage message, long coalescingKey) {
+        ServiceCoalescingTable curCoalescingTable = this.coalescingTable;
+        if (Objects.isNull(curCoalescingTable)) {
+            return this.receivedMessage(sourceService, message);
+        }
+        if (message.isMulticast()) {
+            throw new IllegalArgumentException("multicast service message can not be coalesced: " + message.getClass().getName());
+        }
+
         message.setSource(sourceService);
         message.setTarget(this);
-        this.messageQueue.offer(message);
+        message.setCoalescingKey(coalescingKey);
+        message.markDelivered();
+        if (curCoalescingTable.offer(this.mailbox, message)) {
+            return true;
+        }
+
+        message.recycle();
+        return false;
+    }
+
+    /**
+     * 开启消息合并，只允许在Service启动之前调用（例如子类构造方法中）
+     *
+     * @param capacity 合并表的槽位数量，向上取整到2的幂，建议大于同时活跃的合并键数量
+     */
+    protected void enableCoalescing(int capacity) {
+        if (Objects.isNull(this.coalescingTable)) {
+            this.coalescingTable = new ServiceCoalescingTable(capacity);
+        }
+    }
+
+    /**
+     * @return 没有开启消息合并时为{@code null}
+     */
+    public ServiceCoalescingTable getCoalescingTable() {
+        return this.coalescingTable;
+    }
+
+    /**
+     * 当前Service接收组播消息，投递成功时持有一次引用，处理结束之后释放
+     */
+    private boolean receivedMulticast(AbstractServiceMessage message) {
+        message.retain();
+        if (this.mailbox.offer(message)) {
+            return true;
+        }
+
+        message.recycle();
+        return false;
+    }
+
+    /**
+     * 向其他Service发起请求，不阻塞当前线程，应答在当前Service的{@link #tick(long)}中回调（只允许在当前Service的驱动线程中调用）
+     *
+     * <pre>
+     * ask(worldService, request, 3000L).onComplete((result, reply) -> {
+     *     if (result.isSuccess()) {
+     *         ...
+     *     }
+     * });
+     * </pre>
+     *
+     * @param targetService 不允许为{@code null}，处理方法中使用{@link #reply(AbstractServiceMessage, AbstractServiceMessage)}应答
+     * @param request       不允许为{@code null}
+     * @param timeoutMillis 超时时间：毫秒，使用Service的时钟，精度为时间轮的刻度
+     * @return 请求结果，不会为{@code null}，必须立即设置回调
+     */
+    public <R extends AbstractServiceMessage> ServicePromise<R> ask(@NonNull AbstractService targetService,
+                                                                    @NonNull AbstractServiceMessage request, long timeoutMillis) {
+        if (Objects.isNull(this.promisePool)) {
+            int maxCount = FrameworkContext.INSTANCE.getServiceAskMaxPendingCount();
+            this.promisePool = new DefaultObjectPool<>(ObjectPoolConfig.newInstance(maxCount), ServicePromise::new);
+        }
+
+        @SuppressWarnings("unchecked")
+        ServicePromise<R> promise = (ServicePromise<R>) this.promisePool.borrowObject();
+        if (Objects.isNull(promise)) {
+            request.recycle();
+            return ServicePromise.failed(ServiceAskResultEnum.OVERLOAD);
+        }
+
+        long correlationId = ++this.lastCorrelationId;
+        long timerId = this.schedule(timeoutMillis, promise);
+        promise.start(this, correlationId, timerId);
+        this.pendingPromises.put(correlationId, promise);
+
+        request.setCorrelation(correlationId, false);
+        if (!this.sendMessage(targetService, request)) {
+            this.pendingPromises.remove(correlationId);
+            this.cancelTimer(timerId);
+            this.recyclePromise(promise);
+            return ServicePromise.failed(ServiceAskResultEnum.REJECTED);
+        }
+        return promise;
+    }
+
+    /**
+     * 应答其他Service的请求，只能在请求消息的处理方法中调用
+     *
+     * @param request 请求消息，不允许为{@code null}
+     * @param reply   应答消息，不允许为{@code null}
+     * @return 请求消息不是通过{@link #ask(AbstractService, AbstractServiceMessage, long)}发起的，或者发起方的消息队列已满时返回{@code false}
+     */
+    public boolean reply(@NonNull AbstractServiceMessage request, @NonNull AbstractServiceMessage reply) {
+        AbstractService requester = request.getSource();
+        if (Objects.isNull(requester) || request.getCorrelationId() == 0L || request.isReply()) {
+            reply.recycle();
+            return false;
+        }
+
+        reply.setCorrelation(request.getCorrelationId(), true);
+        return this.sendMessage(requester, reply);
+    }
+
+    /**
+     * @return 当前等待应答的请求数量
+     */
+    public int getPendingAskCount() {
+        return this.pendingPromises.size();
+    }
+
+    /**
+     * 收到应答，超时之后到达的应答直接丢弃
+     */
+    private void completePromise(AbstractServiceMessage reply) {
+        ServicePromise<?> promise = this.pendingPromises.remove(reply.getCorrelationId());
+        if (Objects.isNull(promise)) {
+            return;
+        }
+        promise.complete(ServiceAskResultEnum.SUCCESS, reply);
+    }
+
+    void timeoutPromise(ServicePromise<?> promise) {
+        if (this.pendingPromises.remove(promise.getCorrelationId()) == promise) {
+            promise.complete(ServiceAskResultEnum.TIMEOUT, null);
+        }
+    }
+
+    void recyclePromise(ServicePromise<?> promise) {
+        this.promisePool.returnObject(promise);
     }
-}
\ No newline at end of file
+}
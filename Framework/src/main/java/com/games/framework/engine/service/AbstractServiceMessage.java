@@ -1,20 +1,36 @@
 package com.games.framework.engine.service;
 
+import com.games.framework.component.checker.NonClear;
+import com.games.framework.component.messagekit.MessageDispatcher;
+import com.games.framework.engine.context.FrameworkContext;
+import com.romje.component.pool.object.Reusable;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Service之间的通讯的消息封装
  *
+ * <p> 消息可以直接创建，也可以从{@link ServiceMessagePool}中借出。池化消息在接收方处理完之后自动归还，
+ * 被拒绝或者被丢弃的消息同样自动归还，所以消息发送之后，发送方不允许再持有或者修改该消息。
+ * <p> 组播消息同一个实例投递到多个Service，使用引用计数管理，所有接收方处理完之后才会归还，投递之后不允许再修改。
+ * <p> 子类必须显式声明{@link #clear()}并调用父类的清理方法，启动时会统一检查
+ *
  * @author liu xuan jie
  */
 @Getter
-public abstract class AbstractServiceMessage {
+public abstract class AbstractServiceMessage implements Reusable {
+
+    private static final AtomicIntegerFieldUpdater<AbstractServiceMessage> REFERENCE_COUNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(AbstractServiceMessage.class, "referenceCount");
 
     /**
      * 消息标识，代表一种消息，不是对象实例标识
      * 建议业务层使用常量类或者枚举类进行统一管理，维护
      */
+    @NonClear
     private final int messageMark;
 
     /**
@@ -29,7 +45,163 @@ public abstract class AbstractServiceMessage {
     @Setter
     private AbstractService target;
 
+    /**
+     * 请求标识，只有“请求-应答”中的请求与应答消息不为{@code 0}
+     */
+    private long correlationId;
+
+    /**
+     * 是否是应答消息，应答消息直接交给发起请求时的回调处理，不经过{@link com.games.framework.component.messagekit.MessageDispatcher}
+     */
+    private boolean reply;
+
+    /**
+     * 合并键，只有通过{@link AbstractService#sendCoalesced(AbstractService, AbstractServiceMessage, long)}发送时有效
+     */
+    private long coalescingKey;
+
+    /**
+     * 投递到消息队列的时间：纳秒，用于统计排队耗时
+     */
+    private long enqueueNanos;
+
+    /**
+     * 所属的消息池，直接创建的消息为{@code null}
+     */
+    @NonClear
+    private ServiceMessagePool<?> pool;
+
+    /**
+     * 是否已经归还到消息池中，避免重复归还
+     */
+    @NonClear
+    private boolean pooled;
+
+    /**
+     * 累计投递次数，只增不减，处理结束时发现有变化说明已经被重新投递（转发），不能归还
+     */
+    @NonClear
+    private int deliverCount;
+
+    /**
+     * 处理者是否保留了该消息，保留之后不会自动归还
+     */
+    private boolean retained;
+
+    /**
+     * 组播消息的引用计数，单播消息始终为{@code 0}
+     */
+    private volatile int referenceCount;
+
     public AbstractServiceMessage(int messageMark) {
         this.messageMark = messageMark;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void init() {
+    }
+
+    /**
+     * 在目标Service的驱动线程中处理消息，默认交给{@link MessageDispatcher}按照消息标识派发
+     * <p> 子类可以覆盖，自行决定派发方式，例如会话消息交给网络包分发器
+     *
+     * @param service 处理消息的Service
+     */
+    protected void dispatch(AbstractService service) {
+        MessageDispatcher.INSTANCE.dispatch(this.messageMark, service, this);
+    }
+
+    @Override
+    public void clear() {
+        this.source = null;
+        this.target = null;
+        this.correlationId = 0L;
+        this.reply = false;
+        this.coalescingKey = 0L;
+        this.enqueueNanos = 0L;
+        this.retained = false;
+        this.referenceCount = 0;
+    }
+
+    /**
+     * 处理方法中需要在处理结束之后继续持有该消息时调用（例如暂存起来稍后处理），之后由持有者负责调用{@link #recycle()}
+     * <p> 处理方法中直接转发给其他Service（包括自身）不需要调用，组播消息不允许转发
+     */
+    public void retain() {
+        if (this.isMulticast()) {
+            REFERENCE_COUNT_UPDATER.incrementAndGet(this);
+        } else {
+            this.retained = true;
+        }
+    }
+
+    /**
+     * 归还到所属的消息池，直接创建的消息什么都不做
+     * <p> 组播消息只释放一次引用，最后一次释放时才会归还
+     */
+    public void recycle() {
+        if (this.isMulticast() && REFERENCE_COUNT_UPDATER.decrementAndGet(this) > 0) {
+            return;
+        }
+        if (Objects.nonNull(this.pool)) {
+            this.pool.recycle(this);
+        }
+    }
+
+    /**
+     * @return 是否是正在投递中的组播消息
+     */
+    public boolean isMulticast() {
+        return this.referenceCount > 0;
+    }
+
+    /**
+     * 开始组播，发送方持有一次引用，投递结束之后释放
+     */
+    void beginMulticast(AbstractService source) {
+        if (this.isMulticast()) {
+            throw new IllegalStateException("service message is already multicasting: " + this.getClass().getName());
+        }
+        this.source = source;
+        this.target = null;
+        this.enqueueNanos = currentEnqueueNanos();
+        this.referenceCount = 1;
+    }
+
+    void setPool(ServiceMessagePool<?> pool) {
+        this.pool = pool;
+    }
+
+    void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    void setCorrelation(long correlationId, boolean reply) {
+        this.correlationId = correlationId;
+        this.reply = reply;
+    }
+
+    void setCoalescingKey(long coalescingKey) {
+        this.coalescingKey = coalescingKey;
+    }
+
+    void markDelivered() {
+        this.deliverCount++;
+        this.enqueueNanos = currentEnqueueNanos();
+    }
+
+    private static long currentEnqueueNanos() {
+        return FrameworkContext.INSTANCE.isServiceMessageMetricsEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 消息处理结束，没有被重新投递也没有被保留时归还
+     *
+     * @param dispatchDeliverCount 开始处理时的投递次数
+     */
+    void recycleAfterDispatch(int dispatchDeliverCount) {
+        if (this.deliverCount == dispatchDeliverCount && !this.retained) {
+            this.recycle();
+        }
+    }
+}
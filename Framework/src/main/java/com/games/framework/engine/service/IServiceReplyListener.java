@@ -0,0 +1,19 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.constants.ServiceAskResultEnum;
+
+/**
+ * Service“请求-应答”的结果监听，始终在发起请求的Service驱动线程中回调
+ *
+ * @author liu xuan jie
+ */
+@FunctionalInterface
+public interface IServiceReplyListener<R extends AbstractServiceMessage> {
+
+    /**
+     * @param result 请求结果，不会为{@code null}
+     * @param reply  应答消息，只有{@link ServiceAskResultEnum#SUCCESS}时不为{@code null}，回调结束之后自动归还，
+     *               需要继续持有时调用{@link AbstractServiceMessage#retain()}
+     */
+    void onReply(ServiceAskResultEnum result, R reply);
+}
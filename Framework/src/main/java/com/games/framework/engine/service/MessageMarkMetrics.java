@@ -0,0 +1,41 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.engine.processor.TickHistogram;
+import lombok.Getter;
+
+/**
+ * 单个Service中，单种消息的耗时统计
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public class MessageMarkMetrics {
+
+    /**
+     * 消息标识，超出统计范围的消息合并统计，标识为{@link ServiceMessageMetrics#OVERFLOW_MARK}
+     */
+    private final int messageMark;
+
+    /**
+     * 从投递到开始处理的排队耗时
+     */
+    private final TickHistogram waitHistogram = new TickHistogram();
+
+    /**
+     * 处理方法的执行耗时
+     */
+    private final TickHistogram handleHistogram = new TickHistogram();
+
+    MessageMarkMetrics(int messageMark) {
+        this.messageMark = messageMark;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageMarkMetrics{" +
+                "messageMark=" + messageMark +
+                ", wait=" + waitHistogram +
+                ", handle=" + handleHistogram +
+                '}';
+    }
+}
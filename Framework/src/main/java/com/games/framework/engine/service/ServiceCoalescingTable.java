@@ -0,0 +1,201 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.component.checker.NonClear;
+import lombok.NonNull;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Service消息合并表（无锁，多生单消）
+ *
+ * <p> 只关心最新值的状态类消息（例如某个玩家战力变化，在线人数变化），按照(消息标识，合并键)合并，
+ * 新消息直接替换还没有处理的旧消息，不再排在旧消息后面，消息堆积时可以大幅降低消息队列的深度。
+ *
+ * <p> 每个槽位保存一条待处理的消息，槽位由(消息标识，合并键)的哈希决定。槽位从空变为非空的生产者，
+ * 向消息队列投递该槽位预先分配的令牌，消费者取出令牌时再取出槽位中最新的消息，所以合并之后的消息
+ * 处于第一条旧消息在队列中的位置。生产者之间以及与消费者之间只通过CAS交换槽位中的消息，没有锁。
+ *
+ * <p> 槽位中保存的是不可变的{@link PendingEntry}，合并判断只比较其中的(消息标识，合并键)，不读取池化消息自身的字段：
+ * 池化消息可能已经被其他线程归还并且重新借出，字段已经属于另一次发送。每次投递都是新的记录对象，CAS不会有ABA问题。
+ * <p> 槽位从空变为非空时先放入当前生产者自己的占位记录（消息为{@code null}），令牌投递成功之后才替换为消息，
+ * 占位期间其他生产者等待。占位记录每次投递单独创建，放入消息与撤销占位的CAS都只会匹配自己的占位：
+ * 消费者提前取出令牌清空槽位，之后其他生产者重新占位时，当前生产者的CAS失败并重新投递，不会把消息放进没有令牌的槽位。
+ *
+ * <p> 不同的键哈希到同一个槽位时不合并，直接按照普通消息投递，保证不会丢失消息。
+ *
+ * @author liu xuan jie
+ */
+public class ServiceCoalescingTable {
+
+    private final AtomicReferenceArray<PendingEntry> pendingEntries;
+
+    /**
+     * 每个槽位预先分配的令牌，投递令牌不产生内存分配
+     */
+    private final CoalescingToken[] tokens;
+
+    private final int mask;
+
+    /**
+     * 被新消息替换掉的消息数量
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * 因为槽位冲突按照普通消息投递的数量
+     */
+    private final AtomicLong collisionCount = new AtomicLong();
+
+    /**
+     * @param capacity 槽位数量，向上取整到2的幂
+     */
+    ServiceCoalescingTable(int capacity) {
+        int actualCapacity = capacity <= 2 ? 2 : Integer.highestOneBit(Math.min(capacity, 1 << 30) - 1) << 1;
+        this.mask = actualCapacity - 1;
+        this.pendingEntries = new AtomicReferenceArray<>(actualCapacity);
+        this.tokens = new CoalescingToken[actualCapacity];
+        for (int i = 0; i < actualCapacity; i++) {
+            this.tokens[i] = new CoalescingToken(this, i);
+        }
+    }
+
+    /**
+     * 投递需要合并的消息（任意线程调用）
+     *
+     * @param mailbox 合并表所属Service的消息队列
+     * @param message 已经设置好合并键
+     * @return 消息队列已满，并且按照策略拒绝时返回{@code false}，调用方负责归还
+     */
+    boolean offer(@NonNull ServiceMailbox mailbox, @NonNull AbstractServiceMessage message) {
+        int messageMark = message.getMessageMark();
+        long coalescingKey = message.getCoalescingKey();
+        int index = slotIndex(messageMark, coalescingKey) & this.mask;
+        PendingEntry newEntry = new PendingEntry(messageMark, coalescingKey, message);
+        // 当前生产者专属的占位记录，只有自己的CAS能够匹配
+        PendingEntry reservation = new PendingEntry(messageMark, coalescingKey, null);
+        while (true) {
+            PendingEntry pendingEntry = this.pendingEntries.get(index);
+            if (Objects.isNull(pendingEntry)) {
+                if (!this.pendingEntries.compareAndSet(index, null, reservation)) {
+                    continue;
+                }
+                if (!mailbox.offer(this.tokens[index])) {
+                    // 占位没有被消费者清空时撤销，已经被清空时槽位可能属于其他生产者，不再修改；消息由调用方负责归还
+                    this.pendingEntries.compareAndSet(index, reservation, null);
+                    return false;
+                }
+                if (this.pendingEntries.compareAndSet(index, reservation, newEntry)) {
+                    return true;
+                }
+                // 令牌已经被消费者取出或者被消息队列丢弃，占位已经被清空，重新投递
+                continue;
+            }
+
+            if (Objects.isNull(pendingEntry.message)) {
+                // 其他生产者占位中
+                Thread.onSpinWait();
+                continue;
+            }
+
+            if (pendingEntry.messageMark != messageMark || pendingEntry.coalescingKey != coalescingKey) {
+                this.collisionCount.incrementAndGet();
+                return mailbox.offer(message);
+            }
+
+            if (this.pendingEntries.compareAndSet(index, pendingEntry, newEntry)) {
+                pendingEntry.message.recycle();
+                this.coalescedCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return 如果是令牌，取出对应槽位中最新的消息（可能为{@code null}），否则原样返回
+     */
+    AbstractServiceMessage resolve(AbstractServiceMessage message) {
+        if (message instanceof CoalescingToken) {
+            PendingEntry pendingEntry = this.pendingEntries.getAndSet(((CoalescingToken) message).slotIndex, null);
+            return Objects.isNull(pendingEntry) ? null : pendingEntry.message;
+        }
+        return message;
+    }
+
+    /**
+     * 令牌被消息队列丢弃时，对应槽位中的消息一并丢弃
+     */
+    private void drop(int slotIndex) {
+        PendingEntry pendingEntry = this.pendingEntries.getAndSet(slotIndex, null);
+        if (Objects.nonNull(pendingEntry) && Objects.nonNull(pendingEntry.message)) {
+            pendingEntry.message.recycle();
+        }
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    public long getCollisionCount() {
+        return this.collisionCount.get();
+    }
+
+    private static int slotIndex(int messageMark, long coalescingKey) {
+        long hash = (coalescingKey * 31L + messageMark) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * 槽位中待处理的消息，以及投递时的(消息标识，合并键)，创建之后不再修改
+     */
+    private static final class PendingEntry {
+
+        private final int messageMark;
+
+        private final long coalescingKey;
+
+        /**
+         * 占位记录为{@code null}
+         */
+        private final AbstractServiceMessage message;
+
+        private PendingEntry(int messageMark, long coalescingKey, AbstractServiceMessage message) {
+            this.messageMark = messageMark;
+            this.coalescingKey = coalescingKey;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 槽位令牌，只在消息队列中占位，不会被派发
+     */
+    static final class CoalescingToken extends AbstractServiceMessage {
+
+        @NonClear
+        private final ServiceCoalescingTable table;
+
+        @NonClear
+        private final int slotIndex;
+
+        private CoalescingToken(ServiceCoalescingTable table, int slotIndex) {
+            super(0);
+            this.table = table;
+            this.slotIndex = slotIndex;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+        }
+
+        @Override
+        public void recycle() {
+            this.table.drop(this.slotIndex);
+        }
+    }
+}
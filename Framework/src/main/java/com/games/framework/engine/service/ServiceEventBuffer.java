@@ -0,0 +1,196 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.component.eventkit.EventDispatcher;
+import com.romje.component.collection.LongObjectHashMap;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Service延迟派发的事件缓冲(单线程模型，仅执行线程操作)
+ *
+ * <p> 业务逻辑中抛出的事件先放入缓冲，在{@link AbstractService#tick(long)}的固定位置按批次统一派发，
+ * 避免监听方法在抛出事件的调用栈中同步执行，形成很深的重入调用链。
+ *
+ * <p> 同一批次中的事件按照事件标识分组，按照事件第一次抛出的顺序逐组派发（{@link EventDispatcher#dispatchBatch}），
+ * 同一事件的监听方法连续执行。派发期间新抛出的事件进入下一批次，在下一次驱动中派发，保证每次驱动的事件处理有界。
+ *
+ * <p> 可选按照(事件标识，参数)去重：同一批次中已经有相同参数（同一个对象）的事件时，新事件直接丢弃。
+ *
+ * @author liu xuan jie
+ */
+public class ServiceEventBuffer {
+
+    /**
+     * 缓冲事件数量上限
+     */
+    @Getter
+    private final int capacity;
+
+    /**
+     * 正在收集事件的批次
+     */
+    private EventBatchQueue collectingQueue = new EventBatchQueue();
+
+    /**
+     * 正在派发事件的批次，派发期间抛出的事件进入{@link #collectingQueue}
+     */
+    private EventBatchQueue flushingQueue = new EventBatchQueue();
+
+    /**
+     * 去重丢弃的事件数量
+     */
+    @Getter
+    private long distinctDroppedCount;
+
+    /**
+     * 缓冲已满，同步派发的事件数量
+     */
+    @Getter
+    private long overflowCount;
+
+    ServiceEventBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 缓冲事件，等待下一次{@link #flush()}统一派发
+     *
+     * @param eventKey 事件唯一标识
+     * @param param    最终处理事件的执行方法所需要的参数，不允许为{@code null}
+     * @param distinct 是否去重，同一批次中已经有相同(事件标识，参数)的事件时丢弃当前事件
+     * @return 缓冲已满时返回{@code false}，调用方负责同步派发
+     */
+    boolean offer(int eventKey, Object param, boolean distinct) {
+        if (this.collectingQueue.eventCount >= this.capacity) {
+            this.overflowCount++;
+            return false;
+        }
+
+        EventBatch batch = this.collectingQueue.batchOf(eventKey);
+        if (distinct && batch.contains(param)) {
+            this.distinctDroppedCount++;
+            return true;
+        }
+        batch.add(param);
+        this.collectingQueue.eventCount++;
+        return true;
+    }
+
+    /**
+     * 按批次派发当前缓冲的所有事件
+     *
+     * @return 派发的事件数量
+     */
+    int flush() {
+        if (this.collectingQueue.eventCount == 0) {
+            return 0;
+        }
+
+        EventBatchQueue queue = this.collectingQueue;
+        this.collectingQueue = this.flushingQueue;
+        this.flushingQueue = queue;
+
+        int eventCount = queue.eventCount;
+        for (EventBatch batch : queue.batchList) {
+            EventDispatcher.INSTANCE.dispatchBatch(batch.eventKey, batch.params);
+            batch.clear();
+        }
+        queue.batchList.clear();
+        queue.eventCount = 0;
+        return eventCount;
+    }
+
+    /**
+     * @return 等待派发的事件数量
+     */
+    public int size() {
+        return this.collectingQueue.eventCount;
+    }
+
+    public boolean isEmpty() {
+        return this.collectingQueue.eventCount == 0;
+    }
+
+    /**
+     * 一个批次的所有事件，按照事件标识分组
+     */
+    private static final class EventBatchQueue {
+
+        /**
+         * key：事件唯一标识，派发之后保留复用
+         */
+        private final LongObjectHashMap<EventBatch> batchMap = new LongObjectHashMap<>();
+
+        /**
+         * 本批次有事件的分组，按照事件第一次抛出的顺序
+         */
+        private final List<EventBatch> batchList = new ArrayList<>();
+
+        private int eventCount;
+
+        private EventBatch batchOf(int eventKey) {
+            EventBatch batch = this.batchMap.get(eventKey);
+            if (Objects.isNull(batch)) {
+                batch = new EventBatch(eventKey);
+                this.batchMap.put(eventKey, batch);
+            }
+            if (batch.params.isEmpty()) {
+                this.batchList.add(batch);
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * 同一事件标识的一组事件参数
+     */
+    private static final class EventBatch {
+
+        private final int eventKey;
+
+        private final List<Object> params = new ArrayList<>();
+
+        /**
+         * 参数的索引，第一次去重时建立，之后与{@link #params}同步维护直到派发
+         */
+        private IdentityHashMap<Object, Boolean> paramIndex;
+
+        private boolean indexed;
+
+        private EventBatch(int eventKey) {
+            this.eventKey = eventKey;
+        }
+
+        private boolean contains(Object param) {
+            if (!this.indexed) {
+                if (Objects.isNull(this.paramIndex)) {
+                    this.paramIndex = new IdentityHashMap<>();
+                }
+                for (Object existParam : this.params) {
+                    this.paramIndex.put(existParam, Boolean.TRUE);
+                }
+                this.indexed = true;
+            }
+            return this.paramIndex.containsKey(param);
+        }
+
+        private void add(Object param) {
+            this.params.add(param);
+            if (this.indexed) {
+                this.paramIndex.put(param, Boolean.TRUE);
+            }
+        }
+
+        private void clear() {
+            this.params.clear();
+            if (this.indexed) {
+                this.paramIndex.clear();
+                this.indexed = false;
+            }
+        }
+    }
+}
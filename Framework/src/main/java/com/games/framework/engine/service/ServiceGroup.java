@@ -0,0 +1,104 @@
+package com.games.framework.engine.service;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service组，例如所有场景Service，所有公会Service等，配合{@link AbstractService#broadcast(ServiceGroup, AbstractServiceMessage, boolean)}使用
+ *
+ * <p> 加入，离开的频率远低于广播，所以使用写时复制的数组保存成员，广播遍历时不加锁也不分配内存。
+ *
+ * @author liu xuan jie
+ */
+public class ServiceGroup {
+
+    private static final AbstractService[] EMPTY_SERVICES = new AbstractService[0];
+
+    /**
+     * 组名，仅用于日志与排查
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 当前成员，只会整体替换，不会修改数组内容
+     */
+    private volatile AbstractService[] services = EMPTY_SERVICES;
+
+    private ServiceGroup(String name) {
+        this.name = name;
+    }
+
+    public static ServiceGroup of(@NonNull String name) {
+        return new ServiceGroup(name);
+    }
+
+    /**
+     * @param service 不允许为{@code null}
+     * @return 已经在组中返回{@code false}
+     */
+    public synchronized boolean join(@NonNull AbstractService service) {
+        AbstractService[] curServices = this.services;
+        if (indexOf(curServices, service) >= 0) {
+            return false;
+        }
+
+        AbstractService[] newServices = Arrays.copyOf(curServices, curServices.length + 1);
+        newServices[curServices.length] = service;
+        this.services = newServices;
+        return true;
+    }
+
+    /**
+     * @param service 不允许为{@code null}
+     * @return 不在组中返回{@code false}
+     */
+    public synchronized boolean leave(@NonNull AbstractService service) {
+        AbstractService[] curServices = this.services;
+        int index = indexOf(curServices, service);
+        if (index < 0) {
+            return false;
+        }
+
+        AbstractService[] newServices = new AbstractService[curServices.length - 1];
+        System.arraycopy(curServices, 0, newServices, 0, index);
+        System.arraycopy(curServices, index + 1, newServices, index, newServices.length - index);
+        this.services = newServices;
+        return true;
+    }
+
+    public boolean contains(AbstractService service) {
+        return indexOf(this.services, service) >= 0;
+    }
+
+    public int size() {
+        return this.services.length;
+    }
+
+    /**
+     * @return 当前成员的只读视图，之后的加入离开不影响已经获取的视图
+     */
+    public List<AbstractService> listServices() {
+        return Collections.unmodifiableList(Arrays.asList(this.services));
+    }
+
+    /**
+     * @return 当前成员数组，调用方不允许修改
+     */
+    AbstractService[] snapshot() {
+        return this.services;
+    }
+
+    private static int indexOf(AbstractService[] services, AbstractService service) {
+        for (int i = 0; i < services.length; i++) {
+            if (services[i] == service) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
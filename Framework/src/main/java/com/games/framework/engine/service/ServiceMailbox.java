@@ -0,0 +1,168 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.romje.component.queue.MpscArrayQueue;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Service的消息队列(多生单消模型)
+ *
+ * <p> 底层是预先分配的有界环形数组，接收消息不产生任何内存分配，每个Service的内存占用有硬上限。
+ * 队列已满时按照{@link MailboxOverflowPolicyEnum}处理，并且统计被拒绝，被丢弃的消息数量，被丢弃的池化消息会直接归还。
+ *
+ * @author liu xuan jie
+ */
+public class ServiceMailbox {
+
+    /**
+     * 阻塞策略下，发送方每次等待空位的时间：纳秒
+     */
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+
+    private final MpscArrayQueue<AbstractServiceMessage> queue;
+
+    /**
+     * 队列已满时的处理策略
+     */
+    @Getter
+    private final MailboxOverflowPolicyEnum overflowPolicy;
+
+    /**
+     * 阻塞策略下，发送方最长的等待时间：纳秒
+     */
+    private final long blockTimeoutNanos;
+
+    /**
+     * 被拒绝的消息数量（包括阻塞超时的）
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * 因为“丢弃最旧”被丢弃的消息数量
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * @param capacity          容量，向上取整到2的幂
+     * @param overflowPolicy    队列已满时的处理策略
+     * @param blockTimeoutMillis 阻塞策略下，发送方最长的等待时间：毫秒
+     */
+    public ServiceMailbox(int capacity, @NonNull MailboxOverflowPolicyEnum overflowPolicy, long blockTimeoutMillis) {
+        this.queue = new MpscArrayQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = Math.max(blockTimeoutMillis, 0L) * 1_000_000L;
+    }
+
+    /**
+     * 投递消息（任意线程调用）
+     *
+     * @param message 不允许为{@code null}
+     * @return 消息被拒绝返回{@code false}
+     */
+    public boolean offer(@NonNull AbstractServiceMessage message) {
+        if (this.queue.offer(message)) {
+            return true;
+        }
+
+        switch (this.overflowPolicy) {
+            case BLOCK:
+                return this.offerBlocking(message);
+            case DROP_OLDEST:
+                return this.offerDropOldest(message);
+            default:
+                this.rejectedCount.incrementAndGet();
+                return false;
+        }
+    }
+
+    /**
+     * 不阻塞地投递消息（任意线程调用）：队列已满时，阻塞策略也按照拒绝处理，“丢弃最旧”策略不变
+     * <p> 用于不允许阻塞的线程，例如网络IO线程
+     *
+     * @param message 不允许为{@code null}
+     * @return 消息被拒绝返回{@code false}
+     */
+    public boolean offerNonBlocking(@NonNull AbstractServiceMessage message) {
+        if (this.queue.offer(message)) {
+            return true;
+        }
+        if (this.overflowPolicy == MailboxOverflowPolicyEnum.DROP_OLDEST) {
+            return this.offerDropOldest(message);
+        }
+        this.rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 取出一条消息(仅Service驱动线程调用)
+     *
+     * @return 没有消息返回{@code null}
+     */
+    public AbstractServiceMessage poll() {
+        return this.queue.poll();
+    }
+
+    /**
+     * 批量取出消息(仅Service驱动线程调用)
+     *
+     * @param consumer 消息处理者
+     * @param limit    最多取出的数量
+     * @return 实际取出的数量
+     */
+    public int drain(@NonNull Consumer<AbstractServiceMessage> consumer, int limit) {
+        return this.queue.drain(consumer, limit);
+    }
+
+    public boolean isEmpty() {
+        return this.queue.isEmpty();
+    }
+
+    /**
+     * @return 当前消息数量的近似值
+     */
+    public int size() {
+        return this.queue.size();
+    }
+
+    public int capacity() {
+        return this.queue.capacity();
+    }
+
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    private boolean offerBlocking(AbstractServiceMessage message) {
+        long deadline = System.nanoTime() + this.blockTimeoutNanos;
+        while (!this.queue.offer(message)) {
+            if (System.nanoTime() - deadline >= 0L || Thread.currentThread().isInterrupted()) {
+                this.rejectedCount.incrementAndGet();
+                return false;
+            }
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private boolean offerDropOldest(AbstractServiceMessage message) {
+        while (!this.queue.offer(message)) {
+            // 与消费者并发取出是安全的，取到的就是被丢弃的最旧消息
+            AbstractServiceMessage oldestMessage = this.queue.poll();
+            if (Objects.nonNull(oldestMessage)) {
+                oldestMessage.recycle();
+                this.droppedCount.incrementAndGet();
+            }
+        }
+        return true;
+    }
+}
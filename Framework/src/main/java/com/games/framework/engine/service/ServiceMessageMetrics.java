@@ -0,0 +1,90 @@
+package com.games.framework.engine.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 单个Service按照消息标识统计的排队，处理耗时
+ *
+ * <p> 按照消息标识直接下标定位统计槽位，每种消息第一次处理时创建一次槽位，之后的记录只有数组写入，
+ * 不加锁也不分配内存。只有Service的执行线程写入，其他线程（例如引擎线程定期输出，运行时查询）读取的是近似值。
+ *
+ * @author liu xuan jie
+ */
+public class ServiceMessageMetrics {
+
+    /**
+     * 消息标识为负数，或者超出统计范围的消息，合并统计使用的标识
+     */
+    public static final int OVERFLOW_MARK = -1;
+
+    /**
+     * 下标：消息标识
+     */
+    private final MessageMarkMetrics[] markMetrics;
+
+    private MessageMarkMetrics overflowMetrics;
+
+    /**
+     * @param markCapacity 单独统计的消息标识范围[0, markCapacity)
+     */
+    ServiceMessageMetrics(int markCapacity) {
+        this.markMetrics = new MessageMarkMetrics[Math.max(markCapacity, 0)];
+    }
+
+    /**
+     * 记录一条消息（仅执行线程调用）
+     *
+     * @param waitNanos   排队耗时：纳秒
+     * @param handleNanos 处理耗时：纳秒
+     */
+    void record(int messageMark, long waitNanos, long handleNanos) {
+        MessageMarkMetrics metrics = this.getOrCreate(messageMark);
+        metrics.getWaitHistogram().record(Math.max(waitNanos, 0L));
+        metrics.getHandleHistogram().record(handleNanos);
+    }
+
+    /**
+     * @return 没有处理过该消息时返回{@code null}，超出统计范围的消息返回合并统计
+     */
+    public MessageMarkMetrics getMarkMetrics(int messageMark) {
+        if (messageMark < 0 || messageMark >= this.markMetrics.length) {
+            return this.overflowMetrics;
+        }
+        return this.markMetrics[messageMark];
+    }
+
+    /**
+     * @return 所有处理过的消息的统计，按照消息标识排序，超出统计范围的合并统计在最后
+     */
+    public List<MessageMarkMetrics> listMarkMetrics() {
+        List<MessageMarkMetrics> metricsList = new ArrayList<>();
+        for (MessageMarkMetrics metrics : this.markMetrics) {
+            if (Objects.nonNull(metrics)) {
+                metricsList.add(metrics);
+            }
+        }
+        MessageMarkMetrics curOverflowMetrics = this.overflowMetrics;
+        if (Objects.nonNull(curOverflowMetrics)) {
+            metricsList.add(curOverflowMetrics);
+        }
+        return metricsList;
+    }
+
+    private MessageMarkMetrics getOrCreate(int messageMark) {
+        if (messageMark < 0 || messageMark >= this.markMetrics.length) {
+            if (Objects.isNull(this.overflowMetrics)) {
+                this.overflowMetrics = new MessageMarkMetrics(OVERFLOW_MARK);
+            }
+            return this.overflowMetrics;
+        }
+
+        MessageMarkMetrics metrics = this.markMetrics[messageMark];
+        if (Objects.isNull(metrics)) {
+            metrics = new MessageMarkMetrics(messageMark);
+            this.markMetrics[messageMark] = metrics;
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,129 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.engine.context.FrameworkContext;
+import com.romje.component.pool.object.IObjectFactory;
+import com.romje.component.pool.object.IObjectPool;
+import com.romje.component.pool.object.ObjectPoolConfig;
+import com.romje.component.queue.MpscArrayQueue;
+import lombok.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Service消息对象池（线程安全），每种消息类型使用一个
+ *
+ * <p> 消息通常在发送方线程借出，在接收方线程处理完之后归还，所以不能使用单线程的对象池。
+ * 空闲消息保存在有界环形队列中，借出和归还都不会加锁，也不会产生额外的内存分配。
+ * <p> 借出数量不做限制，池中没有空闲消息时直接创建新的，空闲消息超出{@link ObjectPoolConfig#getMaxIdle()}时直接丢弃，
+ * 没有归还的消息（例如业务保留之后遗忘）只会被GC回收，不影响消息池的后续使用。
+ *
+ * <pre>
+ * private static final ServiceMessagePool&lt;MoveMessage&gt; POOL = ServiceMessagePool.of(MoveMessage::new);
+ *
+ * MoveMessage message = POOL.borrowObject();
+ * message.setPosition(x, y);
+ * sendMessage(targetService, message);
+ * </pre>
+ *
+ * @author liu xuan jie
+ */
+public class ServiceMessagePool<T extends AbstractServiceMessage> implements IObjectPool<T> {
+
+    private final ObjectPoolConfig config;
+
+    private final IObjectFactory<T> factory;
+
+    /**
+     * 空闲消息，借出与归还都可能在任意线程，队列的出队同样是线程安全的
+     */
+    private final MpscArrayQueue<T> idleQueue;
+
+    private ServiceMessagePool(ObjectPoolConfig config, IObjectFactory<T> factory) {
+        this.config = config;
+        this.factory = factory;
+        this.idleQueue = new MpscArrayQueue<>(Math.max(config.getMaxIdle(), 1));
+        for (int i = 0; i < config.getMinIdle(); i++) {
+            if (!this.idleQueue.offer(this.create())) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 空闲数量上限使用{@link FrameworkContext#getServiceMessagePoolMaxIdle()}
+     *
+     * @param factory 消息创建器，不允许为{@code null}
+     */
+    public static <T extends AbstractServiceMessage> ServiceMessagePool<T> of(@NonNull IObjectFactory<T> factory) {
+        return of(ObjectPoolConfig.newInstance(FrameworkContext.INSTANCE.getServiceMessagePoolMaxIdle()), factory);
+    }
+
+    /**
+     * @param config  只使用空闲数量相关的参数，不允许为{@code null}
+     * @param factory 消息创建器，不允许为{@code null}
+     */
+    public static <T extends AbstractServiceMessage> ServiceMessagePool<T> of(@NonNull ObjectPoolConfig config,
+                                                                             @NonNull IObjectFactory<T> factory) {
+        return new ServiceMessagePool<>(config, factory);
+    }
+
+    /**
+     * 借出一条消息（任意线程调用）
+     *
+     * @return 不会为{@code null}
+     */
+    @Override
+    public T borrowObject() {
+        T message = this.idleQueue.poll();
+        if (Objects.isNull(message)) {
+            message = this.create();
+        }
+        message.setPooled(false);
+        message.init();
+        return message;
+    }
+
+    /**
+     * 归还一条消息（任意线程调用），通常由框架在消息处理结束之后自动归还，重复归还会被忽略
+     */
+    @Override
+    public void returnObject(T object) {
+        this.recycle(object);
+    }
+
+    @Override
+    public boolean isPoolObject(T object) {
+        return Objects.nonNull(object) && object.getPool() == this;
+    }
+
+    @Override
+    public int size() {
+        return this.idleQueue.size();
+    }
+
+    @Override
+    public ObjectPoolConfig getConfig() {
+        return this.config;
+    }
+
+    void recycle(AbstractServiceMessage message) {
+        if (Objects.isNull(message) || message.getPool() != this || message.isPooled()) {
+            return;
+        }
+
+        message.clear();
+        message.setPooled(true);
+        // 空闲已满直接丢弃，交给GC回收
+        @SuppressWarnings("unchecked")
+        T pooledMessage = (T) message;
+        this.idleQueue.offer(pooledMessage);
+    }
+
+    private T create() {
+        T message = this.factory.create();
+        Objects.requireNonNull(message);
+        message.setPool(this);
+        message.setPooled(true);
+        return message;
+    }
+}
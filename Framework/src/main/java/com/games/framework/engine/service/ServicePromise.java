@@ -0,0 +1,147 @@
+package com.games.framework.engine.service;
+
+import com.games.framework.constants.ServiceAskResultEnum;
+import com.games.framework.log.Log;
+import com.romje.component.pool.object.Reusable;
+import com.romje.component.timer.ITimerTask;
+import com.romje.component.timer.TimingWheel;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Service“请求-应答”的结果，见{@link AbstractService#ask(AbstractService, AbstractServiceMessage, long)}
+ *
+ * <p> 由发起请求的Service的对象池管理，结果回调之后自动归还，所以必须在发起请求之后立即调用
+ * {@link #onComplete(IServiceReplyListener)}，并且不允许在回调之后继续持有。
+ * <p> 单线程模型，只允许在发起请求的Service驱动线程中使用。
+ *
+ * @author liu xuan jie
+ */
+public class ServicePromise<R extends AbstractServiceMessage> implements Reusable, ITimerTask {
+
+    /**
+     * 请求没有发出就已经失败时使用的结果，没有任何状态，可以共享
+     */
+    private static final ServicePromise<?>[] FAILED_PROMISES = new ServicePromise<?>[ServiceAskResultEnum.values().length];
+
+    static {
+        for (ServiceAskResultEnum result : ServiceAskResultEnum.values()) {
+            ServicePromise<?> promise = new ServicePromise<>();
+            promise.result = result;
+            FAILED_PROMISES[result.ordinal()] = promise;
+        }
+    }
+
+    /**
+     * 发起请求的Service，共享的失败结果为{@code null}
+     */
+    private AbstractService owner;
+
+    /**
+     * 请求标识
+     */
+    @Getter
+    private long correlationId;
+
+    /**
+     * 超时定时任务的标识
+     */
+    private long timerId;
+
+    private IServiceReplyListener<? super R> listener;
+
+    /**
+     * 请求结果，还没有结果时为{@code null}
+     */
+    @Getter
+    private ServiceAskResultEnum result;
+
+    @Override
+    public void init() {
+        this.timerId = TimingWheel.INVALID_TIMER_ID;
+    }
+
+    @Override
+    public void clear() {
+        this.owner = null;
+        this.correlationId = 0L;
+        this.timerId = TimingWheel.INVALID_TIMER_ID;
+        this.listener = null;
+        this.result = null;
+    }
+
+    /**
+     * @return 请求没有发出就已经失败时使用的共享结果
+     */
+    @SuppressWarnings("unchecked")
+    static <R extends AbstractServiceMessage> ServicePromise<R> failed(ServiceAskResultEnum result) {
+        return (ServicePromise<R>) FAILED_PROMISES[result.ordinal()];
+    }
+
+    /**
+     * 设置结果回调，已经有结果时立即回调
+     *
+     * @param listener 不允许为{@code null}
+     */
+    public void onComplete(@NonNull IServiceReplyListener<? super R> listener) {
+        if (Objects.nonNull(this.result)) {
+            invokeListener(listener, this.result, null);
+            return;
+        }
+        this.listener = listener;
+    }
+
+    public boolean isDone() {
+        return Objects.nonNull(this.result);
+    }
+
+    void start(AbstractService owner, long correlationId, long timerId) {
+        this.owner = owner;
+        this.correlationId = correlationId;
+        this.timerId = timerId;
+    }
+
+    /**
+     * 请求超时，由发起请求的Service的时间轮回调
+     */
+    @Override
+    public void onTimeout(long timerId, long millisTimestamp) {
+        if (this.timerId != timerId || Objects.isNull(this.owner)) {
+            return;
+        }
+        this.timerId = TimingWheel.INVALID_TIMER_ID;
+        this.owner.timeoutPromise(this);
+    }
+
+    /**
+     * 设置结果并回调，之后自动归还（调用方负责从等待列表中移除）
+     *
+     * @param reply 应答消息，失败时为{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    void complete(ServiceAskResultEnum result, AbstractServiceMessage reply) {
+        AbstractService service = this.owner;
+        if (this.timerId != TimingWheel.INVALID_TIMER_ID) {
+            service.cancelTimer(this.timerId);
+            this.timerId = TimingWheel.INVALID_TIMER_ID;
+        }
+
+        this.result = result;
+        IServiceReplyListener<? super R> curListener = this.listener;
+        if (Objects.nonNull(curListener)) {
+            invokeListener(curListener, result, (R) reply);
+        }
+        service.recyclePromise(this);
+    }
+
+    private static <R extends AbstractServiceMessage> void invokeListener(IServiceReplyListener<? super R> listener,
+                                                                          ServiceAskResultEnum result, R reply) {
+        try {
+            listener.onReply(result, reply);
+        } catch (Exception e) {
+            Log.FRAME.warn("[Service] reply listener:{} handle result:{} exception!", listener, result, e);
+        }
+    }
+}
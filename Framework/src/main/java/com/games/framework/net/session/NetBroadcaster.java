@@ -0,0 +1,103 @@
+package com.games.framework.net.session;
+
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.log.Log;
+import com.games.framework.net.tcp.NetPacketCodec;
+import com.google.protobuf.GeneratedMessageV3;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * 网络消息包广播：同一个协议只序列化一次，所有会话共享同一个编码好的帧（任意线程调用）
+ *
+ * <p> 帧编码进一个池化{@link ByteBuf}，每个会话只持有它的一个引用计数（{@link ByteBuf#retainedDuplicate()}），
+ * 广播结束时释放广播自身的引用，最后一个会话写出之后缓冲区归还。N个接收者只需要一次序列化，之后的开销只剩引用计数。
+ * <p> 共享帧加入会话的待发送内容，排在已经写入的消息包之后，见{@link NetSession#writeShared(ByteBuf)}：
+ * 在Service驱动期间调用时，会话登记到该Service，与本次驱动写入的其他消息包一起在驱动的最后只刷新一次；
+ * 不在Service驱动期间调用时立即刷新。
+ *
+ * @author liu xuan jie
+ */
+public enum NetBroadcaster {
+
+    INSTANCE;
+
+    /**
+     * 向一组会话广播
+     *
+     * @return 实际写入的会话数量，不可用的连接不计入
+     */
+    public int broadcast(@NonNull Collection<NetSession> sessions, int packetId, @NonNull GeneratedMessageV3 message) {
+        return this.broadcast(sessions, null, packetId, message);
+    }
+
+    /**
+     * 向一组会话中满足条件的会话广播，没有任何会话满足条件时不序列化
+     *
+     * @param filter 会话过滤条件，{@code null}代表不过滤
+     * @return 实际写入的会话数量，不可用的连接不计入
+     */
+    public int broadcast(@NonNull Collection<NetSession> sessions, Predicate<NetSession> filter,
+                         int packetId, @NonNull GeneratedMessageV3 message) {
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+
+        AbstractService service = AbstractService.currentTickService();
+        ByteBuf frame = null;
+        int writeCount = 0;
+        try {
+            for (NetSession session : sessions) {
+                if (Objects.isNull(session) || (Objects.nonNull(filter) && !filter.test(session))) {
+                    continue;
+                }
+                if (Objects.isNull(frame)) {
+                    frame = encode(session.getChannel().alloc(), packetId, message);
+                    if (Objects.isNull(frame)) {
+                        return 0;
+                    }
+                }
+                if (session.writeShared(frame) < 0) {
+                    continue;
+                }
+                writeCount++;
+                if (Objects.nonNull(service)) {
+                    service.deferFlush(session);
+                } else {
+                    session.flush();
+                }
+            }
+        } finally {
+            if (Objects.nonNull(frame)) {
+                frame.release();
+            }
+        }
+        return writeCount;
+    }
+
+    /**
+     * 把协议编码为一个完整帧
+     *
+     * @return 序列化异常时返回{@code null}
+     */
+    static ByteBuf encode(ByteBufAllocator allocator, int packetId, GeneratedMessageV3 message) {
+        int bodyLength = message.getSerializedSize();
+        ByteBuf frame = allocator.ioBuffer(NetPacketCodec.LENGTH_FIELD_SIZE + NetPacketCodec.PACKET_ID_SIZE + bodyLength);
+        frame.writeInt(NetPacketCodec.PACKET_ID_SIZE + bodyLength);
+        frame.writeInt(packetId);
+        try {
+            NetSession.writeMessage(frame, message, bodyLength);
+            return frame;
+        } catch (IOException e) {
+            frame.release();
+            Log.FRAME.error("[Net] broadcast packet:{} encode exception!", packetId, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.games.framework.net.session;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内所有会话的发送合并统计，一次刷新对应一次{@code write}系统调用
+ *
+ * <p> 多个Service线程同时写入，读取的是近似值（字段之间不保证一致）
+ *
+ * @author liu xuan jie
+ */
+public enum NetOutboundStatistics {
+
+    INSTANCE;
+
+    /**
+     * 累计发送的消息包数量
+     */
+    private final LongAdder packetCount = new LongAdder();
+
+    /**
+     * 累计刷新次数
+     */
+    private final LongAdder flushCount = new LongAdder();
+
+    /**
+     * 累计刷新的字节数
+     */
+    private final LongAdder flushBytes = new LongAdder();
+
+    /**
+     * 累计因为待发送内容超出上限而关闭的连接数量
+     */
+    private final LongAdder overloadCloseCount = new LongAdder();
+
+    void record(int packetCount, int bytes) {
+        this.packetCount.add(packetCount);
+        this.flushCount.increment();
+        this.flushBytes.add(bytes);
+    }
+
+    void recordOverloadClose() {
+        this.overloadCloseCount.increment();
+    }
+
+    public long getPacketCount() {
+        return this.packetCount.sum();
+    }
+
+    public long getFlushCount() {
+        return this.flushCount.sum();
+    }
+
+    public long getFlushBytes() {
+        return this.flushBytes.sum();
+    }
+
+    public long getOverloadCloseCount() {
+        return this.overloadCloseCount.sum();
+    }
+
+    /**
+     * @return 平均每次刷新的字节数
+     */
+    public long getBytesPerFlush() {
+        long flushCount = this.getFlushCount();
+        return flushCount == 0 ? 0L : this.getFlushBytes() / flushCount;
+    }
+
+    /**
+     * @return 平均每次刷新合并的消息包数量，即合并之后节省的系统调用倍数
+     */
+    public double getPacketsPerFlush() {
+        long flushCount = this.getFlushCount();
+        return flushCount == 0 ? 0D : (double) this.getPacketCount() / flushCount;
+    }
+
+    public void reset() {
+        this.packetCount.reset();
+        this.flushCount.reset();
+        this.flushBytes.reset();
+        this.overloadCloseCount.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "NetOutboundStatistics{packets=" + this.getPacketCount() + ", flushes=" + this.getFlushCount()
+                + ", bytes=" + this.getFlushBytes() + ", bytesPerFlush=" + this.getBytesPerFlush()
+                + ", overloadCloses=" + this.getOverloadCloseCount() + "}";
+    }
+}
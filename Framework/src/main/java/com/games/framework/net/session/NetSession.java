@@ -0,0 +1,484 @@
+package com.games.framework.net.session;
+
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.log.Log;
+import com.games.framework.net.tcp.NetPacketCodec;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.GeneratedMessageV3;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 网络会话，一个连接对应一个会话，通过连接的属性{@link #SESSION_KEY}关联
+ *
+ * <p> 发送合并：{@link #write}只把完整帧编码进会话的待发送缓冲（池化{@link ByteBuf}），不触发任何系统调用；
+ * 共享帧（例如广播）只把引用计数加入待发送内容，见{@link #writeShared(ByteBuf)}。
+ * {@link #flush()}把所有待发送内容按照写入顺序一次写入连接，一次刷新只产生一次{@code write}系统调用。
+ * Service在驱动期间写入的会话，在驱动的最后统一刷新，见{@link com.games.framework.engine.service.AbstractService#sendPacket}。
+ *
+ * <p> 待发送内容的读写使用会话自身加锁，正常情况下只有所属Service的线程写入，锁没有竞争。
+ * 接收亲和的状态（所属的Service，迁移目标，暂存的消息包）使用单独的{@link #routeLock}，
+ * IO线程投递消息包与Service线程发送消息包互不等待。
+ *
+ * <p> 发送背压：连接的发送缓冲超出高水位（{@link Channel#isWritable()}为{@code false}）时，刷新不再写入连接，
+ * 待发送内容留在会话中，连接恢复可写时由{@link NetSessionHandler}刷新。连接持续不可写，
+ * 待发送内容超出{@link FrameworkContext#getSessionMaxPendingBytes()}时认为对端过慢，丢弃待发送内容并关闭连接。
+ *
+ * <p> 接收亲和：会话绑定所属的Service之后，解析之后的网络消息包直接投递到该Service的消息队列，
+ * 在Service的驱动线程中单线程处理，业务逻辑不需要加锁。迁移到其他Service（例如切换场景）时，先向原Service投递迁移屏障，
+ * 屏障之前的消息包仍然在原Service中处理，迁移期间收到的消息包暂存在会话中，屏障处理时按照接收顺序转交给新的Service，
+ * 所以迁移不会打乱消息包的顺序。
+ *
+ * @author liu xuan jie
+ */
+public final class NetSession {
+
+    /**
+     * 连接上保存会话的属性
+     */
+    public static final AttributeKey<NetSession> SESSION_KEY = AttributeKey.valueOf("NetSession");
+
+    /**
+     * 待发送缓冲的初始容量：字节
+     */
+    private static final int INIT_PENDING_CAPACITY = 1024;
+
+    private static final AtomicLong SESSION_ID_GENERATOR = new AtomicLong();
+
+    /**
+     * 会话唯一标识，进程内自增
+     */
+    @Getter
+    private final long sessionId;
+
+    @Getter
+    private final Channel channel;
+
+    /**
+     * 接收亲和状态的锁：{@link #boundService}的修改，{@link #rebindTarget}，{@link #rebindStashQueue}
+     */
+    private final Object routeLock = new Object();
+
+    /**
+     * 所属的Service，没有绑定时为{@code null}
+     */
+    private volatile AbstractService boundService;
+
+    /**
+     * 正在迁移的目标Service，没有迁移时为{@code null}(读写都需要持有{@link #routeLock})
+     */
+    private AbstractService rebindTarget;
+
+    /**
+     * 迁移期间收到的消息包，按照接收顺序暂存(读写都需要持有{@link #routeLock})
+     */
+    private final ArrayDeque<NetSessionMessage> rebindStashQueue = new ArrayDeque<>();
+
+    /**
+     * 正在追加编码的待发送缓冲，没有时为{@code null}
+     */
+    private ByteBuf pendingBuffer;
+
+    /**
+     * 排在{@link #pendingBuffer}之前等待发送的缓冲区：写入共享帧时已经追加结束的缓冲，以及共享帧本身，
+     * 第一次写入共享帧时创建
+     */
+    private ArrayList<ByteBuf> pendingBufferList;
+
+    /**
+     * 所有待发送内容的字节数
+     */
+    private int pendingBytes;
+
+    /**
+     * 待发送的消息包数量
+     */
+    private int pendingCount;
+
+    private NetSession(Channel channel) {
+        this.sessionId = SESSION_ID_GENERATOR.incrementAndGet();
+        this.channel = channel;
+    }
+
+    /**
+     * 为连接创建会话，同一个连接重复创建时返回已经存在的会话
+     */
+    public static NetSession create(@NonNull Channel channel) {
+        NetSession session = new NetSession(channel);
+        NetSession oldSession = channel.attr(SESSION_KEY).setIfAbsent(session);
+        return Objects.isNull(oldSession) ? session : oldSession;
+    }
+
+    /**
+     * @return 连接上的会话，没有创建过会话时为{@code null}
+     */
+    public static NetSession get(@NonNull Channel channel) {
+        return channel.attr(SESSION_KEY).get();
+    }
+
+    /**
+     * 绑定所属的Service，之后收到的消息包都投递到该Service（任意线程调用）
+     *
+     * @return 已经绑定过Service时返回{@code false}，需要使用{@link #rebind(AbstractService)}
+     */
+    public boolean bind(@NonNull AbstractService service) {
+        synchronized (this.routeLock) {
+            if (Objects.nonNull(this.boundService)) {
+                return false;
+            }
+            this.boundService = service;
+            return true;
+        }
+    }
+
+    /**
+     * 迁移到其他Service：向当前所属的Service投递迁移屏障，屏障处理时才真正切换（任意线程调用）
+     * <p> 迁移期间收到的消息包暂存在会话中，切换时按照接收顺序投递给新的Service
+     *
+     * @return 没有绑定过Service，已经在迁移中，或者原Service的消息队列已满屏障投递失败时返回{@code false}，所属的Service不变
+     */
+    public boolean rebind(@NonNull AbstractService target) {
+        synchronized (this.routeLock) {
+            AbstractService curService = this.boundService;
+            if (Objects.isNull(curService) || Objects.nonNull(this.rebindTarget)) {
+                return false;
+            }
+            if (curService == target) {
+                return true;
+            }
+
+            // 持有锁期间投递，不阻塞等待消息队列的空位
+            if (!curService.tryReceivedMessage(null, NetSessionMessage.ofRebind(this))) {
+                Log.FRAME.warn("[Net] session:{} rebind service:{} -> {}, mailbox reject!",
+                        this.sessionId, curService.getServiceId(), target.getServiceId());
+                return false;
+            }
+            this.rebindTarget = target;
+            return true;
+        }
+    }
+
+    /**
+     * 迁移屏障在原Service中处理：按照接收顺序转交迁移期间暂存的消息包，之后切换所属的Service
+     *
+     * <p> 暂存的消息包整批取出之后在锁外投递，投递期间迁移目标保持不变，IO线程收到的消息包继续暂存，
+     * 直到暂存为空时才在锁内切换，所以顺序不变，IO线程暂存时也不需要等待整批投递结束。
+     */
+    void completeRebind() {
+        AbstractService target;
+        synchronized (this.routeLock) {
+            target = this.rebindTarget;
+            if (Objects.isNull(target)) {
+                return;
+            }
+        }
+
+        List<NetSessionMessage> batchList = new ArrayList<>();
+        while (true) {
+            synchronized (this.routeLock) {
+                if (this.rebindStashQueue.isEmpty()) {
+                    this.boundService = target;
+                    this.rebindTarget = null;
+                    return;
+                }
+                batchList.addAll(this.rebindStashQueue);
+                this.rebindStashQueue.clear();
+            }
+            for (int i = 0, size = batchList.size(); i < size; i++) {
+                this.deliver(target, batchList.get(i));
+            }
+            batchList.clear();
+        }
+    }
+
+    /**
+     * 把解析之后的消息包投递到所属的Service（连接的IO线程调用）
+     * <p> 投递不阻塞：无论所属Service的消息队列是什么策略，队列已满时都按照拒绝处理，消息包丢弃，
+     * IO线程不会因为某个Service处理过慢而停顿
+     *
+     * @return 没有绑定Service时返回{@code false}，由调用方自行处理
+     */
+    public boolean route(int packetId, @NonNull GeneratedMessageV3 packet) {
+        AbstractService service = this.boundService;
+        if (Objects.isNull(service)) {
+            return false;
+        }
+
+        NetSessionMessage message = NetSessionMessage.ofPacket(this, packetId, packet);
+        synchronized (this.routeLock) {
+            if (Objects.nonNull(this.rebindTarget)) {
+                this.rebindStashQueue.offer(message);
+                return true;
+            }
+            // 加锁期间不会完成迁移，重新读取保证投递给最新的Service
+            this.deliver(this.boundService, message);
+        }
+        return true;
+    }
+
+    /**
+     * 不阻塞地投递到Service的消息队列，见{@link AbstractService#tryReceivedMessage}
+     */
+    private void deliver(AbstractService service, NetSessionMessage message) {
+        int packetId = message.getPacketId();
+        if (!service.tryReceivedMessage(null, message)) {
+            Log.FRAME.warn("[Net] session:{} packet:{} service:{} mailbox reject, drop!",
+                    this.sessionId, packetId, service.getServiceId());
+        }
+    }
+
+    /**
+     * @return 所属的Service，没有绑定时为{@code null}
+     */
+    public AbstractService getBoundService() {
+        return this.boundService;
+    }
+
+    /**
+     * @return 所属的Service标识，没有绑定时为{@code 0}
+     */
+    public long getBoundServiceId() {
+        AbstractService service = this.boundService;
+        return Objects.isNull(service) ? 0L : service.getServiceId();
+    }
+
+    /**
+     * @return 是否正在迁移到其他Service
+     */
+    public boolean isRebinding() {
+        synchronized (this.routeLock) {
+            return Objects.nonNull(this.rebindTarget);
+        }
+    }
+
+    /**
+     * 把消息编码为完整帧放入待发送缓冲，直到{@link #flush()}时才写入连接
+     *
+     * @return 写入之前待发送内容的字节数，{@code 0}代表会话由空变为有待发送内容，调用方需要负责之后的刷新；
+     * 连接已经不可用，或者待发送内容超出上限关闭连接时返回{@code -1}，消息丢弃
+     */
+    public int write(int packetId, @NonNull GeneratedMessageV3 message) {
+        if (!this.channel.isActive()) {
+            return -1;
+        }
+
+        int bodyLength = message.getSerializedSize();
+        int frameBytes = NetPacketCodec.LENGTH_FIELD_SIZE + NetPacketCodec.PACKET_ID_SIZE + bodyLength;
+        synchronized (this) {
+            int pendingBytes = this.pendingBytes;
+            if (this.isOverload(pendingBytes + frameBytes)) {
+                this.closeOnOverload(pendingBytes + frameBytes);
+                return -1;
+            }
+            ByteBuf buffer = this.pendingBuffer;
+            if (Objects.isNull(buffer)) {
+                buffer = this.channel.alloc().ioBuffer(Math.max(INIT_PENDING_CAPACITY, frameBytes));
+                this.pendingBuffer = buffer;
+            }
+
+            int writerIndex = buffer.writerIndex();
+            buffer.ensureWritable(frameBytes);
+            buffer.writeInt(NetPacketCodec.PACKET_ID_SIZE + bodyLength);
+            buffer.writeInt(packetId);
+            try {
+                writeMessage(buffer, message, bodyLength);
+            } catch (IOException e) {
+                // 回退到写入之前的位置，不影响已经放入的帧
+                buffer.writerIndex(writerIndex);
+                Log.FRAME.error("[Net] session:{} write packet:{} exception!", this.sessionId, packetId, e);
+                return pendingBytes;
+            }
+            this.pendingBytes += frameBytes;
+            this.pendingCount++;
+            return pendingBytes;
+        }
+    }
+
+    /**
+     * @param pendingBytes 写入之后的待发送字节数
+     * @return 是否超出单个会话待发送内容的上限(需要持有会话锁)
+     */
+    private boolean isOverload(int pendingBytes) {
+        int maxPendingBytes = FrameworkContext.INSTANCE.getSessionMaxPendingBytes();
+        return maxPendingBytes > 0 && pendingBytes > maxPendingBytes;
+    }
+
+    /**
+     * 对端接收过慢：丢弃所有待发送内容并关闭连接(需要持有会话锁)
+     * <p> 关闭只是提交到连接的IO线程，连接断开的回调不会在持有锁期间执行
+     */
+    private void closeOnOverload(int pendingBytes) {
+        Log.FRAME.warn("[Net] session:{} pending bytes:{} exceed limit:{}, channel writable:{}, close!", this.sessionId,
+                pendingBytes, FrameworkContext.INSTANCE.getSessionMaxPendingBytes(), this.channel.isWritable());
+        this.releasePending();
+        NetOutboundStatistics.INSTANCE.recordOverloadClose();
+        this.channel.close();
+    }
+
+    /**
+     * 释放所有待发送内容(需要持有会话锁)
+     */
+    private void releasePending() {
+        if (Objects.nonNull(this.pendingBufferList)) {
+            for (int i = 0, size = this.pendingBufferList.size(); i < size; i++) {
+                this.pendingBufferList.get(i).release();
+            }
+            this.pendingBufferList.clear();
+        }
+        if (Objects.nonNull(this.pendingBuffer)) {
+            this.pendingBuffer.release();
+            this.pendingBuffer = null;
+        }
+        this.pendingBytes = 0;
+        this.pendingCount = 0;
+    }
+
+    /**
+     * @return 是否有待发送的缓冲区(需要持有会话锁)
+     */
+    private boolean hasPending() {
+        return Objects.nonNull(this.pendingBuffer)
+                || (Objects.nonNull(this.pendingBufferList) && !this.pendingBufferList.isEmpty());
+    }
+
+    /**
+     * 协议直接序列化进缓冲区的{@code NIO}视图，避免中间的{@code byte[]}
+     */
+    static void writeMessage(ByteBuf buffer, GeneratedMessageV3 message, int bodyLength) throws IOException {
+        if (bodyLength == 0) {
+            return;
+        }
+
+        int writerIndex = buffer.writerIndex();
+        if (buffer.nioBufferCount() == 1) {
+            CodedOutputStream output = CodedOutputStream.newInstance(buffer.nioBuffer(writerIndex, bodyLength));
+            message.writeTo(output);
+            output.checkNoSpaceLeft();
+            buffer.writerIndex(writerIndex + bodyLength);
+            return;
+        }
+        message.writeTo(new ByteBufOutputStream(buffer));
+    }
+
+    /**
+     * 把所有待发送内容按照写入顺序写入连接，只刷新一次，缓冲区的所有权转移给连接，由连接写出之后释放
+     * <p> 连接不可写时不刷新，待发送内容留在会话中，恢复可写时由{@link NetSessionHandler}刷新
+     *
+     * @return 本次刷新的字节数，没有待发送内容，或者连接不可写时为{@code 0}
+     */
+    public int flush() {
+        int packetCount;
+        int bytes;
+        synchronized (this) {
+            if (!this.hasPending()) {
+                return 0;
+            }
+            if (!this.channel.isActive()) {
+                this.releasePending();
+                return 0;
+            }
+            if (!this.channel.isWritable()) {
+                return 0;
+            }
+            packetCount = this.pendingCount;
+            bytes = this.pendingBytes;
+            if (Objects.nonNull(this.pendingBufferList)) {
+                for (int i = 0, size = this.pendingBufferList.size(); i < size; i++) {
+                    this.channel.write(this.pendingBufferList.get(i), this.channel.voidPromise());
+                }
+                this.pendingBufferList.clear();
+            }
+            if (Objects.nonNull(this.pendingBuffer)) {
+                this.channel.write(this.pendingBuffer, this.channel.voidPromise());
+                this.pendingBuffer = null;
+            }
+            this.pendingBytes = 0;
+            this.pendingCount = 0;
+            // 加锁期间写入，保证与其他线程的写入顺序一致，写入本身只是提交到IO线程，所有缓冲区在同一次刷新中聚合写出
+            this.channel.flush();
+        }
+        NetOutboundStatistics.INSTANCE.record(packetCount, bytes);
+        return bytes;
+    }
+
+    /**
+     * 把一个已经编码好的共享帧（例如广播）加入待发送内容，排在已经写入的消息包之后，与之后写入的消息包一起刷新
+     * <p> 会话只持有共享帧的一个引用计数（{@link ByteBuf#retainedDuplicate()}），不复制内容，与普通消息包一样受待发送上限的约束
+     *
+     * @param frame 完整帧，调用方持有的引用不受影响
+     * @return 与{@link #write}相同：写入之前待发送内容的字节数，{@code 0}代表调用方需要负责之后的刷新；
+     * 连接已经不可用，或者待发送内容超出上限关闭连接时返回{@code -1}
+     */
+    public int writeShared(@NonNull ByteBuf frame) {
+        if (!this.channel.isActive()) {
+            return -1;
+        }
+
+        int frameBytes = frame.readableBytes();
+        synchronized (this) {
+            int pendingBytes = this.pendingBytes;
+            if (this.isOverload(pendingBytes + frameBytes)) {
+                this.closeOnOverload(pendingBytes + frameBytes);
+                return -1;
+            }
+            if (Objects.isNull(this.pendingBufferList)) {
+                this.pendingBufferList = new ArrayList<>();
+            }
+            // 正在追加的缓冲到此结束，之后写入的消息包编码进新的缓冲，保证发送顺序
+            if (Objects.nonNull(this.pendingBuffer)) {
+                this.pendingBufferList.add(this.pendingBuffer);
+                this.pendingBuffer = null;
+            }
+            this.pendingBufferList.add(frame.retainedDuplicate());
+            this.pendingBytes += frameBytes;
+            this.pendingCount++;
+            return pendingBytes;
+        }
+    }
+
+    /**
+     * 丢弃所有待发送内容，以及迁移期间暂存还没有投递的消息包，连接断开时调用
+     */
+    public void discard() {
+        synchronized (this) {
+            this.releasePending();
+        }
+        synchronized (this.routeLock) {
+            NetSessionMessage message;
+            while (Objects.nonNull(message = this.rebindStashQueue.poll())) {
+                message.recycle();
+            }
+        }
+    }
+
+    /**
+     * @return 所有待发送内容的字节数
+     */
+    public synchronized int getPendingBytes() {
+        return this.pendingBytes;
+    }
+
+    /**
+     * @return 待发送的消息包数量
+     */
+    public synchronized int getPendingCount() {
+        return this.pendingCount;
+    }
+
+    @Override
+    public String toString() {
+        return "NetSession{sessionId=" + this.sessionId + ", channel=" + this.channel + "}";
+    }
+}
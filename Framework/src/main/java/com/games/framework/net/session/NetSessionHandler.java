@@ -0,0 +1,46 @@
+package com.games.framework.net.session;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.util.Objects;
+
+/**
+ * 维护连接上的会话：连接建立时创建会话，连接恢复可写时刷新会话中积压的内容，连接断开时释放会话中还没有发送的内容，
+ * 以及迁移期间暂存还没有投递的消息包
+ *
+ * @author liu xuan jie
+ */
+@ChannelHandler.Sharable
+public final class NetSessionHandler extends ChannelInboundHandlerAdapter {
+
+    public static final NetSessionHandler INSTANCE = new NetSessionHandler();
+
+    private NetSessionHandler() {
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        NetSession.create(ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        NetSession session = NetSession.get(ctx.channel());
+        if (Objects.nonNull(session)) {
+            session.discard();
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        NetSession session = NetSession.get(ctx.channel());
+        if (Objects.nonNull(session) && ctx.channel().isWritable()) {
+            session.flush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+}
@@ -0,0 +1,92 @@
+package com.games.framework.net.session;
+
+import com.games.framework.component.packetkit.PacketDispatcher;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.games.framework.engine.service.ServiceMessagePool;
+import com.google.protobuf.GeneratedMessageV3;
+import lombok.Getter;
+
+/**
+ * 会话投递到所属Service的消息：解析之后的网络消息包，或者会话迁移的屏障
+ *
+ * <p> 网络消息包在所属Service的驱动线程中交给{@link PacketDispatcher}派发，处理方法的第一个参数是会话{@link NetSession}，
+ * 第二个参数是解析之后的协议。
+ * <p> 迁移屏障投递到迁移之前的Service，屏障之前的消息包全部处理之后才会切换到新的Service，见{@link NetSession#rebind}
+ *
+ * @author liu xuan jie
+ */
+@Getter
+public final class NetSessionMessage extends AbstractServiceMessage {
+
+    /**
+     * 会话消息的消息标识，所有网络消息包合并统计
+     */
+    public static final int SESSION_MESSAGE_MARK = -2;
+
+    private static final ServiceMessagePool<NetSessionMessage> POOL = ServiceMessagePool.of(NetSessionMessage::new);
+
+    private NetSession session;
+
+    /**
+     * 网络消息包的协议标识，迁移屏障为{@code 0}
+     */
+    private int packetId;
+
+    /**
+     * 解析之后的协议，迁移屏障为{@code null}
+     */
+    private GeneratedMessageV3 packet;
+
+    /**
+     * 是否是迁移屏障
+     */
+    private boolean rebind;
+
+    private NetSessionMessage() {
+        super(SESSION_MESSAGE_MARK);
+    }
+
+    static NetSessionMessage ofPacket(NetSession session, int packetId, GeneratedMessageV3 packet) {
+        NetSessionMessage message = POOL.borrowObject();
+        message.session = session;
+        message.packetId = packetId;
+        message.packet = packet;
+        return message;
+    }
+
+    static NetSessionMessage ofRebind(NetSession session) {
+        NetSessionMessage message = POOL.borrowObject();
+        message.session = session;
+        message.rebind = true;
+        return message;
+    }
+
+    /**
+     * @return 消息池中空闲的消息数量，用于监控池化的消息是否都已经归还
+     */
+    public static int getPoolIdleCount() {
+        return POOL.size();
+    }
+
+    /**
+     * 在所属Service的驱动线程中处理：网络消息包交给{@link PacketDispatcher}，迁移屏障交给会话
+     */
+    @Override
+    protected void dispatch(AbstractService service) {
+        if (this.rebind) {
+            this.session.completeRebind();
+            return;
+        }
+        PacketDispatcher.INSTANCE.dispatch(this.packetId, this.session, this.packet);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.session = null;
+        this.packetId = 0;
+        this.packet = null;
+        this.rebind = false;
+    }
+}
@@ -0,0 +1,105 @@
+package com.games.framework.net.tcp;
+
+import com.google.protobuf.CodedInputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.util.ReferenceCounted;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 接收的网络消息包，消息内容直接引用连接读缓冲区（池化{@link ByteBuf}）中的一段，不复制（引用计数）
+ *
+ * <p> 与{@link NetPacket}的区别：{@link NetPacket}持有{@code byte[]}，每个消息包都要从读缓冲区复制一次，并且产生垃圾。
+ * <p> 引用计数与消息内容的缓冲区共享，使用{@link io.netty.channel.SimpleChannelInboundHandler}处理时，派发之后自动释放；
+ * 需要在派发之后继续持有时，必须先{@link #retain()}，使用之后{@link #release()}。
+ *
+ * @author liu xuan jie
+ */
+public final class NetBufPacket implements ReferenceCounted {
+
+    /**
+     * 消息协议标识，不是实例对象id
+     */
+    @Getter
+    private final int id;
+
+    /**
+     * 消息具体内容，读缓冲区的切片
+     */
+    private final ByteBuf body;
+
+    private NetBufPacket(int id, ByteBuf body) {
+        this.id = id;
+        this.body = body;
+    }
+
+    /**
+     * @param body 消息内容，所有权转移给消息包，由消息包负责释放
+     */
+    public static NetBufPacket of(int id, @NonNull ByteBuf body) {
+        return new NetBufPacket(id, body);
+    }
+
+    /**
+     * @return 消息内容，只在消息包释放之前有效
+     */
+    public ByteBuf body() {
+        return this.body;
+    }
+
+    /**
+     * 直接从消息内容的{@code NIO}视图创建协议解析的输入流，堆外内存不会复制到堆内
+     * <p> 没有开启{@code aliasing}，解析出的协议不会引用缓冲区，缓冲区释放之后协议仍然有效
+     */
+    public CodedInputStream newCodedInput() {
+        if (this.body.nioBufferCount() == 1) {
+            return CodedInputStream.newInstance(this.body.nioBuffer());
+        }
+        return CodedInputStream.newInstance(new ByteBufInputStream(this.body.duplicate()));
+    }
+
+    @Override
+    public int refCnt() {
+        return this.body.refCnt();
+    }
+
+    @Override
+    public NetBufPacket retain() {
+        this.body.retain();
+        return this;
+    }
+
+    @Override
+    public NetBufPacket retain(int increment) {
+        this.body.retain(increment);
+        return this;
+    }
+
+    @Override
+    public NetBufPacket touch() {
+        this.body.touch();
+        return this;
+    }
+
+    @Override
+    public NetBufPacket touch(Object hint) {
+        this.body.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return this.body.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return this.body.release(decrement);
+    }
+
+    @Override
+    public String toString() {
+        return "NetBufPacket{id=" + this.id + ", length=" + this.body.readableBytes() + "}";
+    }
+}
@@ -0,0 +1,119 @@
+package com.games.framework.net.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 网络消息包的编解码（不允许实例化）
+ *
+ * <p> 帧格式：{@code | length(4) | packetId(4) | body(length - 4) |}，{@code length}不包括自身，大端序。
+ * <p> 服务器与客户端（包括测试客户端）共用同一套编解码，保证格式一致。
+ *
+ * @author liu xuan jie
+ */
+public final class NetPacketCodec {
+
+    /**
+     * 长度字段的字节数
+     */
+    public static final int LENGTH_FIELD_SIZE = 4;
+
+    /**
+     * 协议标识字段的字节数
+     */
+    public static final int PACKET_ID_SIZE = 4;
+
+    private NetPacketCodec() {
+    }
+
+    /**
+     * 在管道末尾添加解帧，解码，编码处理器
+     *
+     * @param maxFrameLength 单个消息包的最大长度（协议标识+消息内容）：字节
+     */
+    public static void addCodec(ChannelPipeline pipeline, int maxFrameLength) {
+        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(maxFrameLength, 0, LENGTH_FIELD_SIZE,
+                0, LENGTH_FIELD_SIZE));
+        pipeline.addLast("packetDecoder", Decoder.INSTANCE);
+        pipeline.addLast("packetEncoder", Encoder.INSTANCE);
+    }
+
+    /**
+     * 将去掉长度字段的完整帧解码为{@link NetBufPacket}，消息内容是帧的切片，不复制
+     * <p> 帧本身是连接读缓冲区的切片，解码之后由父类释放一次，消息包额外持有一次引用
+     */
+    @ChannelHandler.Sharable
+    static final class Decoder extends MessageToMessageDecoder<ByteBuf> {
+
+        static final Decoder INSTANCE = new Decoder();
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+            if (frame.readableBytes() < PACKET_ID_SIZE) {
+                throw new CorruptedFrameException("frame length less than packet id size: " + frame.readableBytes());
+            }
+
+            int packetId = frame.readInt();
+            out.add(NetBufPacket.of(packetId, frame.retainedSlice()));
+        }
+    }
+
+    /**
+     * 将{@link NetPacket}或者{@link NetBufPacket}编码为一个完整帧，长度字段，协议标识，消息内容写入同一个缓冲区
+     * <p> 编码之后由父类释放{@link NetBufPacket}
+     */
+    @ChannelHandler.Sharable
+    static final class Encoder extends MessageToByteEncoder<Object> {
+
+        static final Encoder INSTANCE = new Encoder();
+
+        @Override
+        public boolean acceptOutboundMessage(Object msg) {
+            return msg instanceof NetPacket || msg instanceof NetBufPacket;
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+            if (msg instanceof NetBufPacket) {
+                NetBufPacket packet = (NetBufPacket) msg;
+                ByteBuf body = packet.body();
+                out.writeInt(PACKET_ID_SIZE + body.readableBytes());
+                out.writeInt(packet.getId());
+                out.writeBytes(body, body.readerIndex(), body.readableBytes());
+                return;
+            }
+
+            NetPacket packet = (NetPacket) msg;
+            byte[] body = packet.getBody();
+            int bodyLength = Objects.isNull(body) ? 0 : body.length;
+            out.writeInt(PACKET_ID_SIZE + bodyLength);
+            out.writeInt(packet.getId());
+            if (bodyLength > 0) {
+                out.writeBytes(body);
+            }
+        }
+
+        @Override
+        protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Object msg, boolean preferDirect) {
+            int frameLength = LENGTH_FIELD_SIZE + PACKET_ID_SIZE + bodyLength(msg);
+            return preferDirect ? ctx.alloc().ioBuffer(frameLength) : ctx.alloc().heapBuffer(frameLength);
+        }
+
+        private static int bodyLength(Object msg) {
+            if (msg instanceof NetBufPacket) {
+                return ((NetBufPacket) msg).body().readableBytes();
+            }
+            byte[] body = ((NetPacket) msg).getBody();
+            return Objects.isNull(body) ? 0 : body.length;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.games.framework.net.tcp;
+
+import com.games.framework.component.packetkit.PacketDispatcher;
+import com.games.framework.component.protoparse.ProtoParseProxy;
+import com.games.framework.log.Log;
+import com.games.framework.net.session.NetSession;
+import com.google.protobuf.GeneratedMessageV3;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+
+import java.util.Objects;
+
+/**
+ * 默认的网络消息包处理器：按照协议标识解析协议，交给{@link PacketDispatcher}派发
+ *
+ * <p> 连接的会话绑定了所属的Service时，协议投递到该Service的消息队列，在Service的驱动线程中派发（见{@link NetSession#route}）；
+ * 没有绑定时（例如登录之前）直接在连接所属的IO线程中派发
+ * <p> 处理方法的第一个参数是会话{@link NetSession}，第二个参数是解析之后的协议
+ * <p> 协议直接从消息包的读缓冲区解析，解析之后消息包自动释放
+ *
+ * @author liu xuan jie
+ */
+@ChannelHandler.Sharable
+public final class NetPacketDispatchHandler extends SimpleChannelInboundHandler<NetBufPacket> {
+
+    public static final NetPacketDispatchHandler INSTANCE = new NetPacketDispatchHandler();
+
+    private NetPacketDispatchHandler() {
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, NetBufPacket packet) {
+        GeneratedMessageV3 message = ProtoParseProxy.INSTANCE.parseFrom(packet.getId(), packet.newCodedInput());
+        if (Objects.isNull(message)) {
+            Log.FRAME.warn("[Net] channel:{} unknown packet:{}!", ctx.channel(), packet);
+            return;
+        }
+
+        NetSession session = NetSession.get(ctx.channel());
+        if (Objects.isNull(session)) {
+            session = NetSession.create(ctx.channel());
+        }
+        if (!session.route(packet.getId(), message)) {
+            PacketDispatcher.INSTANCE.dispatch(packet.getId(), session, message);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        Log.FRAME.warn("[Net] channel:{} exception, close!", ctx.channel(), cause);
+        ctx.close();
+    }
+}
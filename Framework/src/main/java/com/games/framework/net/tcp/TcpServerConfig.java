@@ -0,0 +1,163 @@
+package com.games.framework.net.tcp;
+
+/**
+ * TCP-Server节点配置参数
+ * <p> 所有参数都有默认值，只有端口需要指定；节点启动之后修改不生效
+ *
+ * @author liu xuan jie
+ */
+public class TcpServerConfig {
+
+    /**
+     * 监听端口，{@code 0}代表由系统随机分配（测试使用）
+     */
+    private final int port;
+
+    /**
+     * 接收连接的线程数量，一个监听端口只需要一个
+     */
+    private int bossThreadCount = 1;
+
+    /**
+     * 处理读写的线程数量，小于等于{@code 0}代表使用{@code Netty}默认值（CPU核数的2倍）
+     */
+    private int workerThreadCount = 0;
+
+    /**
+     * 是否优先使用{@code epoll}（仅Linux可用），不可用时自动退化为{@code NIO}
+     */
+    private boolean preferEpoll = true;
+
+    /**
+     * 等待接收的连接队列长度
+     */
+    private int soBacklog = 1024;
+
+    /**
+     * 连接的接收缓冲区大小：字节
+     */
+    private int receiveBufferSize = 64 * 1024;
+
+    /**
+     * 连接的发送缓冲区大小：字节
+     */
+    private int sendBufferSize = 64 * 1024;
+
+    /**
+     * 单个消息包的最大长度（协议标识+消息内容）：字节，超出之后关闭连接
+     */
+    private int maxFrameLength = 1024 * 1024;
+
+    /**
+     * 是否关闭{@code Nagle}算法，游戏消息包普遍较小，默认关闭，降低延迟
+     */
+    private boolean tcpNoDelay = true;
+
+    /**
+     * 连接待发送数据的低水位：字节，低于该值时连接重新变为可写
+     */
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    /**
+     * 连接待发送数据的高水位：字节，超出之后连接变为不可写
+     */
+    private int writeBufferHighWaterMark = 64 * 1024;
+
+    private TcpServerConfig(int port) {
+        this.port = port;
+    }
+
+    public static TcpServerConfig newInstance(int port) {
+        return new TcpServerConfig(port);
+    }
+
+    public TcpServerConfig setBossThreadCount(int bossThreadCount) {
+        this.bossThreadCount = bossThreadCount;
+        return this;
+    }
+
+    public TcpServerConfig setWorkerThreadCount(int workerThreadCount) {
+        this.workerThreadCount = workerThreadCount;
+        return this;
+    }
+
+    public TcpServerConfig setPreferEpoll(boolean preferEpoll) {
+        this.preferEpoll = preferEpoll;
+        return this;
+    }
+
+    public TcpServerConfig setSoBacklog(int soBacklog) {
+        this.soBacklog = soBacklog;
+        return this;
+    }
+
+    public TcpServerConfig setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+        return this;
+    }
+
+    public TcpServerConfig setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+        return this;
+    }
+
+    public TcpServerConfig setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+        return this;
+    }
+
+    public TcpServerConfig setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public TcpServerConfig setWriteBufferWaterMark(int lowWaterMark, int highWaterMark) {
+        this.writeBufferLowWaterMark = lowWaterMark;
+        this.writeBufferHighWaterMark = highWaterMark;
+        return this;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBossThreadCount() {
+        return bossThreadCount;
+    }
+
+    public int getWorkerThreadCount() {
+        return workerThreadCount;
+    }
+
+    public boolean isPreferEpoll() {
+        return preferEpoll;
+    }
+
+    public int getSoBacklog() {
+        return soBacklog;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+}
@@ -1,12 +1,168 @@
 package com.games.framework.net.tcp;
 
+import com.games.framework.log.Log;
+import com.games.framework.net.session.NetSessionHandler;
+import com.romje.model.BoolResult;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
 /**
  * TCP-Server节点封装
- * <p> 目前网络框架层使用{@code Netty}
+ * <p> 目前网络框架层使用{@code Netty}，Linux下使用{@code epoll}，其他平台退化为{@code NIO}
+ *
+ * <p> 连接管道：解帧 -> 解码为{@link NetBufPacket}（不复制） -> 消息包处理器，发送{@link NetPacket}时编码为完整帧，
+ * 帧格式见{@link NetPacketCodec}。
  *
  * @author liu xuan jie
  */
 public class TcpServerNode {
 
+    @Getter
+    private final TcpServerConfig config;
+
+    /**
+     * 解码之后的消息包处理器，必须可以在多个连接之间共享
+     */
+    private final ChannelHandler packetHandler;
+
+    /**
+     * 是否使用{@code epoll}，启动之后有效
+     */
+    @Getter
+    private boolean epoll;
+
+    private EventLoopGroup bossGroup;
+
+    private EventLoopGroup workerGroup;
+
+    private Channel serverChannel;
+
+    private TcpServerNode(TcpServerConfig config, ChannelHandler packetHandler) {
+        this.config = config;
+        this.packetHandler = packetHandler;
+    }
+
+    /**
+     * 使用默认的消息包处理器{@link NetPacketDispatchHandler}
+     */
+    public static TcpServerNode of(@NonNull TcpServerConfig config) {
+        return of(config, NetPacketDispatchHandler.INSTANCE);
+    }
+
+    /**
+     * @param packetHandler 处理{@link NetBufPacket}的处理器，必须标识{@link ChannelHandler.Sharable}
+     */
+    public static TcpServerNode of(@NonNull TcpServerConfig config, @NonNull ChannelHandler packetHandler) {
+        if (!packetHandler.getClass().isAnnotationPresent(ChannelHandler.Sharable.class)) {
+            throw new IllegalArgumentException("packet handler must be sharable: " + packetHandler.getClass().getName());
+        }
+        return new TcpServerNode(config, packetHandler);
+    }
+
+    /**
+     * 启动节点，同步等待端口绑定完成
+     *
+     * @return 任何错误或者异常返回{@code false}，失败信息在{@link BoolResult#message()}中。
+     */
+    public synchronized BoolResult start() {
+        if (this.isRunning()) {
+            return BoolResult.fail("tcp server node already running, port: " + this.getLocalPort());
+        }
+
+        this.epoll = this.config.isPreferEpoll() && Epoll.isAvailable();
+        Class<? extends ServerChannel> channelClass;
+        if (this.epoll) {
+            this.bossGroup = new EpollEventLoopGroup(this.config.getBossThreadCount(), new DefaultThreadFactory("tcp-boss"));
+            this.workerGroup = new EpollEventLoopGroup(this.config.getWorkerThreadCount(), new DefaultThreadFactory("tcp-worker"));
+            channelClass = EpollServerSocketChannel.class;
+        } else {
+            this.bossGroup = new NioEventLoopGroup(this.config.getBossThreadCount(), new DefaultThreadFactory("tcp-boss"));
+            this.workerGroup = new NioEventLoopGroup(this.config.getWorkerThreadCount(), new DefaultThreadFactory("tcp-worker"));
+            channelClass = NioServerSocketChannel.class;
+        }
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(this.bossGroup, this.workerGroup)
+                .channel(channelClass)
+                .option(ChannelOption.SO_BACKLOG, this.config.getSoBacklog())
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.TCP_NODELAY, this.config.isTcpNoDelay())
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.SO_RCVBUF, this.config.getReceiveBufferSize())
+                .childOption(ChannelOption.SO_SNDBUF, this.config.getSendBufferSize())
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        this.config.getWriteBufferLowWaterMark(), this.config.getWriteBufferHighWaterMark()))
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        NetPacketCodec.addCodec(channel.pipeline(), TcpServerNode.this.config.getMaxFrameLength());
+                        channel.pipeline().addLast("sessionHandler", NetSessionHandler.INSTANCE);
+                        channel.pipeline().addLast("packetHandler", TcpServerNode.this.packetHandler);
+                    }
+                });
+
+        try {
+            this.serverChannel = bootstrap.bind(this.config.getPort()).sync().channel();
+        } catch (Exception e) {
+            this.stop();
+            return BoolResult.fail("tcp server node bind port: " + this.config.getPort() + " exception: " + e.getMessage());
+        }
+
+        Log.FRAME.info("[Net] tcp server node start, port:{}, transport:{}, worker threads:{}",
+                this.getLocalPort(), this.epoll ? "epoll" : "nio", ((MultithreadEventLoopGroup) this.workerGroup).executorCount());
+        return BoolResult.success();
+    }
+
+    /**
+     * 关闭节点，同步等待所有线程退出，已经建立的连接全部断开
+     */
+    public synchronized void stop() {
+        if (Objects.nonNull(this.serverChannel)) {
+            this.serverChannel.close().syncUninterruptibly();
+            this.serverChannel = null;
+        }
+        if (Objects.nonNull(this.bossGroup)) {
+            this.bossGroup.shutdownGracefully().syncUninterruptibly();
+            this.bossGroup = null;
+        }
+        if (Objects.nonNull(this.workerGroup)) {
+            this.workerGroup.shutdownGracefully().syncUninterruptibly();
+            this.workerGroup = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return Objects.nonNull(this.serverChannel) && this.serverChannel.isActive();
+    }
 
-}
\ No newline at end of file
+    /**
+     * @return 实际监听的端口，配置端口为{@code 0}时为系统分配的端口，没有启动返回{@code -1}
+     */
+    public synchronized int getLocalPort() {
+        if (Objects.isNull(this.serverChannel)) {
+            return -1;
+        }
+        return ((InetSocketAddress) this.serverChannel.localAddress()).getPort();
+    }
+}
@@ -1,20 +1,31 @@
 package com.games.framework.utils;
 
+import com.games.framework.component.eventkit.AbstractEventInvoker;
+import com.games.framework.component.eventkit.EventListenerEntry;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.dynamic.DynamicType;
 import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.Implementation;
 import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
 import net.bytebuddy.implementation.bytecode.assign.Assigner;
 import net.bytebuddy.jar.asm.ClassReader;
 import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
 import net.bytebuddy.jar.asm.MethodVisitor;
 import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.matcher.ElementMatchers;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -42,6 +53,12 @@ public final class ByteBuddyUtil {
 
     private static final String CLASS_FILE_EXTENSION = ".class";
 
+    private static final String EVENT_INVOKE_METHOD_NAME = "invoke";
+
+    private static final String EVENT_INVOKE_PROXY_METHOD_NAME = "invokeProxy";
+
+    private static final String EVENT_EXCEPTION_METHOD_NAME = "onException";
+
     private ByteBuddyUtil() {
     }
 
@@ -112,6 +129,166 @@ public final class ByteBuddyUtil {
         return dynamicType.load(classLoader, ClassLoadingStrategy.Default.INJECTION).getLoaded();
     }
 
+    /**
+     * 使用Byte Buddy动态生成一个{@link AbstractEventInvoker}的实现类，融合调用一个事件的所有监听方法。
+     * <p> 实现类的{@link AbstractEventInvoker#invoke(Object)}方法体按照{@code entries}的顺序，逐个直接调用监听方法，
+     * 每个调用单独包裹{@code try-catch(Exception)}，异常交给{@code onException}处理之后继续执行下一个监听方法。
+     * <p> 监听方法、所在类或者参数类型对生成类不可见时，该监听方法退化为{@code invokeProxy}代理调用。
+     *
+     * @param eventKey 事件唯一标识，用于生成类名
+     * @param entries  事件的所有监听方法信息（已经按照优先级排序），不允许为空
+     * @param isShow   是否将动态生成的类的字节码，输出保存到文件。{@code true}代表输出。
+     * @return {@link AbstractEventInvoker}的实现类的{@code Class}，并且已经加载到JVM内，
+     * 构造方法参数为{@code (int eventKey, EventListenerEntry[] entries)}。
+     */
+    public static Class<?> generateEventInvoker(int eventKey, EventListenerEntry[] entries, boolean isShow) throws IOException {
+        // 生成类使用第一个监听类的"类加载器"
+        Class<?> handler = entries[0].getListenMethod().getDeclaringClass();
+        ClassLoader classLoader = handler.getClassLoader();
+        String newClassName = handler.getName() + "$EVENT_INVOKER_" + Integer.toHexString(eventKey).toUpperCase();
+
+        boolean[] directFlags = new boolean[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            directFlags[i] = isDirectInvokable(entries[i].getListenMethod(), classLoader);
+        }
+
+        DynamicType.Builder<?> builder = new ByteBuddy()
+                .subclass(AbstractEventInvoker.class)
+                .name(newClassName)
+                .method(ElementMatchers.named(EVENT_INVOKE_METHOD_NAME))
+                .intercept(new Implementation.Simple(new EventInvokeAppender(entries, directFlags)))
+                .visit(new AsmVisitorWrapper.ForDeclaredMethods().writerFlags(ClassWriter.COMPUTE_FRAMES));
+
+        // 将类的字节码输出到文件
+        DynamicType.Unloaded<?> dynamicType = builder.make();
+        if (isShow) {
+            saveClassToFile(newClassName, dynamicType.getBytes());
+        }
+
+        // 加载并返回生成的类
+        return dynamicType.load(classLoader, ClassLoadingStrategy.Default.INJECTION).getLoaded();
+    }
+
+    /**
+     * 监听方法能否在生成类中直接调用：公开的静态方法，只有一个非基础类型的公开参数，并且对类加载器可见
+     */
+    private static boolean isDirectInvokable(Method method, ClassLoader classLoader) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (!Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())
+                || !Modifier.isPublic(declaringClass.getModifiers()) || method.getParameterCount() != 1) {
+            return false;
+        }
+
+        Class<?> paramType = method.getParameterTypes()[0];
+        if (paramType.isPrimitive() || !Modifier.isPublic(paramType.getModifiers())) {
+            return false;
+        }
+        return isVisible(declaringClass, classLoader) && isVisible(paramType, classLoader);
+    }
+
+    private static boolean isVisible(Class<?> clazz, ClassLoader classLoader) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, classLoader) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 生成{@link AbstractEventInvoker#invoke(Object)}的方法体，局部变量：0-this，1-param
+     * <pre>
+     * try { Listener0.method0((Param0) param); } catch (Exception e) { this.onException(e, 0); }
+     * try { this.invokeProxy(1, param); } catch (Exception e) { this.onException(e, 1); }
+     * ...
+     * </pre>
+     */
+    private static final class EventInvokeAppender implements ByteCodeAppender {
+
+        private static final String INVOKER_INTERNAL_NAME = Type.getInternalName(AbstractEventInvoker.class);
+
+        private static final String EXCEPTION_INTERNAL_NAME = Type.getInternalName(Exception.class);
+
+        private final EventListenerEntry[] entries;
+
+        private final boolean[] directFlags;
+
+        private EventInvokeAppender(EventListenerEntry[] entries, boolean[] directFlags) {
+            this.entries = entries;
+            this.directFlags = directFlags;
+        }
+
+        @Override
+        public Size apply(MethodVisitor methodVisitor, Implementation.Context implementationContext,
+                          MethodDescription instrumentedMethod) {
+            int count = this.entries.length;
+            Label[] startLabels = new Label[count];
+            Label[] endLabels = new Label[count];
+            Label[] handlerLabels = new Label[count];
+            Label[] nextLabels = new Label[count];
+            for (int i = 0; i < count; i++) {
+                startLabels[i] = new Label();
+                endLabels[i] = new Label();
+                handlerLabels[i] = new Label();
+                nextLabels[i] = new Label();
+                methodVisitor.visitTryCatchBlock(startLabels[i], endLabels[i], handlerLabels[i], EXCEPTION_INTERNAL_NAME);
+            }
+
+            for (int i = 0; i < count; i++) {
+                methodVisitor.visitLabel(startLabels[i]);
+                if (this.directFlags[i]) {
+                    Method method = this.entries[i].getListenMethod();
+                    methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+                    methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(method.getParameterTypes()[0]));
+                    methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(method.getDeclaringClass()),
+                            method.getName(), Type.getMethodDescriptor(method), method.getDeclaringClass().isInterface());
+                    int returnSize = Type.getReturnType(method).getSize();
+                    if (returnSize == 1) {
+                        methodVisitor.visitInsn(Opcodes.POP);
+                    } else if (returnSize == 2) {
+                        methodVisitor.visitInsn(Opcodes.POP2);
+                    }
+                } else {
+                    methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+                    pushInt(methodVisitor, i);
+                    methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+                    methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, INVOKER_INTERNAL_NAME,
+                            EVENT_INVOKE_PROXY_METHOD_NAME, "(ILjava/lang/Object;)V", false);
+                }
+                methodVisitor.visitLabel(endLabels[i]);
+                methodVisitor.visitJumpInsn(Opcodes.GOTO, nextLabels[i]);
+
+                // 栈顶为异常：this.onException(e, i)
+                methodVisitor.visitLabel(handlerLabels[i]);
+                methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+                methodVisitor.visitInsn(Opcodes.SWAP);
+                pushInt(methodVisitor, i);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, INVOKER_INTERNAL_NAME,
+                        EVENT_EXCEPTION_METHOD_NAME, "(Ljava/lang/Exception;I)V", false);
+                methodVisitor.visitLabel(nextLabels[i]);
+            }
+            methodVisitor.visitInsn(Opcodes.RETURN);
+            return new Size(3, instrumentedMethod.getStackSize());
+        }
+
+        private static void pushInt(MethodVisitor methodVisitor, int value) {
+            if (value <= 5) {
+                methodVisitor.visitInsn(Opcodes.ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                methodVisitor.visitIntInsn(Opcodes.BIPUSH, value);
+            } else if (value <= Short.MAX_VALUE) {
+                methodVisitor.visitIntInsn(Opcodes.SIPUSH, value);
+            } else {
+                methodVisitor.visitLdcInsn(value);
+            }
+        }
+    }
+
 
     /**
      * 将动态字节码技术生成的Class，输出到文件中展示代码
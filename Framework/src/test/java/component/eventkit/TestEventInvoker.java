@@ -0,0 +1,102 @@
+package component.eventkit;
+
+import com.games.framework.component.eventkit.AbstractEventInvoker;
+import com.games.framework.component.eventkit.EventListener;
+import com.games.framework.component.eventkit.EventListenerEntry;
+import com.games.framework.constants.PriorityEnum;
+import com.games.framework.utils.ByteBuddyUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestEventInvoker {
+
+    private static final int EVENT_KEY = 7;
+
+    @Test
+    public void testInvokeInOrder() throws Exception {
+        TestEventListener.RECORD_LIST.clear();
+        AbstractEventInvoker invoker = newInvoker(EVENT_KEY,
+                entryOf(TestEventListener.class, "onHighest"),
+                entryOf(TestEventListener.class, "onThrow"),
+                entryOf(TestEventListener.class, "onCommon"),
+                entryOf(TestEventListener.class, "onLowest"));
+        Assertions.assertEquals(EVENT_KEY, invoker.getEventKey());
+        Assertions.assertEquals(4, invoker.listenerCount());
+
+        // 中间的监听方法抛出异常，不影响后续监听方法执行
+        invoker.invoke("level up");
+        Assertions.assertEquals(List.of("highest:level up", "throw", "common:level up", "lowest:level up"),
+                TestEventListener.RECORD_LIST);
+    }
+
+    @Test
+    public void testProxyFallback() throws Exception {
+        TestEventListener.RECORD_LIST.clear();
+        // 非public的监听类无法直接调用，退化为代理调用（生成类的类名由事件标识区分）
+        AbstractEventInvoker invoker = newInvoker(EVENT_KEY + 1,
+                entryOf(TestEventListener.class, "onHighest"),
+                entryOf(HiddenEventListener.class, "onHidden", param -> HiddenEventListener.onHidden((String) param)),
+                entryOf(TestEventListener.class, "onLowest"));
+
+        invoker.invoke("login");
+        Assertions.assertEquals(List.of("highest:login", "hidden:login", "lowest:login"), TestEventListener.RECORD_LIST);
+    }
+
+    private static AbstractEventInvoker newInvoker(int eventKey, EventListenerEntry... entries) throws Exception {
+        Class<?> clazz = ByteBuddyUtil.generateEventInvoker(eventKey, entries, false);
+        return (AbstractEventInvoker) clazz.getConstructor(int.class, EventListenerEntry[].class).newInstance(eventKey, entries);
+    }
+
+    private static EventListenerEntry entryOf(Class<?> listenClass, String methodName) throws Exception {
+        // 可以直接调用的监听方法不会使用代理
+        return entryOf(listenClass, methodName, param -> Assertions.fail("proxy should not be called"));
+    }
+
+    private static EventListenerEntry entryOf(Class<?> listenClass, String methodName, Consumer<Object> consumer)
+            throws Exception {
+        Method method = listenClass.getDeclaredMethod(methodName, String.class);
+        return EventListenerEntry.of(listenClass, method, method.getAnnotation(EventListener.class), consumer);
+    }
+
+    public static class TestEventListener {
+
+        static final List<String> RECORD_LIST = new ArrayList<>();
+
+        @EventListener(value = EVENT_KEY, priority = PriorityEnum.HIGHEST)
+        public static void onHighest(String param) {
+            RECORD_LIST.add("highest:" + param);
+        }
+
+        @EventListener(value = EVENT_KEY, priority = PriorityEnum.HIGHEST, innerOrder = 1)
+        public static void onThrow(String param) {
+            RECORD_LIST.add("throw");
+            throw new IllegalStateException("test listener exception");
+        }
+
+        @EventListener(EVENT_KEY)
+        public static void onCommon(String param) {
+            RECORD_LIST.add("common:" + param);
+        }
+
+        @EventListener(value = EVENT_KEY, priority = PriorityEnum.LOWEST)
+        public static void onLowest(String param) {
+            RECORD_LIST.add("lowest:" + param);
+        }
+    }
+
+    static class HiddenEventListener {
+
+        @EventListener(EVENT_KEY)
+        public static void onHidden(String param) {
+            TestEventListener.RECORD_LIST.add("hidden:" + param);
+        }
+    }
+}
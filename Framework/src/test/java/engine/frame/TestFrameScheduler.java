@@ -0,0 +1,83 @@
+package engine.frame;
+
+import com.games.framework.constants.FrameLagPolicyEnum;
+import com.games.framework.engine.frame.FrameScheduler;
+import com.romje.constants.TimeConst;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestFrameScheduler {
+
+    private static final long INTERVAL_NANOS = 100L * TimeConst.NANOS_OF_MILLI;
+
+    @Test
+    public void testTimelineNoDrift() {
+        TestManualClock clock = new TestManualClock();
+        FrameScheduler scheduler = FrameScheduler.of(clock, 100, FrameLagPolicyEnum.SKIP);
+        scheduler.start();
+
+        // 第一帧立即执行
+        Assertions.assertEquals(0L, scheduler.awaitNextFrame());
+        Assertions.assertEquals(INTERVAL_NANOS, scheduler.getNextFrameNanos());
+
+        // 每一帧都迟到3毫秒，时间线仍然按照预定时间推进，不累积误差
+        for (int i = 1; i <= 10; i++) {
+            clock.updateTimeTo(i * 100L + 3);
+            scheduler.awaitNextFrame();
+            Assertions.assertEquals((i + 1) * INTERVAL_NANOS, scheduler.getNextFrameNanos());
+        }
+        Assertions.assertEquals(11, scheduler.getStatistics().getFrameCount());
+        Assertions.assertEquals(10, scheduler.getStatistics().getLateFrameCount());
+        Assertions.assertEquals(0, scheduler.getStatistics().getMissedFrameCount());
+        Assertions.assertEquals(3L * TimeConst.NANOS_OF_MILLI, scheduler.getStatistics().getMaxLatenessNanos());
+    }
+
+    @Test
+    public void testSkipPolicy() {
+        TestManualClock clock = new TestManualClock();
+        FrameScheduler scheduler = FrameScheduler.of(clock, 100, FrameLagPolicyEnum.SKIP);
+        scheduler.start();
+        scheduler.awaitNextFrame();
+
+        // 落后3.5帧，跳过3帧，下一帧对齐到400ms
+        clock.updateTimeTo(450);
+        scheduler.awaitNextFrame();
+        Assertions.assertEquals(3, scheduler.getStatistics().getMissedFrameCount());
+        Assertions.assertEquals(5 * INTERVAL_NANOS, scheduler.getNextFrameNanos());
+    }
+
+    @Test
+    public void testCatchUpPolicy() {
+        TestManualClock clock = new TestManualClock();
+        FrameScheduler scheduler = FrameScheduler.of(clock, 100, FrameLagPolicyEnum.CATCH_UP).setMaxCatchUpFrames(2);
+        scheduler.start();
+        scheduler.awaitNextFrame();
+
+        // 落后5帧，连续追帧2次之后，剩余落后的帧直接跳过
+        clock.updateTimeTo(650);
+        scheduler.awaitNextFrame();
+        Assertions.assertEquals(2 * INTERVAL_NANOS, scheduler.getNextFrameNanos());
+        scheduler.awaitNextFrame();
+        Assertions.assertEquals(3 * INTERVAL_NANOS, scheduler.getNextFrameNanos());
+        scheduler.awaitNextFrame();
+        Assertions.assertEquals(3, scheduler.getStatistics().getMissedFrameCount());
+        Assertions.assertEquals(7 * INTERVAL_NANOS, scheduler.getNextFrameNanos());
+    }
+
+    @Test
+    public void testClockRollback() {
+        TestManualClock clock = new TestManualClock();
+        clock.updateTimeTo(10_000);
+        FrameScheduler scheduler = FrameScheduler.of(clock, 100, FrameLagPolicyEnum.SKIP);
+        scheduler.start();
+        scheduler.awaitNextFrame();
+
+        // 时钟被回拨，不允许一直等待，直接以当前时间重建时间线
+        clock.updateTimeTo(1_000);
+        Assertions.assertEquals(1_000L * TimeConst.NANOS_OF_MILLI, scheduler.awaitNextFrame());
+        Assertions.assertEquals(1_100L * TimeConst.NANOS_OF_MILLI, scheduler.getNextFrameNanos());
+    }
+}
@@ -0,0 +1,38 @@
+package engine.frame;
+
+import com.romje.component.clock.IClock;
+import com.romje.constants.TimeConst;
+
+/**
+ * 测试使用的手动时钟，时间只由测试代码推进
+ *
+ * @author liu xuan jie
+ */
+public class TestManualClock implements IClock {
+
+    private long nanoTime;
+
+    public void advanceMillis(long millis) {
+        this.nanoTime += millis * TimeConst.NANOS_OF_MILLI;
+    }
+
+    @Override
+    public void updateTimeTo(long millisTimestamp) {
+        this.nanoTime = millisTimestamp * TimeConst.NANOS_OF_MILLI;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return this.nanoTime / TimeConst.NANOS_OF_MILLI;
+    }
+
+    @Override
+    public long secondTimestamp() {
+        return this.currentTimeMillis() / TimeConst.MILLIS_OF_SECOND;
+    }
+
+    @Override
+    public long nanoTime() {
+        return this.nanoTime;
+    }
+}
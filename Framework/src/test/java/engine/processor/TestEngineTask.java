@@ -0,0 +1,187 @@
+package engine.processor;
+
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.FixedThreadExecutor;
+import com.games.framework.engine.processor.TaskProcessor;
+import com.games.framework.engine.processor.TickOverrunRecord;
+import com.games.framework.engine.processor.TickOverrunRecorder;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.romje.component.clock.IClock;
+import engine.frame.TestManualClock;
+import engine.service.TestNoopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestEngineTask {
+
+    private static final int FRAME_RATE = 100;
+
+    private static final int IDLE_FRAME_RATE = 800;
+
+    private IClock originClock;
+
+    private TestManualClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        this.originClock = FrameworkContext.INSTANCE.getClock();
+        this.clock = new TestManualClock();
+        FrameworkContext.INSTANCE.setClock(this.clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FrameworkContext.INSTANCE.setClock(this.originClock);
+    }
+
+    @Test
+    public void testAdaptiveFrameRate() {
+        IdleService service = new IdleService(1);
+        EngineTask engineTask = EngineTask.newInstance(FRAME_RATE, IDLE_FRAME_RATE, service);
+
+        // 空闲时帧率逐步翻倍，直到降频下限
+        int[] expectFrameRates = {200, 400, 800, 800};
+        for (int expectFrameRate : expectFrameRates) {
+            this.clock.advanceMillis(engineTask.getCurFrameRate());
+            Assertions.assertTrue(engineTask.requireExe(this.clock.currentTimeMillis()));
+            engineTask.run();
+            Assertions.assertEquals(expectFrameRate, engineTask.getCurFrameRate());
+        }
+
+        // 降频期间收到消息，正常帧率即可驱动
+        this.clock.advanceMillis(FRAME_RATE);
+        Assertions.assertFalse(engineTask.requireExe(this.clock.currentTimeMillis()));
+        service.receivedMessage(null, new AbstractServiceMessage(1) {
+        });
+        Assertions.assertTrue(engineTask.requireExe(this.clock.currentTimeMillis()));
+        engineTask.run();
+        Assertions.assertFalse(service.hasMessage());
+        Assertions.assertEquals(IDLE_FRAME_RATE, engineTask.getCurFrameRate());
+
+        // 逻辑不再空闲，立即恢复正常帧率
+        service.logicIdle = false;
+        this.clock.advanceMillis(IDLE_FRAME_RATE);
+        engineTask.run();
+        Assertions.assertEquals(FRAME_RATE, engineTask.getCurFrameRate());
+    }
+
+    @Test
+    public void testArmedTimerNotIdle() {
+        IdleService service = new IdleService(3);
+        EngineTask engineTask = EngineTask.newInstance(FRAME_RATE, IDLE_FRAME_RATE, service);
+
+        // 有等待到期的定时任务时不降频，保证定时任务按时触发
+        int[] fireCount = new int[1];
+        service.schedule(FRAME_RATE * 5 / 2, (timerId, millisTimestamp) -> fireCount[0]++);
+        for (int i = 0; i < 2; i++) {
+            this.clock.advanceMillis(engineTask.getCurFrameRate());
+            engineTask.run();
+            Assertions.assertEquals(FRAME_RATE, engineTask.getCurFrameRate());
+        }
+        Assertions.assertEquals(0, fireCount[0]);
+
+        // 定时任务触发之后恢复降频
+        this.clock.advanceMillis(engineTask.getCurFrameRate());
+        engineTask.run();
+        Assertions.assertEquals(1, fireCount[0]);
+        Assertions.assertEquals(FRAME_RATE * 2, engineTask.getCurFrameRate());
+    }
+
+    @Test
+    public void testNonAdaptive() {
+        IdleService service = new IdleService(2);
+        EngineTask engineTask = EngineTask.newInstance(FRAME_RATE, FRAME_RATE, service);
+        this.clock.advanceMillis(FRAME_RATE);
+        engineTask.run();
+        Assertions.assertEquals(FRAME_RATE, engineTask.getCurFrameRate());
+    }
+
+    @Test
+    public void testOverrunRecord() {
+        // 看门狗的检查间隔远小于驱动耗时，保证能够采样到线程栈
+        int originInterval = FrameworkContext.INSTANCE.getServiceTickWatchdogIntervalMillis();
+        FrameworkContext.INSTANCE.setServiceTickWatchdogIntervalMillis(1);
+        try {
+            this.testOverrunRecord0();
+        } finally {
+            FrameworkContext.INSTANCE.setServiceTickWatchdogIntervalMillis(originInterval);
+        }
+    }
+
+    private void testOverrunRecord0() {
+        TaskProcessor taskProcessor = TaskProcessor.getInstance().init(FixedThreadExecutor.newInstance(1));
+        SlowService service = new SlowService(9009);
+        EngineTask engineTask = EngineTask.newInstance(FRAME_RATE, FRAME_RATE, service).setBudgetMillis(5);
+        service.receivedMessage(null, new AbstractServiceMessage(7) {
+        });
+        taskProcessor.addEngineTask(engineTask);
+
+        // 手动时钟只推进一帧，只会驱动一次
+        this.clock.advanceMillis(FRAME_RATE);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (engineTask.getTickHistogram().count() <= 0L || taskProcessor.handlingCount() > 0) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "service not ticked in time");
+            taskProcessor.tick(0);
+            LockSupport.parkNanos(1_000_000L);
+        }
+
+        TickOverrunRecord record = TickOverrunRecorder.INSTANCE.snapshot().stream()
+                .filter(overrunRecord -> overrunRecord.getServiceId() == service.getServiceId())
+                .findFirst().orElse(null);
+        Assertions.assertNotNull(record);
+        System.out.println(record);
+        Assertions.assertTrue(record.getCostNanos() > record.getBudgetNanos());
+        Assertions.assertEquals(1, record.getMessageCount());
+        Assertions.assertArrayEquals(new int[]{7}, record.getMessageMarks());
+        Assertions.assertNotNull(record.getStackTrace());
+        Assertions.assertTrue(engineTask.getTickHistogram().maxNanos() >= SlowService.SLOW_NANOS);
+    }
+
+    /**
+     * 每次驱动的逻辑都远超预算
+     */
+    static class SlowService extends AbstractService {
+
+        private static final long SLOW_NANOS = 50_000_000L;
+
+        SlowService(int serviceId) {
+            super(serviceId);
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void tickLogic(long millisTimestamp) {
+            long endNanos = System.nanoTime() + SLOW_NANOS;
+            while (System.nanoTime() < endNanos) {
+                LockSupport.parkNanos(endNanos - System.nanoTime());
+            }
+        }
+    }
+
+    static class IdleService extends TestNoopService {
+
+        private boolean logicIdle = true;
+
+        IdleService(int serviceId) {
+            super(serviceId);
+        }
+
+        @Override
+        protected boolean isLogicIdle() {
+            return this.logicIdle;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package engine.processor;
+
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.FixedServiceExecutor;
+import com.games.framework.engine.processor.TaskProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestFixedServiceExecutor {
+
+    private static final int THREAD_COUNT = 2;
+
+    private static final int SERVICE_COUNT = 8;
+
+    @Test
+    public void testRebalance() {
+        FixedServiceExecutor executor = FixedServiceExecutor.newInstance(THREAD_COUNT, 50L);
+        TaskProcessor taskProcessor = TaskProcessor.getInstance().init(executor);
+
+        // 按照取模分配，所有Service初始都在0号线程上，只有迁移才能让1号线程参与
+        AtomicInteger concurrentCount = new AtomicInteger();
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            TestWorkStealingExecutor.BusyService service =
+                    new TestWorkStealingExecutor.BusyService(i * THREAD_COUNT, concurrentCount);
+            taskProcessor.addEngineTask(EngineTask.newInstance(0, service));
+        }
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (executor.getMigratedCount() <= 0) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "services not migrated in time");
+            taskProcessor.tick(0);
+            LockSupport.parkNanos(100_000L);
+        }
+
+        FixedServiceExecutor.ThreadStatistics[] statistics = executor.snapshotStatistics();
+        System.out.println(Arrays.toString(statistics));
+        Assertions.assertEquals(THREAD_COUNT, statistics.length);
+        Assertions.assertTrue(statistics[1].getServiceIds().length > 0);
+        Assertions.assertEquals(SERVICE_COUNT, statistics[0].getServiceIds().length + statistics[1].getServiceIds().length);
+        Assertions.assertEquals(0, concurrentCount.get());
+    }
+}
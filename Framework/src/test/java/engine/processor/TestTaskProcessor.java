@@ -0,0 +1,115 @@
+package engine.processor;
+
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.FixedThreadExecutor;
+import com.games.framework.engine.processor.FramePhaseStatistics;
+import com.games.framework.engine.processor.TaskProcessor;
+import com.games.framework.engine.service.AbstractService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import performance.TestEmptyService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestTaskProcessor {
+
+    private static final int SERVICE_COUNT = 100;
+
+    private static final int TICK_COUNT = 5;
+
+    @Test
+    public void testCompletionDriven() {
+        // 线程数量远小于任务数量，验证任务完成之后可以被再次驱动
+        TaskProcessor taskProcessor = TaskProcessor.getInstance().init(FixedThreadExecutor.newInstance(2));
+        List<TestEmptyService> serviceList = new ArrayList<>();
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            TestEmptyService service = new TestEmptyService(i);
+            serviceList.add(service);
+            taskProcessor.addEngineTask(EngineTask.newInstance(0, service));
+        }
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (serviceList.stream().anyMatch(service -> service.getTickCount() < TICK_COUNT)) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "services not ticked in time");
+            Assertions.assertTrue(taskProcessor.handlingCount() <= 2);
+            taskProcessor.tick(0);
+            LockSupport.parkNanos(100_000L);
+        }
+        Assertions.assertEquals(SERVICE_COUNT, taskProcessor.taskCount());
+    }
+
+    @Test
+    public void testPhaseBarrier() {
+        String[] phaseNames = {"scene", "world", "network"};
+        TaskProcessor taskProcessor = TaskProcessor.getInstance().init(FixedThreadExecutor.newInstance(4), phaseNames);
+
+        // 故意按照阶段倒序添加，验证执行顺序只与阶段有关
+        ConcurrentLinkedQueue<Integer> tickPhaseQueue = new ConcurrentLinkedQueue<>();
+        for (int phase = phaseNames.length - 1; phase >= 0; phase--) {
+            for (int i = 0; i < SERVICE_COUNT; i++) {
+                PhaseService service = new PhaseService(phase * SERVICE_COUNT + i, phase, tickPhaseQueue);
+                taskProcessor.addEngineTask(EngineTask.newInstance(0, service).setPhase(phase));
+            }
+        }
+
+        for (int frame = 0; frame < TICK_COUNT; frame++) {
+            tickPhaseQueue.clear();
+            taskProcessor.tick(0);
+
+            // 阶段之间有屏障，一帧结束时所有任务都已经完成，并且阶段顺序单调不减
+            Assertions.assertEquals(0, taskProcessor.handlingCount());
+            Assertions.assertEquals(SERVICE_COUNT * phaseNames.length, tickPhaseQueue.size());
+            int lastPhase = 0;
+            for (int phase : tickPhaseQueue) {
+                Assertions.assertTrue(phase >= lastPhase);
+                lastPhase = phase;
+            }
+        }
+
+        FramePhaseStatistics[] statistics = taskProcessor.phaseStatistics();
+        System.out.println(Arrays.toString(statistics));
+        Assertions.assertEquals(phaseNames.length, statistics.length);
+        for (FramePhaseStatistics phaseStatistics : statistics) {
+            Assertions.assertEquals(SERVICE_COUNT, phaseStatistics.getTaskCount());
+            Assertions.assertEquals(SERVICE_COUNT, phaseStatistics.getLastSubmitCount());
+            Assertions.assertEquals(TICK_COUNT, phaseStatistics.getFrameCount());
+        }
+    }
+
+    /**
+     * 每次驱动记录自己所属的阶段
+     */
+    static class PhaseService extends AbstractService {
+
+        private final int phase;
+
+        private final ConcurrentLinkedQueue<Integer> tickPhaseQueue;
+
+        PhaseService(int serviceId, int phase, ConcurrentLinkedQueue<Integer> tickPhaseQueue) {
+            super(serviceId);
+            this.phase = phase;
+            this.tickPhaseQueue = tickPhaseQueue;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void tick(long millisTimestamp) {
+            this.tickPhaseQueue.offer(this.phase);
+        }
+
+        @Override
+        public void tickLogic(long millisTimestamp) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package engine.processor;
+
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.TaskProcessor;
+import com.games.framework.engine.processor.WorkStealingExecutor;
+import com.games.framework.engine.service.AbstractService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestWorkStealingExecutor {
+
+    private static final int THREAD_COUNT = 4;
+
+    private static final int SERVICE_COUNT = 32;
+
+    private static final int TICK_COUNT = 5;
+
+    @Test
+    public void testStealAndSerialize() {
+        WorkStealingExecutor executor = WorkStealingExecutor.newInstance(THREAD_COUNT);
+        TaskProcessor taskProcessor = TaskProcessor.getInstance().init(executor);
+
+        // 所有Service的亲和线程都是0号线程，只有窃取才能让其他线程参与
+        AtomicInteger concurrentCount = new AtomicInteger();
+        List<BusyService> serviceList = new ArrayList<>();
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            BusyService service = new BusyService(i * THREAD_COUNT, concurrentCount);
+            serviceList.add(service);
+            taskProcessor.addEngineTask(EngineTask.newInstance(0, service));
+        }
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (serviceList.stream().anyMatch(service -> service.tickCount < TICK_COUNT)) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "services not ticked in time");
+            taskProcessor.tick(0);
+            LockSupport.parkNanos(100_000L);
+        }
+
+        WorkStealingExecutor.WorkerStatistics[] statistics = executor.snapshotStatistics();
+        System.out.println(Arrays.toString(statistics));
+        Assertions.assertEquals(0, concurrentCount.get());
+        Assertions.assertTrue(Arrays.stream(statistics).mapToLong(WorkStealingExecutor.WorkerStatistics::getStealCount).sum() > 0);
+        Assertions.assertTrue(statistics[1].getExecutedCount() > 0);
+    }
+
+    /**
+     * 每次驱动忙等一段时间，同时检查是否被并发驱动
+     */
+    static class BusyService extends AbstractService {
+
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private final AtomicInteger concurrentCount;
+
+        private volatile int tickCount;
+
+        BusyService(int serviceId, AtomicInteger concurrentCount) {
+            super(serviceId);
+            this.concurrentCount = concurrentCount;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void tick(long millisTimestamp) {
+            if (!this.running.compareAndSet(false, true)) {
+                this.concurrentCount.incrementAndGet();
+                return;
+            }
+
+            long endNanos = System.nanoTime() + 200_000L;
+            while (System.nanoTime() < endNanos) {
+                Thread.onSpinWait();
+            }
+            this.tickCount++;
+            this.running.set(false);
+        }
+
+        @Override
+        public void tickLogic(long millisTimestamp) {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package engine.service;
+
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.engine.service.ServiceMailbox;
+
+/**
+ * 单元测试使用的空Service，没有任何业务逻辑，只用于接收和处理消息
+ *
+ * @author liu xuan jie
+ */
+public class TestNoopService extends AbstractService {
+
+    public TestNoopService(int serviceId) {
+        super(serviceId);
+    }
+
+    public TestNoopService(int serviceId, int mailboxCapacity, MailboxOverflowPolicyEnum overflowPolicy) {
+        super(serviceId, mailboxCapacity, overflowPolicy);
+    }
+
+    public TestNoopService(int serviceId, ServiceMailbox mailbox) {
+        super(serviceId, mailbox);
+    }
+
+    @Override
+    public boolean init() {
+        return true;
+    }
+
+    @Override
+    public void tickLogic(long millisTimestamp) {
+    }
+}
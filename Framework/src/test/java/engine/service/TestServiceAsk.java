@@ -0,0 +1,117 @@
+package engine.service;
+
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.constants.ServiceAskResultEnum;
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.romje.component.clock.IClock;
+import engine.frame.TestManualClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceAsk {
+
+    private IClock originClock;
+
+    private TestManualClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        this.originClock = FrameworkContext.INSTANCE.getClock();
+        this.clock = new TestManualClock();
+        FrameworkContext.INSTANCE.setClock(this.clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FrameworkContext.INSTANCE.setClock(this.originClock);
+    }
+
+    @Test
+    public void testReply() {
+        TestNoopService requester = new TestNoopService(1);
+        TestNoopService responder = new TestNoopService(2);
+        List<ServiceAskResultEnum> resultList = new ArrayList<>();
+        List<Integer> valueList = new ArrayList<>();
+        requester.<ValueMessage>ask(responder, new ValueMessage(7), 1_000L).onComplete((result, reply) -> {
+            resultList.add(result);
+            valueList.add(reply.value);
+        });
+        Assertions.assertEquals(1, requester.getPendingAskCount());
+
+        // 模拟目标Service的处理方法应答
+        AbstractServiceMessage request = responder.getMailbox().poll();
+        Assertions.assertTrue(responder.reply(request, new ValueMessage(((ValueMessage) request).value * 2)));
+        Assertions.assertTrue(resultList.isEmpty());
+
+        // 应答在发起方自身的驱动中回调
+        requester.tick(this.clock.currentTimeMillis());
+        Assertions.assertEquals(List.of(ServiceAskResultEnum.SUCCESS), resultList);
+        Assertions.assertEquals(List.of(14), valueList);
+        Assertions.assertEquals(0, requester.getPendingAskCount());
+
+        // 应答消息不会再次应答
+        Assertions.assertFalse(requester.reply(new ValueMessage(0), new ValueMessage(0)));
+    }
+
+    @Test
+    public void testTimeout() {
+        TestNoopService requester = new TestNoopService(1);
+        TestNoopService responder = new TestNoopService(2);
+        List<ServiceAskResultEnum> resultList = new ArrayList<>();
+        requester.ask(responder, new ValueMessage(1), 100L).onComplete((result, reply) -> {
+            resultList.add(result);
+            Assertions.assertNull(reply);
+        });
+
+        this.clock.advanceMillis(50L);
+        requester.tick(this.clock.currentTimeMillis());
+        Assertions.assertTrue(resultList.isEmpty());
+
+        this.clock.advanceMillis(100L);
+        requester.tick(this.clock.currentTimeMillis());
+        Assertions.assertEquals(List.of(ServiceAskResultEnum.TIMEOUT), resultList);
+
+        // 超时之后到达的应答直接丢弃
+        responder.reply(responder.getMailbox().poll(), new ValueMessage(2));
+        requester.tick(this.clock.currentTimeMillis());
+        Assertions.assertEquals(1, resultList.size());
+        Assertions.assertEquals(0, requester.getPendingAskCount());
+    }
+
+    @Test
+    public void testRejected() {
+        TestNoopService requester = new TestNoopService(1);
+        TestNoopService responder = new TestNoopService(2, 2, MailboxOverflowPolicyEnum.REJECT);
+        List<ServiceAskResultEnum> resultList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requester.ask(responder, new ValueMessage(i), 100L).onComplete((result, reply) -> resultList.add(result));
+        }
+        Assertions.assertEquals(List.of(ServiceAskResultEnum.REJECTED), resultList);
+        Assertions.assertEquals(2, requester.getPendingAskCount());
+    }
+
+    static class ValueMessage extends AbstractServiceMessage {
+
+        int value;
+
+        ValueMessage(int value) {
+            super(1);
+            this.value = value;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            this.value = 0;
+        }
+    }
+}
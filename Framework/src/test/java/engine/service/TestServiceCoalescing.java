@@ -0,0 +1,247 @@
+package engine.service;
+
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.games.framework.engine.service.ServiceCoalescingTable;
+import com.games.framework.engine.service.ServiceMailbox;
+import com.games.framework.engine.service.ServiceMessagePool;
+import com.romje.component.pool.object.ObjectPoolConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceCoalescing {
+
+    @Test
+    public void testCoalesceByKey() {
+        CoalescingService service = new CoalescingService(true);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(service.sendCoalesced(service, new PowerMessage(), 1L));
+            Assertions.assertTrue(service.sendCoalesced(service, new PowerMessage(), 2L));
+        }
+        ServiceCoalescingTable table = service.getCoalescingTable();
+        Assertions.assertEquals(2, service.getMailbox().size());
+        Assertions.assertEquals(198L, table.getCoalescedCount());
+        Assertions.assertEquals(0L, table.getCollisionCount());
+
+        service.tick(0L);
+        Assertions.assertEquals(2, service.getTickMessageCount());
+        Assertions.assertFalse(service.hasMessage());
+    }
+
+    @Test
+    public void testRecycleReplaced() {
+        ServiceMessagePool<PowerMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), PowerMessage::new);
+        CoalescingService service = new CoalescingService(true);
+        PowerMessage oldMessage = pool.borrowObject();
+        PowerMessage newMessage = pool.borrowObject();
+        service.sendCoalesced(service, oldMessage, 1L);
+        Assertions.assertEquals(0, pool.size());
+
+        // 被替换的旧消息直接归还，最新的消息处理之后归还
+        service.sendCoalesced(service, newMessage, 1L);
+        Assertions.assertEquals(1, pool.size());
+        service.tick(0L);
+        Assertions.assertEquals(2, pool.size());
+    }
+
+    /**
+     * 消息队列已满时令牌投递失败，消息只由发送方归还一次，槽位恢复为空，之后可以正常合并
+     */
+    @Test
+    public void testMailboxFull() {
+        ServiceMessagePool<PowerMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), PowerMessage::new);
+        CoalescingService service = new CoalescingService(4);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(service.sendMessage(service, new PowerMessage()));
+        }
+
+        Assertions.assertFalse(service.sendCoalesced(service, pool.borrowObject(), 1L));
+        Assertions.assertEquals(1, pool.size());
+        Assertions.assertEquals(4, service.getMailbox().size());
+
+        service.tick(0L);
+        Assertions.assertFalse(service.hasMessage());
+        Assertions.assertTrue(service.sendCoalesced(service, pool.borrowObject(), 1L));
+        Assertions.assertTrue(service.sendCoalesced(service, pool.borrowObject(), 1L));
+        Assertions.assertEquals(1, service.getMailbox().size());
+        Assertions.assertEquals(1L, service.getCoalescingTable().getCoalescedCount());
+        service.tick(0L);
+        Assertions.assertEquals(2, pool.size());
+    }
+
+    /**
+     * 生产者P1投递令牌之后停住，消费者提前取出令牌清空了P1的占位，生产者P2重新占位并且因为消息队列已满而失败：
+     * P1恢复之后不能把消息放进P2的占位（槽位中会留下没有令牌的消息，之后同一个键的消息永远不会被处理）
+     */
+    @Test
+    public void testStalledProducerAfterOffer() throws InterruptedException {
+        StallMailbox mailbox = new StallMailbox(2);
+        CoalescingService service = new CoalescingService(mailbox);
+
+        // P1的令牌进入消息队列之后停住
+        AtomicBoolean firstResult = new AtomicBoolean(true);
+        Thread first = mailbox.stallAfterOffer(() -> firstResult.set(service.sendCoalesced(service, new PowerMessage(), 1L)));
+        mailbox.awaitStalled(first);
+
+        // 消费者取出令牌，槽位中只有P1的占位，清空之后没有消息处理
+        service.tick(0L);
+        Assertions.assertEquals(0, service.getTickMessageCount());
+        Assertions.assertTrue(service.sendMessage(service, new PowerMessage()));
+        Assertions.assertTrue(service.sendMessage(service, new PowerMessage()));
+
+        // P2重新占位，消息队列已满，撤销占位之前停住
+        AtomicBoolean secondResult = new AtomicBoolean(true);
+        Thread second = mailbox.stallAfterOffer(() -> secondResult.set(service.sendCoalesced(service, new PowerMessage(), 1L)));
+        mailbox.awaitStalled(second);
+
+        // P1先恢复，P2再恢复
+        mailbox.resume(first);
+        LockSupport.parkNanos(10_000_000L);
+        mailbox.resume(second);
+        second.join();
+        first.join();
+        Assertions.assertFalse(secondResult.get());
+        Assertions.assertFalse(firstResult.get());
+
+        service.tick(0L);
+        Assertions.assertEquals(2, service.getTickMessageCount());
+        Assertions.assertFalse(service.hasMessage());
+
+        // 槽位恢复为空，同一个键之后的消息正常投递
+        Assertions.assertTrue(service.sendCoalesced(service, new PowerMessage(), 1L));
+        Assertions.assertEquals(1, service.getMailbox().size());
+        service.tick(0L);
+        Assertions.assertEquals(1, service.getTickMessageCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        CoalescingService service = new CoalescingService(false);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(service.sendCoalesced(service, new PowerMessage(), 1L));
+        }
+        Assertions.assertNull(service.getCoalescingTable());
+        Assertions.assertEquals(10, service.getMailbox().size());
+    }
+
+    /**
+     * 多个生产者并发投递，消费者同时处理，每条消息要么被处理，要么被替换，不会丢失也不会重复
+     */
+    @Test
+    public void testConcurrentProducer() throws InterruptedException {
+        CoalescingService service = new CoalescingService(true);
+        int producerCount = 4;
+        int countPerProducer = 20_000;
+        List<Thread> producerList = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            long key = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < countPerProducer; i++) {
+                    while (!service.sendCoalesced(service, new PowerMessage(), key)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producerList.add(thread);
+            thread.start();
+        }
+
+        long handledCount = 0L;
+        while (producerList.stream().anyMatch(Thread::isAlive) || service.hasMessage()) {
+            service.tick(0L);
+            handledCount += service.getTickMessageCount();
+        }
+        for (Thread thread : producerList) {
+            thread.join();
+        }
+
+        ServiceCoalescingTable table = service.getCoalescingTable();
+        Assertions.assertEquals((long) producerCount * countPerProducer, handledCount + table.getCoalescedCount());
+    }
+
+    static class PowerMessage extends AbstractServiceMessage {
+
+        PowerMessage() {
+            super(1);
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+        }
+    }
+
+    static class CoalescingService extends TestNoopService {
+
+        CoalescingService(boolean coalescing) {
+            super(1);
+            if (coalescing) {
+                this.enableCoalescing(64);
+            }
+        }
+
+        CoalescingService(int mailboxCapacity) {
+            super(1, mailboxCapacity, MailboxOverflowPolicyEnum.REJECT);
+            this.enableCoalescing(64);
+        }
+
+        CoalescingService(ServiceMailbox mailbox) {
+            super(1, mailbox);
+            this.enableCoalescing(64);
+        }
+    }
+
+    /**
+     * 指定线程的下一次投递返回之前停住，直到测试恢复
+     */
+    static class StallMailbox extends ServiceMailbox {
+
+        private final Map<Thread, CountDownLatch[]> stallMap = new ConcurrentHashMap<>();
+
+        StallMailbox(int capacity) {
+            super(capacity, MailboxOverflowPolicyEnum.REJECT, 0L);
+        }
+
+        Thread stallAfterOffer(Runnable task) {
+            Thread thread = new Thread(task);
+            this.stallMap.put(thread, new CountDownLatch[]{new CountDownLatch(1), new CountDownLatch(1)});
+            thread.start();
+            return thread;
+        }
+
+        void awaitStalled(Thread thread) throws InterruptedException {
+            Assertions.assertTrue(this.stallMap.get(thread)[0].await(5, TimeUnit.SECONDS));
+        }
+
+        void resume(Thread thread) {
+            this.stallMap.remove(thread)[1].countDown();
+        }
+
+        @Override
+        public boolean offer(AbstractServiceMessage message) {
+            boolean result = super.offer(message);
+            CountDownLatch[] latches = this.stallMap.get(Thread.currentThread());
+            if (latches != null && latches[0].getCount() > 0) {
+                latches[0].countDown();
+                try {
+                    latches[1].await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return result;
+        }
+    }
+}
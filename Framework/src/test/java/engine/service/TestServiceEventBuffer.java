@@ -0,0 +1,128 @@
+package engine.service;
+
+import com.games.framework.component.eventkit.EventDispatcher;
+import com.games.framework.component.eventkit.EventListener;
+import com.games.framework.engine.service.ServiceEventBuffer;
+import com.romje.model.BoolResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceEventBuffer {
+
+    private static final int LEVEL_UP_KEY = 1001;
+
+    private static final int LOGIN_KEY = 1002;
+
+    private static final int CHAIN_KEY = 1003;
+
+    private static final List<String> RECORD_LIST = new ArrayList<>();
+
+    private static TestNoopService chainService;
+
+    @BeforeAll
+    public static void registerListener() {
+        BoolResult boolResult = EventDispatcher.INSTANCE.registerEventListener(TestBufferListener.class);
+        Assertions.assertTrue(boolResult.isSuccess(), boolResult.message());
+    }
+
+    @BeforeEach
+    public void clearRecord() {
+        RECORD_LIST.clear();
+    }
+
+    @Test
+    public void testDispatchAtTickEnd() {
+        TestNoopService service = new TestNoopService(1);
+        service.deferEvent(LEVEL_UP_KEY, "p1");
+        service.deferEvent(LOGIN_KEY, "p2");
+        service.deferEvent(LEVEL_UP_KEY, "p3");
+        Assertions.assertTrue(RECORD_LIST.isEmpty());
+        Assertions.assertEquals(3, service.getEventBuffer().size());
+
+        // 按照事件分组派发，逐个接收的监听方法先执行，之后按批次接收的监听方法执行一次
+        service.tick(0L);
+        Assertions.assertEquals(3, service.getTickEventCount());
+        Assertions.assertEquals(List.of("level:p1", "level:p3", "levelBatch:[p1, p3]", "login:p2"), RECORD_LIST);
+        Assertions.assertTrue(service.getEventBuffer().isEmpty());
+
+        RECORD_LIST.clear();
+        service.tick(0L);
+        Assertions.assertEquals(0, service.getTickEventCount());
+        Assertions.assertTrue(RECORD_LIST.isEmpty());
+    }
+
+    @Test
+    public void testDistinct() {
+        TestNoopService service = new TestNoopService(1);
+        String player = "p1";
+        service.deferDistinctEvent(LEVEL_UP_KEY, player);
+        service.deferDistinctEvent(LEVEL_UP_KEY, player);
+        service.deferEvent(LEVEL_UP_KEY, "p2");
+        service.deferDistinctEvent(LEVEL_UP_KEY, player);
+
+        ServiceEventBuffer eventBuffer = service.getEventBuffer();
+        Assertions.assertEquals(2, eventBuffer.size());
+        Assertions.assertEquals(2L, eventBuffer.getDistinctDroppedCount());
+
+        service.tick(0L);
+        Assertions.assertEquals(List.of("level:p1", "level:p2", "levelBatch:[p1, p2]"), RECORD_LIST);
+
+        // 派发之后重新开始去重
+        service.deferDistinctEvent(LEVEL_UP_KEY, player);
+        Assertions.assertEquals(1, eventBuffer.size());
+    }
+
+    @Test
+    public void testReentrantDeferToNextTick() {
+        TestNoopService service = new TestNoopService(1);
+        chainService = service;
+        service.deferEvent(CHAIN_KEY, "p1");
+
+        // 监听方法中抛出的延迟事件，在下一次驱动中派发
+        service.tick(0L);
+        Assertions.assertEquals(List.of("chain:p1"), RECORD_LIST);
+        Assertions.assertEquals(1, service.getEventBuffer().size());
+
+        service.tick(0L);
+        Assertions.assertEquals(List.of("chain:p1", "login:p1"), RECORD_LIST);
+        chainService = null;
+    }
+
+    @Test
+    public void testSyncDispatchBatchListener() {
+        EventDispatcher.INSTANCE.dispatch(LEVEL_UP_KEY, "p1");
+        Assertions.assertEquals(List.of("level:p1", "levelBatch:[p1]"), RECORD_LIST);
+    }
+
+    public static class TestBufferListener {
+
+        @EventListener(LEVEL_UP_KEY)
+        public static void onLevelUp(String param) {
+            RECORD_LIST.add("level:" + param);
+        }
+
+        @EventListener(value = LEVEL_UP_KEY, batch = true)
+        public static void onLevelUpBatch(List<Object> params) {
+            RECORD_LIST.add("levelBatch:" + params);
+        }
+
+        @EventListener(LOGIN_KEY)
+        public static void onLogin(String param) {
+            RECORD_LIST.add("login:" + param);
+        }
+
+        @EventListener(CHAIN_KEY)
+        public static void onChain(String param) {
+            RECORD_LIST.add("chain:" + param);
+            chainService.deferEvent(LOGIN_KEY, param);
+        }
+    }
+}
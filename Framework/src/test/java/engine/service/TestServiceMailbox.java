@@ -0,0 +1,83 @@
+package engine.service;
+
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.games.framework.engine.service.ServiceMailbox;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceMailbox {
+
+    @Test
+    public void testReject() {
+        ServiceMailbox mailbox = new ServiceMailbox(4, MailboxOverflowPolicyEnum.REJECT, 0L);
+        for (int i = 0; i < mailbox.capacity(); i++) {
+            Assertions.assertTrue(mailbox.offer(new TestMessage(i)));
+        }
+        Assertions.assertFalse(mailbox.offer(new TestMessage(100)));
+        Assertions.assertEquals(1L, mailbox.getRejectedCount());
+        Assertions.assertEquals(4, mailbox.size());
+        Assertions.assertEquals(0, mailbox.poll().getMessageMark());
+    }
+
+    @Test
+    public void testBlockTimeout() {
+        ServiceMailbox mailbox = new ServiceMailbox(2, MailboxOverflowPolicyEnum.BLOCK, 20L);
+        Assertions.assertTrue(mailbox.offer(new TestMessage(0)));
+        Assertions.assertTrue(mailbox.offer(new TestMessage(1)));
+
+        // 没有消费者，等待超时之后按照拒绝处理
+        long beginNanos = System.nanoTime();
+        Assertions.assertFalse(mailbox.offer(new TestMessage(2)));
+        Assertions.assertTrue(System.nanoTime() - beginNanos >= 20_000_000L);
+        Assertions.assertEquals(1L, mailbox.getRejectedCount());
+    }
+
+    @Test
+    public void testBlockUntilConsumed() throws InterruptedException {
+        ServiceMailbox mailbox = new ServiceMailbox(2, MailboxOverflowPolicyEnum.BLOCK, 10_000L);
+        Assertions.assertTrue(mailbox.offer(new TestMessage(0)));
+        Assertions.assertTrue(mailbox.offer(new TestMessage(1)));
+
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(20L);
+            } catch (InterruptedException ignored) {
+            }
+            mailbox.poll();
+        });
+        consumer.start();
+        Assertions.assertTrue(mailbox.offer(new TestMessage(2)));
+        consumer.join();
+        Assertions.assertEquals(0L, mailbox.getRejectedCount());
+        Assertions.assertEquals(2, mailbox.size());
+    }
+
+    @Test
+    public void testDropOldest() {
+        ServiceMailbox mailbox = new ServiceMailbox(4, MailboxOverflowPolicyEnum.DROP_OLDEST, 0L);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(mailbox.offer(new TestMessage(i)));
+        }
+        Assertions.assertEquals(6L, mailbox.getDroppedCount());
+
+        // 只保留最新的消息，并且保持先后顺序
+        List<Integer> markList = new ArrayList<>();
+        Assertions.assertEquals(4, mailbox.drain(message -> markList.add(message.getMessageMark()), Integer.MAX_VALUE));
+        Assertions.assertEquals(List.of(6, 7, 8, 9), markList);
+        Assertions.assertTrue(mailbox.isEmpty());
+    }
+
+    static class TestMessage extends AbstractServiceMessage {
+
+        TestMessage(int messageMark) {
+            super(messageMark);
+        }
+    }
+}
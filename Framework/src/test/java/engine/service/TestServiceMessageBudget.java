@@ -0,0 +1,94 @@
+package engine.service;
+
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceMessageBudget {
+
+    private int originCountPreTick;
+
+    @BeforeEach
+    public void setUp() {
+        this.originCountPreTick = FrameworkContext.INSTANCE.getServiceHandleMessageCountPreTick();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FrameworkContext.INSTANCE.setServiceHandleMessageCountPreTick(this.originCountPreTick);
+    }
+
+    @Test
+    public void testCountLimit() {
+        FrameworkContext.INSTANCE.setServiceHandleMessageCountPreTick(4);
+        TestNoopService service = new TestNoopService(1);
+        service.setMessageBudgetMicros(0L);
+        for (int i = 0; i < 10; i++) {
+            service.receivedMessage(null, new SlowMessage(0L));
+        }
+
+        service.tick(0L);
+        Assertions.assertEquals(4, service.getTickMessageCount());
+        Assertions.assertEquals(6, service.getTickDeferredCount());
+        service.tick(0L);
+        service.tick(0L);
+        Assertions.assertEquals(2, service.getTickMessageCount());
+        Assertions.assertEquals(0, service.getTickDeferredCount());
+        Assertions.assertEquals(8L, service.getTotalDeferredCount());
+    }
+
+    /**
+     * 昂贵的消息按照时间预算分摊到多次驱动，每次至少处理一条，所有消息最终都会处理
+     */
+    @Test
+    public void testTimeBudget() {
+        FrameworkContext.INSTANCE.setServiceHandleMessageCountPreTick(0);
+        TestNoopService service = new TestNoopService(1);
+        service.setMessageBudgetMicros(3_000L);
+        int total = 20;
+        for (int i = 0; i < total; i++) {
+            service.receivedMessage(null, new SlowMessage(1_000_000L));
+        }
+
+        int handled = 0;
+        int tickCount = 0;
+        while (service.hasMessage()) {
+            service.tick(0L);
+            tickCount++;
+            Assertions.assertTrue(service.getTickMessageCount() >= 1);
+            Assertions.assertTrue(service.getTickMessageCount() <= 4);
+            handled += service.getTickMessageCount();
+            Assertions.assertEquals(total - handled, service.getTickDeferredCount());
+        }
+        Assertions.assertEquals(total, handled);
+        Assertions.assertTrue(tickCount >= total / 4);
+    }
+
+    /**
+     * 测试消息：读取消息标识时模拟处理耗时
+     */
+    static class SlowMessage extends AbstractServiceMessage {
+
+        private final long costNanos;
+
+        SlowMessage(long costNanos) {
+            super(1);
+            this.costNanos = costNanos;
+        }
+
+        @Override
+        public int getMessageMark() {
+            long deadline = System.nanoTime() + this.costNanos;
+            while (System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return super.getMessageMark();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package engine.service;
+
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.games.framework.engine.service.MessageMarkMetrics;
+import com.games.framework.engine.service.ServiceMessageMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceMessageMetrics {
+
+    @Test
+    public void testRecordByMark() throws InterruptedException {
+        TestNoopService service = new TestNoopService(1);
+        for (int i = 0; i < 3; i++) {
+            service.receivedMessage(null, new MarkMessage(5));
+        }
+        service.receivedMessage(null, new MarkMessage(1_000_000));
+        Assertions.assertEquals(4, service.getMailboxDepth());
+
+        Thread.sleep(2L);
+        service.tick(0L);
+        Assertions.assertEquals(0, service.getMailboxDepth());
+
+        ServiceMessageMetrics messageMetrics = service.getMessageMetrics();
+        MessageMarkMetrics markMetrics = messageMetrics.getMarkMetrics(5);
+        Assertions.assertEquals(3L, markMetrics.getWaitHistogram().count());
+        Assertions.assertEquals(3L, markMetrics.getHandleHistogram().count());
+        Assertions.assertTrue(markMetrics.getWaitHistogram().maxNanos() >= 2_000_000L);
+        Assertions.assertNull(messageMetrics.getMarkMetrics(6));
+
+        // 超出统计范围的消息合并统计
+        List<MessageMarkMetrics> metricsList = messageMetrics.listMarkMetrics();
+        Assertions.assertEquals(2, metricsList.size());
+        Assertions.assertEquals(ServiceMessageMetrics.OVERFLOW_MARK, metricsList.get(1).getMessageMark());
+        Assertions.assertSame(metricsList.get(1), messageMetrics.getMarkMetrics(-3));
+    }
+
+    static class MarkMessage extends AbstractServiceMessage {
+
+        MarkMessage(int messageMark) {
+            super(messageMark);
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+        }
+    }
+}
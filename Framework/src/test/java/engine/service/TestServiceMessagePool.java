@@ -0,0 +1,96 @@
+package engine.service;
+
+import com.games.framework.component.checker.CleanUpChecker;
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.games.framework.engine.service.ServiceMessagePool;
+import com.romje.component.pool.object.ObjectPoolConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceMessagePool {
+
+    @Test
+    public void testRecycleAfterDispatch() {
+        ServiceMessagePool<PooledMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), PooledMessage::new);
+        TestNoopService source = new TestNoopService(1);
+        TestNoopService target = new TestNoopService(2);
+
+        PooledMessage message = pool.borrowObject();
+        Assertions.assertTrue(pool.isPoolObject(message));
+        message.value = 10;
+        Assertions.assertTrue(source.sendMessage(target, message));
+        Assertions.assertEquals(0, pool.size());
+
+        // 处理结束之后自动归还，并且已经清理
+        target.tick(0L);
+        Assertions.assertEquals(1, pool.size());
+        Assertions.assertEquals(0, message.value);
+        Assertions.assertNull(message.getSource());
+
+        // 重复归还会被忽略，再次借出的是同一个对象
+        message.recycle();
+        Assertions.assertEquals(1, pool.size());
+        Assertions.assertSame(message, pool.borrowObject());
+        Assertions.assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testRetain() {
+        ServiceMessagePool<PooledMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), PooledMessage::new);
+        TestNoopService target = new TestNoopService(2);
+
+        // 模拟处理方法中保留消息，处理结束之后不会自动归还
+        PooledMessage message = pool.borrowObject();
+        message.retain();
+        target.receivedMessage(null, message);
+        target.tick(0L);
+        Assertions.assertEquals(0, pool.size());
+
+        message.recycle();
+        Assertions.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testRecycleRejected() {
+        ServiceMessagePool<PooledMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), PooledMessage::new);
+        TestNoopService target = new TestNoopService(2, 2, MailboxOverflowPolicyEnum.REJECT);
+        Assertions.assertTrue(target.receivedMessage(null, pool.borrowObject()));
+        Assertions.assertTrue(target.receivedMessage(null, pool.borrowObject()));
+        Assertions.assertFalse(target.receivedMessage(null, pool.borrowObject()));
+        Assertions.assertEquals(1, pool.size());
+
+        TestNoopService dropService = new TestNoopService(3, 2, MailboxOverflowPolicyEnum.DROP_OLDEST);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(dropService.receivedMessage(null, pool.borrowObject()));
+        }
+        Assertions.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testCleanUpChecked() throws IOException {
+        Assertions.assertTrue(CleanUpChecker.checkCleanUp(
+                List.of(AbstractServiceMessage.class, PooledMessage.class), "clear").isSuccess());
+    }
+
+    static class PooledMessage extends AbstractServiceMessage {
+
+        int value;
+
+        PooledMessage() {
+            super(1);
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            this.value = 0;
+        }
+    }
+}
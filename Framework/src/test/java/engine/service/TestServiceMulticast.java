@@ -0,0 +1,95 @@
+package engine.service;
+
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.engine.service.AbstractServiceMessage;
+import com.games.framework.engine.service.ServiceGroup;
+import com.games.framework.engine.service.ServiceMessagePool;
+import com.romje.component.pool.object.ObjectPoolConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceMulticast {
+
+    @Test
+    public void testBroadcastReleaseAfterAllDispatched() {
+        ServiceMessagePool<NoticeMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), NoticeMessage::new);
+        TestNoopService source = new TestNoopService(1);
+        ServiceGroup group = ServiceGroup.of("scene");
+        TestNoopService[] scenes = {new TestNoopService(2), new TestNoopService(3), new TestNoopService(4)};
+        for (TestNoopService scene : scenes) {
+            Assertions.assertTrue(group.join(scene));
+        }
+        Assertions.assertFalse(group.join(scenes[0]));
+        Assertions.assertTrue(group.join(source));
+
+        NoticeMessage message = pool.borrowObject();
+        Assertions.assertEquals(3, source.broadcast(group, message, false));
+        Assertions.assertTrue(message.isMulticast());
+        Assertions.assertFalse(source.hasMessage());
+
+        // 同一个实例，只有最后一个接收方处理完之后才会归还
+        for (TestNoopService scene : scenes) {
+            Assertions.assertEquals(1, scene.getMailbox().size());
+            Assertions.assertEquals(0, pool.size());
+            scene.tick(0L);
+        }
+        Assertions.assertFalse(message.isMulticast());
+        Assertions.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testMulticastPartialRejected() {
+        ServiceMessagePool<NoticeMessage> pool = ServiceMessagePool.of(ObjectPoolConfig.newInstance(4), NoticeMessage::new);
+        TestNoopService source = new TestNoopService(1);
+        TestNoopService fullService = new TestNoopService(2, 2, MailboxOverflowPolicyEnum.REJECT);
+        fullService.receivedMessage(null, new NoticeMessage());
+        fullService.receivedMessage(null, new NoticeMessage());
+        TestNoopService normalService = new TestNoopService(3);
+
+        NoticeMessage message = pool.borrowObject();
+        Assertions.assertEquals(1, source.multicast(List.of(fullService, normalService), message));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> source.sendMessage(normalService, message));
+
+        normalService.tick(0L);
+        Assertions.assertEquals(1, pool.size());
+
+        // 没有任何接收方时直接归还
+        NoticeMessage emptyMessage = pool.borrowObject();
+        Assertions.assertEquals(0, source.multicast(List.of(), emptyMessage));
+        Assertions.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testGroupLeave() {
+        ServiceGroup group = ServiceGroup.of("guild");
+        TestNoopService first = new TestNoopService(1);
+        TestNoopService second = new TestNoopService(2);
+        group.join(first);
+        group.join(second);
+        List<AbstractService> snapshot = group.listServices();
+
+        Assertions.assertTrue(group.leave(first));
+        Assertions.assertFalse(group.leave(first));
+        Assertions.assertEquals(1, group.size());
+        Assertions.assertFalse(group.contains(first));
+        Assertions.assertEquals(2, snapshot.size());
+    }
+
+    static class NoticeMessage extends AbstractServiceMessage {
+
+        NoticeMessage() {
+            super(1);
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package engine.service;
+
+import com.games.framework.engine.context.FrameworkContext;
+import com.romje.component.clock.IClock;
+import engine.frame.TestManualClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liu xuan jie
+ */
+public class TestServiceTimer {
+
+    private IClock originClock;
+
+    private TestManualClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        this.originClock = FrameworkContext.INSTANCE.getClock();
+        this.clock = new TestManualClock();
+        FrameworkContext.INSTANCE.setClock(this.clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FrameworkContext.INSTANCE.setClock(this.originClock);
+    }
+
+    @Test
+    public void testTimerFireInTick() {
+        TestNoopService service = new TestNoopService(1);
+        List<String> firedList = new ArrayList<>();
+        service.schedule(30_000L, (timerId, millisTimestamp) -> firedList.add("buff"));
+        long cancelId = service.schedule(10_000L, (timerId, millisTimestamp) -> firedList.add("cancelled"));
+        service.schedulePeriodic(0L, 1_000L, (timerId, millisTimestamp) -> firedList.add("periodic"));
+        Assertions.assertTrue(service.cancelTimer(cancelId));
+
+        // 时间推进但没有驱动Service，定时任务不会触发
+        this.clock.advanceMillis(30_000L);
+        Assertions.assertTrue(firedList.isEmpty());
+
+        service.tick(this.clock.currentTimeMillis());
+        Assertions.assertTrue(firedList.contains("buff"));
+        Assertions.assertFalse(firedList.contains("cancelled"));
+        Assertions.assertEquals(31, firedList.stream().filter("periodic"::equals).count());
+        Assertions.assertEquals(1, service.getTimingWheel().size());
+    }
+}
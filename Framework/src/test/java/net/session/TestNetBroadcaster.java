@@ -0,0 +1,212 @@
+package net.session;
+
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.net.session.NetBroadcaster;
+import com.games.framework.net.session.NetSession;
+import com.games.framework.net.session.NetSessionHandler;
+import com.games.framework.net.tcp.NetBufPacket;
+import com.games.framework.net.tcp.NetPacketCodec;
+import com.google.protobuf.StringValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link NetBroadcaster}测试：只编码一次，所有会话共享同一个帧，最后一个会话写出之后释放
+ *
+ * @author liu xuan jie
+ */
+public class TestNetBroadcaster {
+
+    private static final int PACKET_ID = 1000;
+
+    private static ResourceLeakDetector.Level originLevel;
+
+    @BeforeAll
+    public static void enableLeakDetection() {
+        originLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    public static void restoreLeakDetection() {
+        ResourceLeakDetector.setLevel(originLevel);
+    }
+
+    @Test
+    public void testShareOneFrame() throws IOException {
+        List<EmbeddedChannel> channelList = new ArrayList<>();
+        List<NetSession> sessionList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            EmbeddedChannel channel = newChannel();
+            channelList.add(channel);
+            sessionList.add(NetSession.get(channel));
+        }
+
+        Assertions.assertEquals(3, NetBroadcaster.INSTANCE.broadcast(sessionList, PACKET_ID, StringValue.of("boss hp")));
+
+        // 所有会话写出的是同一个帧的视图，广播自身的引用已经释放，只剩每个连接持有的引用
+        List<ByteBuf> outputList = new ArrayList<>();
+        for (EmbeddedChannel channel : channelList) {
+            Assertions.assertEquals(1, channel.outboundMessages().size());
+            outputList.add(channel.readOutbound());
+        }
+        Assertions.assertEquals(3, outputList.get(0).refCnt());
+        Assertions.assertSame(outputList.get(0).unwrap(), outputList.get(2).unwrap());
+
+        for (int i = 0; i < outputList.size(); i++) {
+            Assertions.assertEquals(List.of("boss hp"), decode(outputList.get(i)));
+            Assertions.assertEquals(outputList.size() - 1 - i, outputList.get(0).refCnt());
+        }
+        for (EmbeddedChannel channel : channelList) {
+            Assertions.assertFalse(channel.finishAndReleaseAll());
+        }
+    }
+
+    @Test
+    public void testFilterAndOrder() throws IOException {
+        EmbeddedChannel first = newChannel();
+        EmbeddedChannel second = newChannel();
+        NetSession firstSession = NetSession.get(first);
+        NetSession secondSession = NetSession.get(second);
+
+        // 广播之前已经在会话中等待发送的消息包先写出
+        Assertions.assertEquals(0, firstSession.write(PACKET_ID, StringValue.of("before")));
+        int count = NetBroadcaster.INSTANCE.broadcast(List.of(firstSession, secondSession),
+                session -> session == firstSession, PACKET_ID, StringValue.of("chat"));
+        Assertions.assertEquals(1, count);
+        Assertions.assertEquals(0, firstSession.getPendingBytes());
+        Assertions.assertTrue(second.outboundMessages().isEmpty());
+
+        List<String> valueList = new ArrayList<>();
+        ByteBuf output;
+        while ((output = first.readOutbound()) != null) {
+            valueList.addAll(decode(output));
+        }
+        Assertions.assertEquals(List.of("before", "chat"), valueList);
+
+        // 没有会话满足条件时不编码
+        Assertions.assertEquals(0, NetBroadcaster.INSTANCE.broadcast(List.of(secondSession),
+                session -> false, PACKET_ID, StringValue.of("chat")));
+
+        // 已经断开的连接不计入
+        second.close();
+        Assertions.assertEquals(0, NetBroadcaster.INSTANCE.broadcast(List.of(secondSession), PACKET_ID, StringValue.of("chat")));
+        Assertions.assertFalse(first.finishAndReleaseAll());
+        Assertions.assertFalse(second.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testFlushOncePerTick() throws IOException {
+        EmbeddedChannel first = newChannel();
+        EmbeddedChannel second = newChannel();
+        FlushCounter firstCounter = new FlushCounter();
+        FlushCounter secondCounter = new FlushCounter();
+        first.pipeline().addFirst(firstCounter);
+        second.pipeline().addFirst(secondCounter);
+        BroadcastService service = new BroadcastService(NetSession.get(first), NetSession.get(second));
+
+        // 驱动期间的广播与单独发送的消息包一起，在驱动的最后每个会话只刷新一次
+        service.tick(0L);
+        Assertions.assertEquals(2, service.getTickFlushCount());
+        Assertions.assertEquals(1, firstCounter.flushCount);
+        Assertions.assertEquals(1, secondCounter.flushCount);
+
+        List<String> valueList = new ArrayList<>();
+        ByteBuf output;
+        while ((output = first.readOutbound()) != null) {
+            valueList.addAll(decode(output));
+        }
+        Assertions.assertEquals(List.of("before", "chat", "after"), valueList);
+        Assertions.assertEquals(1, second.outboundMessages().size());
+        Assertions.assertEquals(List.of("chat"), decode(second.readOutbound()));
+
+        // 不在驱动期间的广播立即刷新
+        Assertions.assertEquals(1, NetBroadcaster.INSTANCE.broadcast(List.of(NetSession.get(second)), PACKET_ID, StringValue.of("now")));
+        Assertions.assertEquals(2, secondCounter.flushCount);
+        Assertions.assertEquals(List.of("now"), decode(second.readOutbound()));
+        Assertions.assertFalse(first.finishAndReleaseAll());
+        Assertions.assertFalse(second.finishAndReleaseAll());
+    }
+
+    /**
+     * 用对端的解码器逐帧解码，解码之后释放输入
+     */
+    private static List<String> decode(ByteBuf input) throws IOException {
+        EmbeddedChannel peer = new EmbeddedChannel();
+        NetPacketCodec.addCodec(peer.pipeline(), 1024);
+        peer.writeInbound(input);
+
+        List<String> valueList = new ArrayList<>();
+        NetBufPacket packet;
+        while ((packet = peer.readInbound()) != null) {
+            Assertions.assertEquals(PACKET_ID, packet.getId());
+            valueList.add(StringValue.parseFrom(packet.newCodedInput()).getValue());
+            packet.release();
+        }
+        peer.finishAndReleaseAll();
+        return valueList;
+    }
+
+    /**
+     * 统计连接的刷新次数
+     */
+    static class FlushCounter extends ChannelOutboundHandlerAdapter {
+
+        private int flushCount;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            this.flushCount++;
+            super.flush(ctx);
+        }
+    }
+
+    /**
+     * 一次驱动中：先单独发送，再广播，之后再单独发送
+     */
+    static class BroadcastService extends AbstractService {
+
+        private final NetSession first;
+
+        private final NetSession second;
+
+        BroadcastService(NetSession first, NetSession second) {
+            super(1);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void tickLogic(long millisTimestamp) {
+            Assertions.assertTrue(this.sendPacket(this.first, PACKET_ID, StringValue.of("before")));
+            Assertions.assertEquals(2, NetBroadcaster.INSTANCE.broadcast(List.of(this.first, this.second), PACKET_ID, StringValue.of("chat")));
+            Assertions.assertTrue(this.sendPacket(this.first, PACKET_ID, StringValue.of("after")));
+            Assertions.assertEquals(3, this.first.getPendingCount());
+            Assertions.assertTrue(((EmbeddedChannel) this.first.getChannel()).outboundMessages().isEmpty());
+        }
+    }
+
+    private static EmbeddedChannel newChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        NetPacketCodec.addCodec(channel.pipeline(), 1024);
+        channel.pipeline().addLast(NetSessionHandler.INSTANCE);
+        channel.pipeline().fireChannelActive();
+        return channel;
+    }
+}
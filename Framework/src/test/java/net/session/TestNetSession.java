@@ -0,0 +1,218 @@
+package net.session;
+
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.net.session.NetOutboundStatistics;
+import com.games.framework.net.session.NetSession;
+import com.games.framework.net.session.NetSessionHandler;
+import com.games.framework.net.tcp.NetBufPacket;
+import com.games.framework.net.tcp.NetPacketCodec;
+import com.google.protobuf.StringValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+/**
+ * {@link NetSession}发送合并测试：Service驱动期间写入的消息包，在驱动结束时每个会话只刷新一次
+ *
+ * @author liu xuan jie
+ */
+public class TestNetSession {
+
+    private static final int PACKET_ID = 1000;
+
+    private static ResourceLeakDetector.Level originLevel;
+
+    @BeforeAll
+    public static void enableLeakDetection() {
+        originLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    public static void restoreLeakDetection() {
+        ResourceLeakDetector.setLevel(originLevel);
+    }
+
+    @BeforeEach
+    public void resetStatistics() {
+        NetOutboundStatistics.INSTANCE.reset();
+    }
+
+    @Test
+    public void testFlushOncePerTick() throws IOException {
+        EmbeddedChannel channel = newChannel();
+        NetSession session = NetSession.get(channel);
+        SendService service = new SendService(session, 10);
+
+        service.tick(0L);
+        Assertions.assertEquals(1, service.getTickFlushCount());
+        Assertions.assertEquals(0, session.getPendingBytes());
+
+        // 十个消息包合并为一次写入
+        Assertions.assertEquals(1, channel.outboundMessages().size());
+        ByteBuf output = channel.readOutbound();
+        Assertions.assertEquals(service.getTickFlushBytes(), output.readableBytes());
+
+        // 合并的缓冲区可以被对端按帧逐个解码
+        EmbeddedChannel peer = newChannel();
+        peer.writeInbound(output);
+        for (int i = 0; i < 10; i++) {
+            NetBufPacket packet = peer.readInbound();
+            Assertions.assertEquals(PACKET_ID, packet.getId());
+            Assertions.assertEquals("packet-" + i, StringValue.parseFrom(packet.newCodedInput()).getValue());
+            packet.release();
+        }
+        Assertions.assertEquals(10L, NetOutboundStatistics.INSTANCE.getPacketCount());
+        Assertions.assertEquals(1L, NetOutboundStatistics.INSTANCE.getFlushCount());
+
+        // 没有写入时不刷新
+        service.sendCount = 0;
+        service.tick(0L);
+        Assertions.assertEquals(0, service.getTickFlushCount());
+        Assertions.assertFalse(channel.finishAndReleaseAll());
+        Assertions.assertFalse(peer.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testFlushOnThreshold() {
+        int originThreshold = FrameworkContext.INSTANCE.getSessionFlushThresholdBytes();
+        FrameworkContext.INSTANCE.setSessionFlushThresholdBytes(64);
+        try {
+            EmbeddedChannel channel = newChannel();
+            NetSession session = NetSession.get(channel);
+            SendService service = new SendService(session, 10);
+            service.tick(0L);
+
+            // 每个帧18字节，每4个帧达到阈值提前刷新一次，剩余的2个帧在驱动结束时刷新
+            Assertions.assertEquals(3, service.getTickFlushCount());
+            Assertions.assertEquals(180, service.getTickFlushBytes());
+            Assertions.assertEquals(3, channel.outboundMessages().size());
+
+            // 累计值跨驱动保留，用于定期输出每次驱动的平均刷新次数
+            service.tick(0L);
+            Assertions.assertEquals(3, service.getTickFlushCount());
+            Assertions.assertEquals(6L, service.getTotalFlushCount());
+            Assertions.assertEquals(360L, service.getTotalFlushBytes());
+            Assertions.assertTrue(channel.finishAndReleaseAll());
+        } finally {
+            FrameworkContext.INSTANCE.setSessionFlushThresholdBytes(originThreshold);
+        }
+    }
+
+    @Test
+    public void testDiscardOnInactive() {
+        EmbeddedChannel channel = newChannel();
+        NetSession session = NetSession.get(channel);
+        Assertions.assertEquals(0, session.write(PACKET_ID, StringValue.of("hello")));
+        Assertions.assertTrue(session.getPendingBytes() > 0);
+
+        // 连接断开时释放待发送内容，之后的写入直接丢弃
+        channel.close();
+        Assertions.assertEquals(0, session.getPendingBytes());
+        Assertions.assertEquals(-1, session.write(PACKET_ID, StringValue.of("hello")));
+        Assertions.assertEquals(0, session.flush());
+        Assertions.assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testDeferWhenUnwritable() {
+        EmbeddedChannel channel = newChannel();
+        NetSession session = NetSession.get(channel);
+        blockChannel(channel);
+
+        // 连接超出高水位，驱动结束时不刷新，待发送内容留在会话中
+        SendService service = new SendService(session, 3);
+        service.tick(0L);
+        Assertions.assertEquals(0, service.getTickFlushCount());
+        Assertions.assertEquals(54, session.getPendingBytes());
+        Assertions.assertTrue(channel.outboundMessages().isEmpty());
+
+        // 连接恢复可写时刷新积压的内容
+        channel.flush();
+        channel.runPendingTasks();
+        Assertions.assertTrue(channel.isWritable());
+        Assertions.assertEquals(0, session.getPendingBytes());
+        Assertions.assertEquals(2, channel.outboundMessages().size());
+        Assertions.assertEquals(1L, NetOutboundStatistics.INSTANCE.getFlushCount());
+        Assertions.assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testCloseOnOverload() {
+        int originMaxPendingBytes = FrameworkContext.INSTANCE.getSessionMaxPendingBytes();
+        FrameworkContext.INSTANCE.setSessionMaxPendingBytes(100);
+        try {
+            EmbeddedChannel channel = newChannel();
+            NetSession session = NetSession.get(channel);
+            blockChannel(channel);
+
+            // 每个帧18字节，第6个帧超出上限，丢弃积压的内容并关闭连接
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertTrue(session.write(PACKET_ID, StringValue.of("packet-" + i)) >= 0);
+                Assertions.assertEquals(0, session.flush());
+            }
+            Assertions.assertEquals(-1, session.write(PACKET_ID, StringValue.of("packet-5")));
+            channel.runPendingTasks();
+            Assertions.assertFalse(channel.isActive());
+            Assertions.assertEquals(0, session.getPendingBytes());
+            Assertions.assertEquals(1L, NetOutboundStatistics.INSTANCE.getOverloadCloseCount());
+            Assertions.assertEquals(0L, NetOutboundStatistics.INSTANCE.getFlushCount());
+            channel.finishAndReleaseAll();
+        } finally {
+            FrameworkContext.INSTANCE.setSessionMaxPendingBytes(originMaxPendingBytes);
+        }
+    }
+
+    /**
+     * 写入一个不刷新的大缓冲区，使连接的发送缓冲超出高水位
+     */
+    private static void blockChannel(EmbeddedChannel channel) {
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(64, 128));
+        channel.write(Unpooled.buffer(256).writeZero(256));
+        Assertions.assertFalse(channel.isWritable());
+    }
+
+    private static EmbeddedChannel newChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        NetPacketCodec.addCodec(channel.pipeline(), 1024);
+        channel.pipeline().addLast(NetSessionHandler.INSTANCE);
+        // 处理器在连接注册之后添加，需要补发连接建立
+        channel.pipeline().fireChannelActive();
+        return channel;
+    }
+
+    static class SendService extends AbstractService {
+
+        private final NetSession session;
+
+        private int sendCount;
+
+        SendService(NetSession session, int sendCount) {
+            super(1);
+            this.session = session;
+            this.sendCount = sendCount;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void tickLogic(long millisTimestamp) {
+            for (int i = 0; i < this.sendCount; i++) {
+                Assertions.assertTrue(this.sendPacket(this.session, PACKET_ID, StringValue.of("packet-" + i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package net.session;
+
+import com.games.framework.component.packetkit.PacketDispatcher;
+import com.games.framework.component.packetkit.PacketListener;
+import com.games.framework.constants.MailboxOverflowPolicyEnum;
+import com.games.framework.engine.service.AbstractService;
+import com.games.framework.net.session.NetSession;
+import com.games.framework.net.session.NetSessionHandler;
+import com.games.framework.net.session.NetSessionMessage;
+import com.google.protobuf.Int32Value;
+import com.romje.model.BoolResult;
+import engine.service.TestNoopService;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link NetSession}接收亲和测试：消息包投递到所属Service，在Service驱动时派发，迁移期间不打乱顺序
+ *
+ * @author liu xuan jie
+ */
+public class TestNetSessionRoute {
+
+    private static final int PACKET_ID = 2000;
+
+    /**
+     * 预热消息池的消息数量，大于单个测试同时存在的消息数量，之后每个测试结束时空闲数量应该恢复
+     */
+    private static final int WARM_UP_COUNT = 16;
+
+    /**
+     * 并发测试中IO线程投递之后还没有处理的消息包上限，小于Service消息队列的默认容量，不会因为队列已满而丢弃
+     */
+    private static final int MAX_BACKLOG_COUNT = 512;
+
+    private static final List<Integer> VALUE_LIST = new ArrayList<>();
+
+    private static final List<String> THREAD_LIST = new ArrayList<>();
+
+    private int poolIdleCount;
+
+    @BeforeAll
+    public static void registerListener() {
+        BoolResult boolResult = PacketDispatcher.INSTANCE.registerPacketListener(RoutePacketHandler.class);
+        Assertions.assertTrue(boolResult.isSuccess(), boolResult.message());
+    }
+
+    @BeforeEach
+    public void warmUpPool() {
+        NetSession session = NetSession.create(new EmbeddedChannel());
+        TestNoopService service = new TestNoopService(99);
+        Assertions.assertTrue(session.bind(service));
+        for (int i = 0; i < WARM_UP_COUNT; i++) {
+            Assertions.assertTrue(session.route(PACKET_ID, Int32Value.of(i)));
+        }
+        service.tick(0L);
+        Assertions.assertFalse(service.hasMessage());
+        this.poolIdleCount = NetSessionMessage.getPoolIdleCount();
+        Assertions.assertTrue(this.poolIdleCount >= WARM_UP_COUNT);
+        clearRecord();
+    }
+
+    @Test
+    public void testRouteToBoundService() {
+        NetSession session = NetSession.create(new EmbeddedChannel());
+        TestNoopService service = new TestNoopService(1);
+
+        // 没有绑定时由调用方自行处理
+        Assertions.assertFalse(session.route(PACKET_ID, Int32Value.of(0)));
+
+        Assertions.assertTrue(session.bind(service));
+        Assertions.assertFalse(session.bind(new TestNoopService(2)));
+        Assertions.assertEquals(1L, session.getBoundServiceId());
+
+        // 投递之后在所属Service驱动时派发，派发之后消息归还
+        Assertions.assertTrue(session.route(PACKET_ID, Int32Value.of(1)));
+        Assertions.assertTrue(session.route(PACKET_ID, Int32Value.of(2)));
+        Assertions.assertTrue(valueList().isEmpty());
+        service.tick(0L);
+        Assertions.assertEquals(List.of(1, 2), valueList());
+        Assertions.assertFalse(service.hasMessage());
+        Assertions.assertEquals(this.poolIdleCount, NetSessionMessage.getPoolIdleCount());
+    }
+
+    @Test
+    public void testRebindKeepOrder() {
+        NetSession session = NetSession.create(new EmbeddedChannel());
+        TestNoopService sceneA = new TestNoopService(1);
+        TestNoopService sceneB = new TestNoopService(2);
+        Assertions.assertTrue(session.bind(sceneA));
+
+        session.route(PACKET_ID, Int32Value.of(1));
+        session.route(PACKET_ID, Int32Value.of(2));
+        Assertions.assertTrue(session.rebind(sceneB));
+        Assertions.assertTrue(session.isRebinding());
+        Assertions.assertFalse(session.rebind(sceneA));
+
+        // 迁移期间收到的消息包暂存在会话中，新的Service还收不到
+        session.route(PACKET_ID, Int32Value.of(3));
+        session.route(PACKET_ID, Int32Value.of(4));
+        Assertions.assertEquals(1L, session.getBoundServiceId());
+        Assertions.assertFalse(sceneB.hasMessage());
+
+        // 新的Service先驱动也不会提前处理暂存的消息包
+        sceneB.tick(0L);
+        Assertions.assertTrue(valueList().isEmpty());
+
+        // 原Service处理完屏障之前的消息包之后切换，暂存的消息包按照接收顺序转交
+        sceneA.tick(0L);
+        Assertions.assertEquals(List.of(1, 2), valueList());
+        Assertions.assertFalse(sceneA.hasMessage());
+        Assertions.assertFalse(session.isRebinding());
+        Assertions.assertEquals(2L, session.getBoundServiceId());
+
+        session.route(PACKET_ID, Int32Value.of(5));
+        sceneB.tick(0L);
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5), valueList());
+        Assertions.assertFalse(sceneB.hasMessage());
+        Assertions.assertEquals(this.poolIdleCount, NetSessionMessage.getPoolIdleCount());
+    }
+
+    @Test
+    public void testRebindSameService() {
+        NetSession session = NetSession.create(new EmbeddedChannel());
+        TestNoopService service = new TestNoopService(1);
+        Assertions.assertFalse(session.rebind(service));
+        Assertions.assertTrue(session.bind(service));
+        Assertions.assertTrue(session.rebind(service));
+        Assertions.assertFalse(session.isRebinding());
+        Assertions.assertFalse(service.hasMessage());
+    }
+
+    @Test
+    public void testDiscardStashOnInactive() {
+        EmbeddedChannel channel = new EmbeddedChannel(NetSessionHandler.INSTANCE);
+        NetSession session = NetSession.get(channel);
+        TestNoopService sceneA = new TestNoopService(1);
+        TestNoopService sceneB = new TestNoopService(2);
+        Assertions.assertTrue(session.bind(sceneA));
+        Assertions.assertTrue(session.rebind(sceneB));
+        session.route(PACKET_ID, Int32Value.of(1));
+        session.route(PACKET_ID, Int32Value.of(2));
+
+        // 连接断开时暂存的消息包归还，只剩原Service中的迁移屏障
+        channel.close();
+        Assertions.assertEquals(this.poolIdleCount - 1, NetSessionMessage.getPoolIdleCount());
+
+        sceneA.tick(0L);
+        sceneB.tick(0L);
+        Assertions.assertTrue(valueList().isEmpty());
+        Assertions.assertFalse(sceneB.hasMessage());
+        Assertions.assertEquals(this.poolIdleCount, NetSessionMessage.getPoolIdleCount());
+        Assertions.assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testRouteNotBlockOnFullMailbox() {
+        NetSession session = NetSession.create(new EmbeddedChannel());
+        TestNoopService service = new TestNoopService(1, 2, MailboxOverflowPolicyEnum.BLOCK);
+        Assertions.assertTrue(session.bind(service));
+        Assertions.assertTrue(session.route(PACKET_ID, Int32Value.of(1)));
+        Assertions.assertTrue(session.route(PACKET_ID, Int32Value.of(2)));
+
+        // 消息队列已满，阻塞策略下IO线程的投递也立即拒绝，不等待Service处理
+        long startNanos = System.nanoTime();
+        Assertions.assertTrue(session.route(PACKET_ID, Int32Value.of(3)));
+        Assertions.assertTrue(System.nanoTime() - startNanos < 50_000_000L);
+        Assertions.assertEquals(1L, service.getMailbox().getRejectedCount());
+
+        // 队列已满时迁移屏障同样立即拒绝
+        Assertions.assertFalse(session.rebind(new TestNoopService(2)));
+        Assertions.assertFalse(session.isRebinding());
+
+        service.tick(0L);
+        Assertions.assertEquals(List.of(1, 2), valueList());
+        Assertions.assertEquals(this.poolIdleCount, NetSessionMessage.getPoolIdleCount());
+    }
+
+    @Test
+    public void testConcurrentRouteAndRebind() throws InterruptedException {
+        int rebindDispatchedCount = 1_000;
+        int afterRebindCount = 10_000;
+        NetSession session = NetSession.create(new EmbeddedChannel());
+        TestNoopService sceneA = new TestNoopService(1);
+        TestNoopService sceneB = new TestNoopService(2);
+        Assertions.assertTrue(session.bind(sceneA));
+
+        // 两个Service各自在独立的线程中持续驱动
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread threadA = newTickThread("sceneA", sceneA, running);
+        Thread threadB = newTickThread("sceneB", sceneB, running);
+        threadA.start();
+        threadB.start();
+
+        // IO线程持续投递，直到迁移之后再投递足够多的消息包，积压的消息包不超过消息队列的容量
+        AtomicBoolean routing = new AtomicBoolean(true);
+        AtomicInteger routedCount = new AtomicInteger();
+        Thread ioThread = new Thread(() -> {
+            for (int i = 0; routing.get(); i++) {
+                while (i - recordCount() >= MAX_BACKLOG_COUNT) {
+                    LockSupport.parkNanos(10_000L);
+                }
+                session.route(PACKET_ID, Int32Value.of(i));
+                routedCount.set(i + 1);
+            }
+        }, "io");
+        ioThread.start();
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (recordCount() < rebindDispatchedCount) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "packets not dispatched in time");
+            Thread.onSpinWait();
+        }
+        Assertions.assertTrue(session.rebind(sceneB));
+        int rebindRoutedCount = routedCount.get();
+        while (routedCount.get() < rebindRoutedCount + afterRebindCount) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "packets not routed in time");
+            Thread.onSpinWait();
+        }
+        routing.set(false);
+        ioThread.join();
+
+        int packetCount = routedCount.get();
+        while (recordCount() < packetCount) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "packets not dispatched in time");
+            LockSupport.parkNanos(1_000_000L);
+        }
+        running.set(false);
+        threadA.join();
+        threadB.join();
+
+        // 所有消息包按照接收顺序处理，迁移之前的在原Service处理，之后的在新的Service处理，只切换一次
+        Assertions.assertEquals(IntStream.range(0, packetCount).boxed().collect(Collectors.toList()), valueList());
+        List<String> threadList = threadList();
+        int switchIndex = threadList.indexOf("sceneB");
+        Assertions.assertTrue(switchIndex >= rebindDispatchedCount && switchIndex <= rebindRoutedCount);
+        Assertions.assertTrue(threadList.subList(0, switchIndex).stream().allMatch("sceneA"::equals));
+        Assertions.assertTrue(threadList.subList(switchIndex, packetCount).stream().allMatch("sceneB"::equals));
+        Assertions.assertEquals(2L, session.getBoundServiceId());
+        Assertions.assertFalse(session.isRebinding());
+        Assertions.assertFalse(sceneA.hasMessage());
+        Assertions.assertFalse(sceneB.hasMessage());
+    }
+
+    private static Thread newTickThread(String name, AbstractService service, AtomicBoolean running) {
+        return new Thread(() -> {
+            while (running.get()) {
+                service.tick(0L);
+                LockSupport.parkNanos(100_000L);
+            }
+        }, name);
+    }
+
+    private static synchronized void record(int value) {
+        VALUE_LIST.add(value);
+        THREAD_LIST.add(Thread.currentThread().getName());
+    }
+
+    private static synchronized int recordCount() {
+        return VALUE_LIST.size();
+    }
+
+    private static synchronized List<Integer> valueList() {
+        return new ArrayList<>(VALUE_LIST);
+    }
+
+    private static synchronized List<String> threadList() {
+        return new ArrayList<>(THREAD_LIST);
+    }
+
+    private static synchronized void clearRecord() {
+        VALUE_LIST.clear();
+        THREAD_LIST.clear();
+    }
+
+    public static class RoutePacketHandler {
+
+        @PacketListener(PACKET_ID)
+        public static void onPacket(NetSession session, Int32Value packet) {
+            record(packet.getValue());
+        }
+    }
+}
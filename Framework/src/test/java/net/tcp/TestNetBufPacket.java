@@ -0,0 +1,109 @@
+package net.tcp;
+
+import com.games.framework.net.tcp.NetBufPacket;
+import com.games.framework.net.tcp.NetPacketCodec;
+import com.google.protobuf.StringValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+/**
+ * {@link NetBufPacket}编解码与引用计数测试
+ *
+ * <p> 测试期间开启最严格的泄漏检测，每个缓冲区都记录访问轨迹，并且检查所有缓冲区最终的引用计数
+ *
+ * @author liu xuan jie
+ */
+public class TestNetBufPacket {
+
+    private static final int MAX_FRAME_LENGTH = 1024;
+
+    private static ResourceLeakDetector.Level originLevel;
+
+    @BeforeAll
+    public static void enableLeakDetection() {
+        originLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    public static void restoreLeakDetection() {
+        ResourceLeakDetector.setLevel(originLevel);
+    }
+
+    @Test
+    public void testDecodeWithoutCopy() throws IOException {
+        EmbeddedChannel channel = newChannel();
+        ByteBuf input = PooledByteBufAllocator.DEFAULT.directBuffer();
+        writeFrame(input, 1000, StringValue.of("hello").toByteArray());
+        writeFrame(input, 1001, StringValue.of("world").toByteArray());
+        Assertions.assertTrue(channel.writeInbound(input));
+
+        NetBufPacket first = channel.readInbound();
+        NetBufPacket second = channel.readInbound();
+        Assertions.assertEquals(1000, first.getId());
+        Assertions.assertEquals(1001, second.getId());
+
+        // 消息内容是读缓冲区的切片，直接从堆外内存解析
+        Assertions.assertTrue(first.body().isDirect());
+        Assertions.assertEquals("hello", StringValue.parseFrom(first.newCodedInput()).getValue());
+        Assertions.assertEquals("world", StringValue.parseFrom(second.newCodedInput()).getValue());
+
+        // 所有消息包释放之后，读缓冲区归还
+        Assertions.assertTrue(input.refCnt() > 0);
+        Assertions.assertTrue(first.release());
+        Assertions.assertTrue(second.release());
+        Assertions.assertEquals(0, input.refCnt());
+        Assertions.assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testEncodeRelease() {
+        EmbeddedChannel channel = newChannel();
+        ByteBuf input = PooledByteBufAllocator.DEFAULT.directBuffer();
+        writeFrame(input, 1000, new byte[]{1, 2, 3});
+        channel.writeInbound(input);
+        NetBufPacket packet = channel.readInbound();
+
+        // 原样回写，编码之后自动释放
+        Assertions.assertTrue(channel.writeOutbound(packet));
+        Assertions.assertEquals(0, packet.refCnt());
+        ByteBuf output = channel.readOutbound();
+        Assertions.assertEquals(4 + 3, output.readInt());
+        Assertions.assertEquals(1000, output.readInt());
+        Assertions.assertEquals(3, output.readableBytes());
+        Assertions.assertTrue(output.release());
+        Assertions.assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testCorruptFrame() {
+        EmbeddedChannel channel = newChannel();
+        ByteBuf input = PooledByteBufAllocator.DEFAULT.directBuffer();
+        input.writeInt(2);
+        input.writeShort(0);
+        Assertions.assertThrows(DecoderException.class, () -> channel.writeInbound(input));
+        Assertions.assertEquals(0, input.refCnt());
+        channel.finishAndReleaseAll();
+    }
+
+    private static EmbeddedChannel newChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        NetPacketCodec.addCodec(channel.pipeline(), MAX_FRAME_LENGTH);
+        return channel;
+    }
+
+    private static void writeFrame(ByteBuf buf, int packetId, byte[] body) {
+        buf.writeInt(NetPacketCodec.PACKET_ID_SIZE + body.length);
+        buf.writeInt(packetId);
+        buf.writeBytes(body);
+    }
+}
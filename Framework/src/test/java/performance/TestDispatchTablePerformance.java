@@ -0,0 +1,95 @@
+package performance;
+
+import com.games.framework.component.messagekit.MessageDispatcher;
+import com.games.framework.component.packetkit.PacketDispatcher;
+import com.romje.component.collection.FrozenIntObjectMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * 分发表查找开销测试：{@link PacketDispatcher}，{@link MessageDispatcher}冻结前的{@code HashMap<Integer, ...>}
+ * 与冻结后的{@link FrozenIntObjectMap}对比
+ *
+ * <p> 按照随机顺序查找，模拟线上各种协议号交替到达的情况
+ *
+ * @author liu xuan jie
+ */
+public class TestDispatchTablePerformance {
+
+    private static final int WARM_UP_ROUNDS = 20;
+
+    private static final int TEST_ROUNDS = 50;
+
+    private static final int LOOKUP_COUNT = 1 << 20;
+
+    @Test
+    public void testLookup() {
+        for (int listenerCount : new int[]{200, 1_000, 5_000}) {
+            this.compare("dense", listenerCount, 1000, 1);
+            this.compare("sparse", listenerCount, 0, 100_003);
+        }
+    }
+
+    private void compare(String name, int listenerCount, int firstId, int idStep) {
+        Map<Integer, BiConsumer<Object, Object>> listenersMap = new HashMap<>();
+        int[] ids = new int[listenerCount];
+        for (int i = 0; i < listenerCount; i++) {
+            ids[i] = firstId + i * idStep;
+            listenersMap.put(ids[i], (param1, param2) -> {
+            });
+        }
+        FrozenIntObjectMap<BiConsumer<Object, Object>> frozenTable = FrozenIntObjectMap.of(listenersMap);
+
+        Random random = new Random(listenerCount);
+        int[] lookupIds = new int[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            lookupIds[i] = ids[random.nextInt(listenerCount)];
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            Assertions.assertEquals(LOOKUP_COUNT, lookupMap(listenersMap, lookupIds));
+            Assertions.assertEquals(LOOKUP_COUNT, lookupTable(frozenTable, lookupIds));
+        }
+
+        long mapNanos = 0L;
+        long tableNanos = 0L;
+        for (int i = 0; i < TEST_ROUNDS; i++) {
+            long startTime = System.nanoTime();
+            lookupMap(listenersMap, lookupIds);
+            mapNanos += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            lookupTable(frozenTable, lookupIds);
+            tableNanos += System.nanoTime() - startTime;
+        }
+
+        long totalLookup = (long) TEST_ROUNDS * LOOKUP_COUNT;
+        System.out.printf("%s listeners:%d, dense table:%b, hash map:%.2f ns/op, frozen table:%.2f ns/op%n",
+                name, listenerCount, frozenTable.isDense(), (double) mapNanos / totalLookup, (double) tableNanos / totalLookup);
+    }
+
+    private static int lookupMap(Map<Integer, BiConsumer<Object, Object>> listenersMap, int[] lookupIds) {
+        int found = 0;
+        for (int id : lookupIds) {
+            if (listenersMap.get(id) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int lookupTable(FrozenIntObjectMap<BiConsumer<Object, Object>> frozenTable, int[] lookupIds) {
+        int found = 0;
+        for (int id : lookupIds) {
+            if (frozenTable.get(id) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
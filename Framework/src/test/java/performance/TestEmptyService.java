@@ -0,0 +1,35 @@
+package performance;
+
+import com.games.framework.engine.service.AbstractService;
+
+/**
+ * 性能测试使用的空Service，只统计被驱动的次数
+ *
+ * @author liu xuan jie
+ */
+public class TestEmptyService extends AbstractService {
+
+    private int tickCount;
+
+    public TestEmptyService(int serviceId) {
+        super(serviceId);
+    }
+
+    @Override
+    public boolean init() {
+        return true;
+    }
+
+    @Override
+    public void tick(long millisTimestamp) {
+        this.tickCount++;
+    }
+
+    @Override
+    public void tickLogic(long millisTimestamp) {
+    }
+
+    public int getTickCount() {
+        return tickCount;
+    }
+}
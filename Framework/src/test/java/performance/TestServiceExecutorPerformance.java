@@ -0,0 +1,125 @@
+package performance;
+
+import com.games.framework.constants.TaskExecutorEnum;
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.TaskProcessor;
+import com.games.framework.engine.service.AbstractService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 不同任务执行者驱动大量Service的吞吐对比
+ *
+ * <p> 所有Service每次驱动都有一段CPU计算，其中一部分Service还有一次阻塞调用（模拟读文件，持久化等），
+ * 统计所有Service都被驱动指定次数的总耗时
+ *
+ * @author liu xuan jie
+ */
+public class TestServiceExecutorPerformance {
+
+    private static final int SERVICE_COUNT = 10_000;
+
+    private static final int TICK_COUNT = 3;
+
+    /**
+     * 每多少个Service中有一个存在阻塞调用
+     */
+    private static final int BLOCKING_SERVICE_INTERVAL = 10;
+
+    private static final long BLOCKING_NANOS = 1_000_000L;
+
+    private static final int CPU_LOOP_COUNT = 2_000;
+
+    private static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    public void testMixedLoad() {
+        for (TaskExecutorEnum executorEnum : TaskExecutorEnum.values()) {
+            TaskProcessor taskProcessor = TaskProcessor.getInstance().init(executorEnum.create(THREAD_COUNT));
+            AtomicInteger concurrentCount = new AtomicInteger();
+            List<MixedLoadService> serviceList = new ArrayList<>(SERVICE_COUNT);
+            for (int i = 0; i < SERVICE_COUNT; i++) {
+                MixedLoadService service = new MixedLoadService(i, i % BLOCKING_SERVICE_INTERVAL == 0, concurrentCount);
+                serviceList.add(service);
+                taskProcessor.addEngineTask(EngineTask.newInstance(0, service));
+            }
+
+            long startTime = System.nanoTime();
+            long deadline = startTime + 60_000_000_000L;
+            while (serviceList.stream().anyMatch(service -> service.tickCount < TICK_COUNT)) {
+                Assertions.assertTrue(System.nanoTime() < deadline, executorEnum + " services not ticked in time");
+                taskProcessor.tick(0);
+                LockSupport.parkNanos(100_000L);
+            }
+            long costMillis = (System.nanoTime() - startTime) / 1_000_000L;
+
+            // 等待最后一轮提交的任务全部完成，避免影响下一个执行者的统计
+            while (taskProcessor.handlingCount() > 0) {
+                taskProcessor.tick(0);
+                LockSupport.parkNanos(100_000L);
+            }
+
+            Assertions.assertEquals(0, concurrentCount.get());
+            System.out.println("executor:" + executorEnum + ", threads:" + THREAD_COUNT + ", services:"
+                    + SERVICE_COUNT + ", ticks:" + TICK_COUNT + ", cost:" + costMillis + " ms");
+        }
+    }
+
+    /**
+     * 每次驱动先做一段CPU计算，阻塞型Service再挂起一段时间，同时检查是否被并发驱动
+     */
+    static class MixedLoadService extends AbstractService {
+
+        private final boolean blocking;
+
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private final AtomicInteger concurrentCount;
+
+        private volatile int tickCount;
+
+        private long result;
+
+        MixedLoadService(int serviceId, boolean blocking, AtomicInteger concurrentCount) {
+            super(serviceId);
+            this.blocking = blocking;
+            this.concurrentCount = concurrentCount;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void tick(long millisTimestamp) {
+            if (!this.running.compareAndSet(false, true)) {
+                this.concurrentCount.incrementAndGet();
+                return;
+            }
+
+            long value = this.result;
+            for (int i = 0; i < CPU_LOOP_COUNT; i++) {
+                value = value * 31 + i;
+            }
+            this.result = value;
+
+            if (this.blocking) {
+                LockSupport.parkNanos(BLOCKING_NANOS);
+            }
+
+            this.tickCount++;
+            this.running.set(false);
+        }
+
+        @Override
+        public void tickLogic(long millisTimestamp) {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package performance;
+
+import com.games.framework.engine.processor.EngineTask;
+import com.games.framework.engine.processor.ITaskExecutor;
+import com.games.framework.engine.processor.TaskProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link TaskProcessor}单帧自身开销测试
+ *
+ * <p> 执行者在引擎线程中直接执行空任务，测试结果只包含处理器自身的调度开销
+ *
+ * @author liu xuan jie
+ */
+public class TestTaskProcessorPerformance {
+
+    private static final int WARM_UP_FRAMES = 200;
+
+    private static final int TEST_FRAMES = 200;
+
+    @Test
+    public void testFrameOverhead() {
+        for (int serviceCount : new int[]{10_000, 50_000, 100_000}) {
+            TaskProcessor taskProcessor = TaskProcessor.getInstance().init(new InlineTaskExecutor());
+            for (int i = 0; i < serviceCount; i++) {
+                taskProcessor.addEngineTask(EngineTask.newInstance(0, new TestEmptyService(i)));
+            }
+
+            for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                taskProcessor.tick(0);
+            }
+            Assertions.assertEquals(serviceCount, taskProcessor.taskCount());
+            Assertions.assertEquals(serviceCount, taskProcessor.handlingCount());
+
+            long startTime = System.nanoTime();
+            for (int i = 0; i < TEST_FRAMES; i++) {
+                taskProcessor.tick(0);
+            }
+            long costNanos = System.nanoTime() - startTime;
+            System.out.println("services:" + serviceCount + ", average frame overhead:"
+                    + costNanos / TEST_FRAMES / 1000 + " us, per service:" + costNanos / TEST_FRAMES / serviceCount + " ns");
+        }
+    }
+
+    /**
+     * 提交时在当前线程直接执行的执行者，不产生任何分配
+     */
+    static class InlineTaskExecutor implements ITaskExecutor<EngineTask> {
+
+        @Override
+        public boolean canSubmit() {
+            return true;
+        }
+
+        @Override
+        public void submit(EngineTask task) {
+            task.run();
+        }
+
+        @Override
+        public void onCompleted(EngineTask task) {
+        }
+    }
+}
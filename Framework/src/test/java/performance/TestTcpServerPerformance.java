@@ -0,0 +1,167 @@
+package performance;
+
+import com.games.framework.engine.processor.TickHistogram;
+import com.games.framework.net.tcp.NetBufPacket;
+import com.games.framework.net.tcp.NetPacket;
+import com.games.framework.net.tcp.NetPacketCodec;
+import com.games.framework.net.tcp.TcpServerConfig;
+import com.games.framework.net.tcp.TcpServerNode;
+import com.romje.model.BoolResult;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TcpServerNode}本地回环的吞吐与延迟测试
+ *
+ * <p> 服务器原样回写收到的消息包，延迟测试每次只发送一个消息包，收到回写之后再发送下一个；
+ * 吞吐测试客户端连续发送，统计全部回写的耗时
+ *
+ * @author liu xuan jie
+ */
+public class TestTcpServerPerformance {
+
+    private static final int PACKET_ID = 1000;
+
+    private static final int BODY_SIZE = 64;
+
+    private static final int WARM_UP_COUNT = 20_000;
+
+    private static final int LATENCY_COUNT = 20_000;
+
+    private static final int THROUGHPUT_COUNT = 500_000;
+
+    @Test
+    public void testLoopback() throws InterruptedException {
+        for (boolean preferEpoll : new boolean[]{true, false}) {
+            TcpServerNode node = TcpServerNode.of(TcpServerConfig.newInstance(0)
+                    .setPreferEpoll(preferEpoll).setWorkerThreadCount(2), EchoHandler.INSTANCE);
+            BoolResult boolResult = node.start();
+            Assertions.assertTrue(boolResult.isSuccess(), boolResult.message());
+
+            EventLoopGroup clientGroup = new NioEventLoopGroup(1);
+            try {
+                this.testLoopback(node, clientGroup);
+            } finally {
+                clientGroup.shutdownGracefully().syncUninterruptibly();
+                node.stop();
+            }
+        }
+    }
+
+    private void testLoopback(TcpServerNode node, EventLoopGroup clientGroup) throws InterruptedException {
+        ClientHandler clientHandler = new ClientHandler();
+        Channel channel = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel socketChannel) {
+                        NetPacketCodec.addCodec(socketChannel.pipeline(), node.getConfig().getMaxFrameLength());
+                        socketChannel.pipeline().addLast(clientHandler);
+                    }
+                })
+                .connect("127.0.0.1", node.getLocalPort()).sync().channel();
+
+        byte[] body = new byte[BODY_SIZE];
+        for (int i = 0; i < WARM_UP_COUNT; i++) {
+            channel.writeAndFlush(NetPacket.of(PACKET_ID, body));
+            Assertions.assertNotNull(clientHandler.packetQueue.poll(1, TimeUnit.SECONDS));
+        }
+
+        TickHistogram histogram = new TickHistogram();
+        for (int i = 0; i < LATENCY_COUNT; i++) {
+            long startTime = System.nanoTime();
+            channel.writeAndFlush(NetPacket.of(PACKET_ID, body));
+            NetPacket packet = clientHandler.packetQueue.poll(1, TimeUnit.SECONDS);
+            histogram.record(System.nanoTime() - startTime);
+            Assertions.assertNotNull(packet);
+            Assertions.assertEquals(PACKET_ID, packet.getId());
+            Assertions.assertEquals(BODY_SIZE, packet.getBody().length);
+        }
+
+        clientHandler.queueing = false;
+        clientHandler.receivedCount.set(0);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < THROUGHPUT_COUNT; i++) {
+            // 可写时才继续发送，避免客户端发送缓冲无限堆积
+            while (!channel.isWritable()) {
+                channel.flush();
+                Thread.onSpinWait();
+            }
+            channel.write(NetPacket.of(PACKET_ID, body));
+            if ((i & 63) == 63) {
+                channel.flush();
+            }
+        }
+        channel.flush();
+        while (clientHandler.receivedCount.get() < THROUGHPUT_COUNT) {
+            Thread.onSpinWait();
+        }
+        long costNanos = System.nanoTime() - startTime;
+        channel.close().sync();
+
+        System.out.println("transport:" + (node.isEpoll() ? "epoll" : "nio")
+                + ", round trip p50:" + histogram.percentileNanos(0.5) / 1000 + " us"
+                + ", p99:" + histogram.percentileNanos(0.99) / 1000 + " us"
+                + ", max:" + histogram.maxNanos() / 1000 + " us"
+                + ", echo throughput:" + THROUGHPUT_COUNT * 1_000_000_000L / costNanos + " packets/s");
+    }
+
+    /**
+     * 原样回写收到的消息包，消息内容不复制，直接由编码器写入发送缓冲区
+     */
+    @ChannelHandler.Sharable
+    static class EchoHandler extends SimpleChannelInboundHandler<NetBufPacket> {
+
+        static final EchoHandler INSTANCE = new EchoHandler();
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, NetBufPacket packet) {
+            // 处理结束之后自动释放一次，回写需要额外持有
+            ctx.write(packet.retain());
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    static class ClientHandler extends SimpleChannelInboundHandler<NetBufPacket> {
+
+        private final BlockingQueue<NetPacket> packetQueue = new LinkedBlockingQueue<>();
+
+        private final AtomicInteger receivedCount = new AtomicInteger();
+
+        /**
+         * 延迟测试期间把回写的消息包交给测试线程，吞吐测试只计数
+         */
+        private volatile boolean queueing = true;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, NetBufPacket packet) {
+            this.receivedCount.incrementAndGet();
+            if (this.queueing) {
+                this.packetQueue.add(NetPacket.of(packet.getId(), ByteBufUtil.getBytes(packet.body())));
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.games.business.game.bootstrap;
 
+import com.games.framework.constants.FrameLagPolicyEnum;
+import com.games.framework.constants.TaskExecutorEnum;
+
 /**
  * 启动参数统一管理，不允许实例化
  *
@@ -68,4 +71,35 @@ public final class BootParameters {
      * 所有XLS配置表处理相关的扫描包名称
      */
     public static final String SCAN_XLS_HANDLER_PACKAGE_NAME = "com.games.xls";
-}
\ No newline at end of file
+
+    /**
+     * 引擎帧间隔：毫秒
+     */
+    public static final int ENGINE_FRAME_INTERVAL_MILLIS = 100;
+
+    /**
+     * 引擎帧落后时的处理策略
+     */
+    public static final FrameLagPolicyEnum ENGINE_FRAME_LAG_POLICY = FrameLagPolicyEnum.SKIP;
+
+    /**
+     * 引擎驱动Service的执行者类型
+     * <p> Service内部阻塞调用较多（读文件，持久化，跨节点调用等）时，可以选择虚拟线程
+     */
+    public static final TaskExecutorEnum ENGINE_SERVICE_EXECUTOR = TaskExecutorEnum.FIXED_SERVICE;
+
+    /**
+     * 引擎驱动Service的执行线程数量（虚拟线程执行者为载体线程数量）
+     */
+    public static final int ENGINE_SERVICE_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * TCP-Server节点监听端口
+     */
+    public static final int TCP_SERVER_PORT = 8090;
+
+    /**
+     * TCP-Server节点处理读写的线程数量，{@code 0}代表使用{@code Netty}默认值
+     */
+    public static final int TCP_SERVER_WORKER_THREAD_COUNT = 0;
+}
@@ -11,6 +11,11 @@ import com.games.framework.component.packetkit.PacketListenerEntry;
 import com.games.framework.component.protoparse.ProtoParseProxy;
 import com.games.framework.component.xlskit.XlsLoader;
 import com.games.framework.engine.ServerEngine;
+import com.games.framework.engine.context.FrameworkContext;
+import com.games.framework.engine.frame.FrameScheduler;
+import com.games.framework.engine.processor.TaskProcessor;
+import com.games.framework.net.tcp.TcpServerConfig;
+import com.games.framework.net.tcp.TcpServerNode;
 import com.games.framework.utils.BootstrapUtil;
 import com.games.framework.utils.ScanUtil;
 import com.google.protobuf.GeneratedMessageV3;
@@ -20,7 +25,6 @@ import com.romje.component.checker.enumcheck.EnumChecker;
 import com.romje.component.checker.enumcheck.EnumUnique;
 import com.romje.component.manager.enumlookup.EnumLookup;
 import com.romje.component.pool.object.Reusable;
-import com.romje.component.rate.TimeTicker;
 import com.romje.model.BoolResult;
 import com.romje.utils.EmptyUtil;
 
@@ -49,10 +53,12 @@ public final class Bootstrapper {
         BootstrapUtil.exitOnFailure(registerMessageListener(), "register message");
         BootstrapUtil.exitOnFailure(registerPacketListener(), "register packet");
         BootstrapUtil.exitOnFailure(registerPacketParser(), "register packet parser");
+        BootstrapUtil.exitOnFailure(freezeDispatcher(), "freeze dispatcher");
 
         BootstrapUtil.exitOnFailure(loadXlsData(), "load excel");
 
         BootstrapUtil.exitOnFailure(bootEngine(), "boot engine");
+        BootstrapUtil.exitOnFailure(bootTcpServer(), "boot tcp server");
 
         // 测试进程钩子
 //        Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -65,13 +71,33 @@ public final class Bootstrapper {
     }
 
     private static boolean bootEngine() {
-        TimeTicker timeTicker = TimeTicker.of(100);
-        ServerEngine.INSTANCE.setTimeTicker(timeTicker);
+        TaskProcessor taskProcessor = TaskProcessor.getInstance()
+                .init(BootParameters.ENGINE_SERVICE_EXECUTOR.create(BootParameters.ENGINE_SERVICE_THREAD_COUNT));
+        FrameScheduler frameScheduler = FrameScheduler.of(FrameworkContext.INSTANCE.getClock(),
+                BootParameters.ENGINE_FRAME_INTERVAL_MILLIS, BootParameters.ENGINE_FRAME_LAG_POLICY);
+
+        ServerEngine.INSTANCE.setTaskProcessor(taskProcessor);
+        ServerEngine.INSTANCE.setFrameScheduler(frameScheduler);
         boolean result = ServerEngine.INSTANCE.start();
-        Log.LOGIC.info("[Boot] Server engine boot success, tick:[{}] ms!", 100);
+        Log.LOGIC.info("[Boot] Server engine boot success, tick:[{}] ms, lag policy:[{}], executor:[{}]!",
+                BootParameters.ENGINE_FRAME_INTERVAL_MILLIS, BootParameters.ENGINE_FRAME_LAG_POLICY,
+                BootParameters.ENGINE_SERVICE_EXECUTOR.getDescribe());
         return result;
     }
 
+    private static boolean bootTcpServer() {
+        TcpServerConfig config = TcpServerConfig.newInstance(BootParameters.TCP_SERVER_PORT)
+                .setWorkerThreadCount(BootParameters.TCP_SERVER_WORKER_THREAD_COUNT);
+        BoolResult boolResult = TcpServerNode.of(config).start();
+        if (boolResult.isFail()) {
+            Log.LOGIC.error("[Boot] Tcp server boot fail:[{}]!", boolResult.message());
+            return false;
+        }
+
+        Log.LOGIC.info("[Boot] Tcp server boot success, port:[{}]!", BootParameters.TCP_SERVER_PORT);
+        return true;
+    }
+
     private static boolean registerEnums() {
         List<Class<? extends Enum<?>>> enumClassList =
                 ScanUtil.scanEnumsAsList(BootParameters.SCAN_ENUM_MANAGE_PACKAGE_NAME);
@@ -224,6 +250,22 @@ public final class Bootstrapper {
         return true;
     }
 
+    /**
+     * 所有处理方法注册完成，冻结分发器，构建只读的分发表
+     */
+    private static boolean freezeDispatcher() {
+        BoolResult boolResult = EventDispatcher.INSTANCE.freeze();
+        if (boolResult.isFail()) {
+            Log.LOGIC.error("[Boot] Freeze event dispatcher fail:[{}]!", boolResult.message());
+            return false;
+        }
+
+        MessageDispatcher.INSTANCE.freeze();
+        PacketDispatcher.INSTANCE.freeze();
+        Log.LOGIC.info("[Boot] Freeze event, message and packet dispatcher success!");
+        return true;
+    }
+
     private static boolean loadXlsData() {
         BoolResult manageResult = XlsLoader.INSTANCE.loadXlsManager(BootParameters.XLS_DIR_NAME, BootParameters.SCAN_XLS_HANDLER_PACKAGE_NAME);
         if (manageResult.isFail()) {
@@ -0,0 +1,143 @@
+package com.romje.component.collection;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 以{@code int}为键的只读查找表，创建之后不允许修改（线程安全）
+ *
+ * <p>适用于启动时注册完成，运行时只查找的场景，例如消息，网络包的分发表。查找不会装箱，也不会产生任何分配。
+ * <ul>
+ *     <li>键的范围足够密集时（例如连续的协议号），直接使用数组下标定位：{@code values[key - minKey]}</li>
+ *     <li>键的范围稀疏时，使用低负载（不超过1/4）的开放寻址表，绝大部分查找只需要一次探测</li>
+ * </ul>
+ *
+ * @author liu xuan jie
+ */
+public class FrozenIntObjectMap<V> {
+
+    /**
+     * 键的跨度不超过该值时，无论元素多少都使用数组
+     */
+    private static final int DENSE_MIN_SPAN = 1024;
+
+    /**
+     * 键的跨度不超过元素数量的该倍数时，使用数组
+     */
+    private static final int DENSE_SPAN_FACTOR = 4;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int size;
+
+    /**
+     * 是否使用数组下标直接定位
+     */
+    private final boolean dense;
+
+    /**
+     * 密集模式：数组下标0对应的键
+     */
+    private final int minKey;
+
+    /**
+     * 稀疏模式：开放寻址表的键，密集模式为{@code null}
+     */
+    private final int[] keys;
+
+    /**
+     * 密集模式：下标为{@code key - minKey}；稀疏模式：与{@link #keys}对应，{@code null}代表空槽位
+     */
+    private final Object[] values;
+
+    private final int mask;
+
+    private FrozenIntObjectMap(int size, boolean dense, int minKey, int[] keys, Object[] values) {
+        this.size = size;
+        this.dense = dense;
+        this.minKey = minKey;
+        this.keys = keys;
+        this.values = values;
+        this.mask = values.length - 1;
+    }
+
+    /**
+     * @param map 不允许为{@code null}，其中的键值都不允许为{@code null}，创建之后对原始集合的修改不会影响查找表
+     */
+    public static <V> FrozenIntObjectMap<V> of(Map<Integer, ? extends V> map) {
+        Objects.requireNonNull(map);
+        if (map.isEmpty()) {
+            return new FrozenIntObjectMap<>(0, true, 0, null, new Object[0]);
+        }
+
+        int minKey = Integer.MAX_VALUE;
+        int maxKey = Integer.MIN_VALUE;
+        for (Map.Entry<Integer, ? extends V> entry : map.entrySet()) {
+            Objects.requireNonNull(entry.getValue());
+            minKey = Math.min(minKey, entry.getKey());
+            maxKey = Math.max(maxKey, entry.getKey());
+        }
+
+        long span = (long) maxKey - minKey + 1L;
+        if (span <= DENSE_MIN_SPAN || span <= (long) map.size() * DENSE_SPAN_FACTOR) {
+            int offset = minKey;
+            Object[] values = new Object[(int) span];
+            map.forEach((key, value) -> values[key - offset] = value);
+            return new FrozenIntObjectMap<>(map.size(), true, offset, null, values);
+        }
+
+        int capacity = 4;
+        while (capacity < MAX_CAPACITY && capacity < (long) map.size() * 4) {
+            capacity <<= 1;
+        }
+        int[] keys = new int[capacity];
+        Object[] values = new Object[capacity];
+        int mask = capacity - 1;
+        map.forEach((key, value) -> {
+            int index = hashIndex(key, mask);
+            while (Objects.nonNull(values[index])) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+        });
+        return new FrozenIntObjectMap<>(map.size(), false, 0, keys, values);
+    }
+
+    /**
+     * @return 不存在返回{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (this.dense) {
+            int index = key - this.minKey;
+            return index >= 0 && index < this.values.length ? (V) this.values[index] : null;
+        }
+
+        int index = hashIndex(key, this.mask);
+        while (true) {
+            Object value = this.values[index];
+            if (Objects.isNull(value) || this.keys[index] == key) {
+                return (V) value;
+            }
+            index = (index + 1) & this.mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return Objects.nonNull(this.get(key));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isDense() {
+        return this.dense;
+    }
+
+    private static int hashIndex(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
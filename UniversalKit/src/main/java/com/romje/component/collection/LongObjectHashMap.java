@@ -0,0 +1,194 @@
+package com.romje.component.collection;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 以{@code long}为键的哈希表（非线程安全）
+ *
+ * <p>开放寻址，线性探测，键值分别保存在两个数组中，存取不会装箱，也不会为每个元素创建节点对象，
+ * 只有扩容时才会分配内存。删除时将后续冲突元素前移，不使用删除标记，所以频繁增删不会降低查找效率。
+ *
+ * <p>值不允许为{@code null}，{@code null}用于标识空槽位。
+ *
+ * @author liu xuan jie
+ */
+public class LongObjectHashMap<V> {
+
+    /**
+     * 默认初始容量
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 最大容量
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int mask;
+
+    private int size;
+
+    /**
+     * 元素数量超过该值时扩容，负载因子固定为0.5
+     */
+    private int resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计的元素数量，用于计算初始容量
+     */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = 2;
+        while (capacity < MAX_CAPACITY && capacity < (long) expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.allocate(capacity);
+    }
+
+    /**
+     * @return 不存在返回{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = this.indexOf(key);
+        return index < 0 ? null : (V) this.values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return this.indexOf(key) >= 0;
+    }
+
+    /**
+     * @param value 不允许为{@code null}
+     * @return 之前的值，不存在返回{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value);
+        int index = hashIndex(key, this.mask);
+        while (true) {
+            Object oldValue = this.values[index];
+            if (Objects.isNull(oldValue)) {
+                this.keys[index] = key;
+                this.values[index] = value;
+                if (++this.size > this.resizeThreshold) {
+                    this.resize();
+                }
+                return null;
+            }
+            if (this.keys[index] == key) {
+                this.values[index] = value;
+                return (V) oldValue;
+            }
+            index = (index + 1) & this.mask;
+        }
+    }
+
+    /**
+     * @return 被删除的值，不存在返回{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = this.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        V oldValue = (V) this.values[index];
+        this.values[index] = null;
+        this.size--;
+        this.shiftBackward(index);
+        return oldValue;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * 清空所有元素，保留当前容量
+     */
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    private int indexOf(long key) {
+        int index = hashIndex(key, this.mask);
+        while (true) {
+            if (Objects.isNull(this.values[index])) {
+                return -1;
+            }
+            if (this.keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & this.mask;
+        }
+    }
+
+    /**
+     * 删除之后，将同一探测链上后续的元素前移填补空位，保证查找时遇到空槽位即可结束
+     */
+    private void shiftBackward(int emptyIndex) {
+        int index = (emptyIndex + 1) & this.mask;
+        while (Objects.nonNull(this.values[index])) {
+            int idealIndex = hashIndex(this.keys[index], this.mask);
+            // 理想位置不在(emptyIndex, index]区间内的元素，才能移动到空位上
+            if (((index - idealIndex) & this.mask) >= ((index - emptyIndex) & this.mask)) {
+                this.keys[emptyIndex] = this.keys[index];
+                this.values[emptyIndex] = this.values[index];
+                this.values[index] = null;
+                emptyIndex = index;
+            }
+            index = (index + 1) & this.mask;
+        }
+    }
+
+    private void resize() {
+        if (this.keys.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("LongObjectHashMap max capacity reached: " + MAX_CAPACITY);
+        }
+
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (Objects.isNull(oldValues[i])) {
+                continue;
+            }
+            int index = hashIndex(oldKeys[i], this.mask);
+            while (Objects.nonNull(this.values[index])) {
+                index = (index + 1) & this.mask;
+            }
+            this.keys[index] = oldKeys[i];
+            this.values[index] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = capacity >> 1;
+    }
+
+    /**
+     * 连续的键（例如递增的请求标识）也能均匀分布
+     */
+    private static int hashIndex(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -43,7 +43,7 @@ public class ObjectPoolConfig {
     }
 
     public ObjectPoolConfig setMaxIdle(int maxIdle) {
-        this.maxCount = maxIdle;
+        this.maxIdle = maxIdle;
         return this;
     }
 
@@ -0,0 +1,181 @@
+package com.romje.component.queue;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * 有界多生单消环形队列（线程安全）
+ *
+ * <p>预先分配固定容量（2的幂）的数组，每个槽位带有一个序号，生产者通过CAS抢占写入位置，写入元素
+ * 之后发布序号，消费者根据序号判断槽位是否可读，入队出队都不会产生任何内存分配，内存占用有硬上限。
+ *
+ * <p>主要场景是多生产者单消费者，但出队同样使用CAS抢占读取位置，所以队列已满时生产者可以调用
+ * {@link #poll()}丢弃最旧的元素，与消费者并发也不会破坏队列，也可以作为多个线程共用的空闲对象队列。
+ *
+ * <p>生产者下标与消费者下标之间使用缓存行填充隔开，避免伪共享。
+ *
+ * @author liu xuan jie
+ */
+public class MpscArrayQueue<E> extends MpscArrayQueueConsumerIndex {
+
+    private static final AtomicLongFieldUpdater<MpscArrayQueueProducerIndex> PRODUCER_INDEX_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducerIndex.class, "producerIndex");
+
+    private static final AtomicLongFieldUpdater<MpscArrayQueueConsumerIndex> CONSUMER_INDEX_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueConsumerIndex.class, "consumerIndex");
+
+    /**
+     * 最大容量
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    private final int mask;
+
+    private final Object[] buffer;
+
+    /**
+     * 每个槽位的序号（只保存下标的低32位，比较时使用差值，溢出不影响正确性）
+     * <p>等于写入位置：可以写入；等于写入位置+1：可以读取
+     */
+    private final AtomicIntegerArray sequences;
+
+    /**
+     * @param capacity 容量，向上取整到2的幂，范围[2, {@link #MAX_CAPACITY}]
+     */
+    public MpscArrayQueue(int capacity) {
+        int actualCapacity = capacity <= 2 ? 2 : Integer.highestOneBit(Math.min(capacity, MAX_CAPACITY) - 1) << 1;
+        this.mask = actualCapacity - 1;
+        this.buffer = new Object[actualCapacity];
+        this.sequences = new AtomicIntegerArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++) {
+            this.sequences.lazySet(i, i);
+        }
+    }
+
+    /**
+     * 入队（任意线程）
+     *
+     * @param element 不允许为{@code null}
+     * @return 队列已满返回{@code false}
+     */
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        long index = this.producerIndex;
+        while (true) {
+            int slot = (int) index & this.mask;
+            int difference = this.sequences.get(slot) - (int) index;
+            if (difference == 0) {
+                if (PRODUCER_INDEX_UPDATER.compareAndSet(this, index, index + 1)) {
+                    this.buffer[slot] = element;
+                    this.sequences.lazySet(slot, (int) index + 1);
+                    return true;
+                }
+                index = this.producerIndex;
+            } else if (difference < 0) {
+                // 槽位中还是上一圈没有被消费的元素
+                return false;
+            } else {
+                index = this.producerIndex;
+            }
+        }
+    }
+
+    /**
+     * 出队（消费者线程，或者需要丢弃最旧元素的生产者）
+     *
+     * @return 队列为空（或者最早的元素还没有写入完成）返回{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long index = this.consumerIndex;
+        while (true) {
+            int slot = (int) index & this.mask;
+            int difference = this.sequences.get(slot) - ((int) index + 1);
+            if (difference == 0) {
+                if (CONSUMER_INDEX_UPDATER.compareAndSet(this, index, index + 1)) {
+                    E element = (E) this.buffer[slot];
+                    this.buffer[slot] = null;
+                    this.sequences.lazySet(slot, (int) index + this.mask + 1);
+                    return element;
+                }
+                index = this.consumerIndex;
+            } else if (difference < 0) {
+                return null;
+            } else {
+                index = this.consumerIndex;
+            }
+        }
+    }
+
+    /**
+     * 批量出队，每个元素交给{@code consumer}处理
+     *
+     * @param consumer 不允许为{@code null}
+     * @param limit    最多出队的数量
+     * @return 实际出队的数量
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        int count = 0;
+        while (count < limit) {
+            E element = this.poll();
+            if (Objects.isNull(element)) {
+                break;
+            }
+            count++;
+            consumer.accept(element);
+        }
+        return count;
+    }
+
+    /**
+     * @return 当前元素数量的近似值
+     */
+    public int size() {
+        long size = this.producerIndex - this.consumerIndex;
+        return (int) Math.max(Math.min(size, this.capacity()), 0L);
+    }
+
+    public boolean isEmpty() {
+        return this.producerIndex == this.consumerIndex;
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+}
+
+/**
+ * 缓存行填充
+ */
+abstract class MpscArrayQueuePad0 {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * 生产者下标
+ */
+abstract class MpscArrayQueueProducerIndex extends MpscArrayQueuePad0 {
+
+    volatile long producerIndex;
+}
+
+/**
+ * 缓存行填充
+ */
+abstract class MpscArrayQueuePad1 extends MpscArrayQueueProducerIndex {
+
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+/**
+ * 消费者下标
+ */
+abstract class MpscArrayQueueConsumerIndex extends MpscArrayQueuePad1 {
+
+    volatile long consumerIndex;
+}
@@ -0,0 +1,18 @@
+package com.romje.component.timer;
+
+/**
+ * 定时任务接口
+ *
+ * @author liu xuan jie
+ */
+@FunctionalInterface
+public interface ITimerTask {
+
+    /**
+     * 定时任务到期，在驱动时间轮的线程中回调
+     *
+     * @param timerId         当前定时任务的唯一标识，可以在回调内直接取消（周期任务不再继续）
+     * @param millisTimestamp 本次驱动时间轮的时间戳：毫秒
+     */
+    void onTimeout(long timerId, long millisTimestamp);
+}
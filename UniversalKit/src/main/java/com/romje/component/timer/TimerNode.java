@@ -0,0 +1,94 @@
+package com.romje.component.timer;
+
+import com.romje.component.pool.object.Reusable;
+
+/**
+ * 时间轮中的定时任务节点（侵入式双向链表节点），由{@link TimingWheel}内部复用，外部只持有定时任务标识
+ *
+ * @author liu xuan jie
+ */
+final class TimerNode implements Reusable {
+
+    /**
+     * 节点空闲，可以被复用
+     */
+    static final int STATE_FREE = 0;
+
+    /**
+     * 节点在时间轮的某个槽位中等待到期
+     */
+    static final int STATE_PENDING = 1;
+
+    /**
+     * 节点已经到期，正在回调
+     */
+    static final int STATE_FIRING = 2;
+
+    /**
+     * 节点在回调过程中被取消
+     */
+    static final int STATE_CANCELLED = 3;
+
+    /**
+     * 节点在时间轮节点数组中的下标，创建之后不变
+     */
+    final int index;
+
+    /**
+     * 复用代数，每次释放之后递增，与{@link #index}共同组成定时任务标识，防止取消已经被复用的节点
+     */
+    int generation;
+
+    int state;
+
+    /**
+     * 所在的层级与槽位，仅{@link #STATE_PENDING}时有效
+     */
+    int level;
+
+    int slot;
+
+    TimerNode prev;
+
+    TimerNode next;
+
+    /**
+     * 到期的刻度
+     */
+    long expireTick;
+
+    /**
+     * 周期任务的周期刻度数，小于等于{@code 0}代表一次性任务
+     */
+    long periodTicks;
+
+    ITimerTask task;
+
+    TimerNode(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return 当前节点对外的定时任务标识
+     */
+    long timerId() {
+        return ((long) this.generation << 32) | this.index;
+    }
+
+    @Override
+    public void init() {
+        this.state = STATE_PENDING;
+    }
+
+    @Override
+    public void clear() {
+        this.state = STATE_FREE;
+        this.level = 0;
+        this.slot = 0;
+        this.prev = null;
+        this.next = null;
+        this.expireTick = 0L;
+        this.periodTicks = 0L;
+        this.task = null;
+    }
+}
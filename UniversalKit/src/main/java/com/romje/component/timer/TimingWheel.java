@@ -0,0 +1,391 @@
+package com.romje.component.timer;
+
+import com.romje.component.clock.IClock;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 分层时间轮（非线程安全）
+ *
+ * <p>时间按照固定刻度（{@link #tickMillis}）离散化，第0层有256个槽位，每个槽位代表一个刻度；
+ * 其余3层各有64个槽位，每个槽位代表下一层转一圈的时间。定时任务按照距离到期的刻度数放入对应
+ * 层级，上层槽位在下层转完一圈时整体降级到下层，所以添加，取消都是O(1)，每个刻度只处理到期的槽位。
+ * 超出最大跨度（2^26个刻度）的任务先放在最高层，降级时重新计算，不影响正确性。
+ *
+ * <p>所有节点都由时间轮内部复用，外部只持有{@code long}类型的定时任务标识（节点下标与复用代数），
+ * 节点被复用之后，旧的标识自动失效，大量定时任务反复添加取消也不会产生额外的内存分配。
+ *
+ * <p>时间来源于{@link IClock}，使用者在自己的线程中周期调用{@link #advance()}，所有定时任务都在该线程中回调。
+ *
+ * @author liu xuan jie
+ */
+public class TimingWheel {
+
+    /**
+     * 无效的定时任务标识，有效的标识都大于等于{@code 0}
+     */
+    public static final long INVALID_TIMER_ID = -1L;
+
+    /**
+     * 默认刻度：ms
+     */
+    private static final int DEFAULT_TICK_MILLIS = 10;
+
+    /**
+     * 每一层的槽位数量的位数，第0层256个槽位，其余层64个槽位
+     */
+    private static final int[] LEVEL_BITS = {8, 6, 6, 6};
+
+    private static final int LEVEL_COUNT = LEVEL_BITS.length;
+
+    /**
+     * 每一层槽位下标在刻度中的起始位
+     */
+    private static final int[] LEVEL_SHIFTS = new int[LEVEL_COUNT];
+
+    /**
+     * 时间轮可以直接容纳的最大刻度跨度
+     */
+    private static final long MAX_SPAN_TICKS;
+
+    private static final int INITIAL_NODE_CAPACITY = 64;
+
+    static {
+        int shift = 0;
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            LEVEL_SHIFTS[level] = shift;
+            shift += LEVEL_BITS[level];
+        }
+        MAX_SPAN_TICKS = 1L << shift;
+    }
+
+    private final IClock clock;
+
+    /**
+     * 刻度：ms
+     */
+    private final long tickMillis;
+
+    /**
+     * 第0个刻度的时间戳：ms
+     */
+    private final long startTimestamp;
+
+    /**
+     * 每一层的所有槽位，槽位内是节点链表的头节点
+     */
+    private final TimerNode[][] wheels;
+
+    /**
+     * 定时任务回调异常的处理者，参数为定时任务标识和异常
+     */
+    private final BiConsumer<Long, Exception> exceptionHandler;
+
+    /**
+     * 所有创建过的节点，下标即为{@link TimerNode#index}
+     */
+    private TimerNode[] nodes;
+
+    private int nodeCount;
+
+    /**
+     * 空闲节点链表（复用{@link TimerNode#next}）
+     */
+    private TimerNode freeHead;
+
+    /**
+     * 已经处理过的刻度
+     */
+    private long currentTick;
+
+    /**
+     * 等待到期的定时任务数量
+     */
+    private int size;
+
+    private TimingWheel(IClock clock, long tickMillis, BiConsumer<Long, Exception> exceptionHandler) {
+        this.clock = clock;
+        this.tickMillis = tickMillis <= 0 ? DEFAULT_TICK_MILLIS : tickMillis;
+        this.exceptionHandler = exceptionHandler;
+        this.startTimestamp = clock.currentTimeMillis();
+        this.wheels = new TimerNode[LEVEL_COUNT][];
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            this.wheels[level] = new TimerNode[1 << LEVEL_BITS[level]];
+        }
+        this.nodes = new TimerNode[INITIAL_NODE_CAPACITY];
+    }
+
+    /**
+     * @param clock            时间来源，不允许为{@code null}
+     * @param tickMillis       刻度：ms，定时任务最多延迟一个刻度触发
+     * @param exceptionHandler 定时任务回调异常的处理者，不允许为{@code null}，异常不会中断其他定时任务
+     */
+    public static TimingWheel of(IClock clock, long tickMillis, BiConsumer<Long, Exception> exceptionHandler) {
+        Objects.requireNonNull(clock);
+        Objects.requireNonNull(exceptionHandler);
+        return new TimingWheel(clock, tickMillis, exceptionHandler);
+    }
+
+    /**
+     * 添加一次性定时任务
+     *
+     * @param delayMillis 延迟时间：ms，小于等于{@code 0}时下一个刻度触发
+     * @param task        不允许为{@code null}
+     * @return 定时任务标识
+     */
+    public long schedule(long delayMillis, ITimerTask task) {
+        return this.scheduleAt(this.clock.currentTimeMillis() + Math.max(delayMillis, 0L), task);
+    }
+
+    /**
+     * 添加在指定时间触发的一次性定时任务，例如每天5点的重置
+     *
+     * @param expireTimestamp 到期时间戳：ms，已经过去的时间下一个刻度触发
+     * @param task            不允许为{@code null}
+     * @return 定时任务标识
+     */
+    public long scheduleAt(long expireTimestamp, ITimerTask task) {
+        return this.add(expireTimestamp, 0L, task);
+    }
+
+    /**
+     * 添加周期定时任务（固定频率），直到被取消
+     *
+     * @param delayMillis  首次触发的延迟时间：ms
+     * @param periodMillis 周期：ms，不足一个刻度按照一个刻度处理
+     * @param task         不允许为{@code null}
+     * @return 定时任务标识
+     */
+    public long schedulePeriodic(long delayMillis, long periodMillis, ITimerTask task) {
+        long periodTicks = Math.max((periodMillis + this.tickMillis - 1) / this.tickMillis, 1L);
+        return this.add(this.clock.currentTimeMillis() + Math.max(delayMillis, 0L), periodTicks, task);
+    }
+
+    /**
+     * 取消定时任务，可以在任意定时任务的回调中调用（包括自身）
+     *
+     * @param timerId 定时任务标识
+     * @return 定时任务存在并且成功取消返回{@code true}，已经触发完成，已经取消，标识无效返回{@code false}
+     */
+    public boolean cancel(long timerId) {
+        TimerNode node = this.findNode(timerId);
+        if (Objects.isNull(node)) {
+            return false;
+        }
+
+        if (node.state == TimerNode.STATE_PENDING) {
+            this.unlink(node);
+            this.size--;
+            this.release(node);
+            return true;
+        }
+
+        if (node.state == TimerNode.STATE_FIRING) {
+            // 正在回调，回调结束之后由时间轮释放
+            node.state = TimerNode.STATE_CANCELLED;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param timerId 定时任务标识
+     * @return 定时任务是否还在等待到期
+     */
+    public boolean isPending(long timerId) {
+        TimerNode node = this.findNode(timerId);
+        return Objects.nonNull(node) && node.state == TimerNode.STATE_PENDING;
+    }
+
+    /**
+     * 按照时钟的当前时间推进时间轮，并回调所有到期的定时任务
+     *
+     * @return 本次触发的定时任务数量
+     */
+    public int advance() {
+        long curTimestamp = this.clock.currentTimeMillis();
+        long targetTick = Math.floorDiv(curTimestamp - this.startTimestamp, this.tickMillis);
+        if (targetTick <= this.currentTick) {
+            return 0;
+        }
+
+        int firedCount = 0;
+        while (this.currentTick < targetTick) {
+            // 没有任何定时任务时，所有槽位都是空的，直接跳到目标刻度
+            if (this.size <= 0) {
+                this.currentTick = targetTick;
+                break;
+            }
+
+            this.currentTick++;
+            this.cascade();
+            firedCount += this.fire(curTimestamp);
+        }
+        return firedCount;
+    }
+
+    /**
+     * @return 等待到期的定时任务数量
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public long tickMillis() {
+        return this.tickMillis;
+    }
+
+    private long add(long expireTimestamp, long periodTicks, ITimerTask task) {
+        Objects.requireNonNull(task);
+        TimerNode node = this.allocate();
+        node.expireTick = Math.floorDiv(expireTimestamp - this.startTimestamp + this.tickMillis - 1, this.tickMillis);
+        node.periodTicks = periodTicks;
+        node.task = task;
+        this.insert(node, this.currentTick + 1);
+        this.size++;
+        return node.timerId();
+    }
+
+    /**
+     * 当前刻度的所有上层槽位（下层刚好转完一圈时）整体降级
+     * <p> 必须从低到高处理，高层降级的节点不会落入低层已经处理过的当前槽位
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVEL_COUNT; level++) {
+            if ((this.currentTick & ((1L << LEVEL_SHIFTS[level]) - 1)) != 0) {
+                return;
+            }
+
+            int slot = (int) ((this.currentTick >>> LEVEL_SHIFTS[level]) & ((1 << LEVEL_BITS[level]) - 1));
+            TimerNode node = this.wheels[level][slot];
+            this.wheels[level][slot] = null;
+            while (Objects.nonNull(node)) {
+                TimerNode nextNode = node.next;
+                node.prev = null;
+                node.next = null;
+                this.insert(node, this.currentTick);
+                node = nextNode;
+            }
+        }
+    }
+
+    /**
+     * 回调第0层当前槽位中所有到期的定时任务
+     * <p> 每次从槽位头部取出一个节点再回调，回调中取消同一槽位的其他节点也不会破坏链表
+     */
+    private int fire(long curTimestamp) {
+        int slot = (int) (this.currentTick & ((1 << LEVEL_BITS[0]) - 1));
+        int firedCount = 0;
+        TimerNode node;
+        while (Objects.nonNull(node = this.wheels[0][slot])) {
+            this.unlink(node);
+            if (node.expireTick > this.currentTick) {
+                // 超出最大跨度的节点，还没有真正到期
+                this.insert(node, this.currentTick + 1);
+                continue;
+            }
+
+            long timerId = node.timerId();
+            node.state = TimerNode.STATE_FIRING;
+            this.size--;
+            try {
+                node.task.onTimeout(timerId, curTimestamp);
+            } catch (Exception e) {
+                this.exceptionHandler.accept(timerId, e);
+            }
+            firedCount++;
+
+            if (node.state == TimerNode.STATE_FIRING && node.periodTicks > 0L) {
+                node.expireTick += node.periodTicks;
+                node.state = TimerNode.STATE_PENDING;
+                this.insert(node, this.currentTick + 1);
+                this.size++;
+            } else {
+                this.release(node);
+            }
+        }
+        return firedCount;
+    }
+
+    /**
+     * @param minTick 允许放入的最小刻度，降级时当前刻度还没有回调，可以放入当前刻度，其他情况只能放入下一个刻度
+     */
+    private void insert(TimerNode node, long minTick) {
+        long placeTick = Math.max(node.expireTick, minTick);
+        long deltaTicks = placeTick - this.currentTick;
+        if (deltaTicks >= MAX_SPAN_TICKS) {
+            placeTick = this.currentTick + MAX_SPAN_TICKS - 1;
+            deltaTicks = MAX_SPAN_TICKS - 1;
+        }
+
+        int level = 0;
+        while (level < LEVEL_COUNT - 1 && deltaTicks >= (1L << LEVEL_SHIFTS[level + 1])) {
+            level++;
+        }
+
+        int slot = (int) ((placeTick >>> LEVEL_SHIFTS[level]) & ((1 << LEVEL_BITS[level]) - 1));
+        TimerNode head = this.wheels[level][slot];
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = head;
+        if (Objects.nonNull(head)) {
+            head.prev = node;
+        }
+        this.wheels[level][slot] = node;
+    }
+
+    private void unlink(TimerNode node) {
+        if (Objects.nonNull(node.prev)) {
+            node.prev.next = node.next;
+        } else {
+            this.wheels[node.level][node.slot] = node.next;
+        }
+
+        if (Objects.nonNull(node.next)) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private TimerNode findNode(long timerId) {
+        if (timerId < 0L) {
+            return null;
+        }
+
+        int index = (int) timerId;
+        if (index < 0 || index >= this.nodeCount) {
+            return null;
+        }
+
+        TimerNode node = this.nodes[index];
+        return node.timerId() == timerId ? node : null;
+    }
+
+    private TimerNode allocate() {
+        TimerNode node = this.freeHead;
+        if (Objects.nonNull(node)) {
+            this.freeHead = node.next;
+            node.next = null;
+        } else {
+            if (this.nodeCount == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.nodes.length << 1);
+            }
+            node = new TimerNode(this.nodeCount);
+            this.nodes[this.nodeCount++] = node;
+        }
+
+        node.init();
+        return node;
+    }
+
+    private void release(TimerNode node) {
+        node.clear();
+        node.generation = (node.generation + 1) & Integer.MAX_VALUE;
+        node.next = this.freeHead;
+        this.freeHead = node;
+    }
+}
@@ -0,0 +1,65 @@
+package component.collection;
+
+import com.romje.component.collection.FrozenIntObjectMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author liu xuan jie
+ */
+public class FrozenIntObjectMapTest {
+
+    @Test
+    public void testDense() {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 1000; i < 1200; i += 2) {
+            map.put(i, "packet" + i);
+        }
+        FrozenIntObjectMap<String> frozenMap = FrozenIntObjectMap.of(map);
+        assertTrue(frozenMap.isDense());
+        assertEquals(100, frozenMap.size());
+        assertEquals("packet1000", frozenMap.get(1000));
+        assertEquals("packet1198", frozenMap.get(1198));
+        assertNull(frozenMap.get(1001));
+        assertNull(frozenMap.get(999));
+        assertNull(frozenMap.get(1200));
+        assertNull(frozenMap.get(Integer.MIN_VALUE));
+
+        // 创建之后修改原始集合不影响查找表
+        map.put(1001, "packet1001");
+        assertFalse(frozenMap.containsKey(1001));
+    }
+
+    @Test
+    public void testSparse() {
+        Map<Integer, Integer> map = new HashMap<>();
+        Random random = new Random(1L);
+        while (map.size() < 500) {
+            int key = random.nextInt();
+            map.put(key, key);
+        }
+        map.put(Integer.MIN_VALUE, 1);
+        map.put(Integer.MAX_VALUE, 2);
+
+        FrozenIntObjectMap<Integer> frozenMap = FrozenIntObjectMap.of(map);
+        assertFalse(frozenMap.isDense());
+        assertEquals(map.size(), frozenMap.size());
+        map.forEach((key, value) -> assertEquals(value, frozenMap.get(key)));
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt();
+            assertEquals(map.get(key), frozenMap.get(key));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        FrozenIntObjectMap<String> frozenMap = FrozenIntObjectMap.of(new HashMap<>());
+        assertEquals(0, frozenMap.size());
+        assertNull(frozenMap.get(0));
+    }
+}
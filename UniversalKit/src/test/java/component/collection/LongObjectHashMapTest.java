@@ -0,0 +1,60 @@
+package component.collection;
+
+import com.romje.component.collection.LongObjectHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author liu xuan jie
+ */
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testBasic() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(0L, "zero"));
+        assertNull(map.put(-1L, "minus"));
+        assertEquals("zero", map.put(0L, "zero2"));
+        assertEquals(2, map.size());
+        assertEquals("zero2", map.get(0L));
+        assertTrue(map.containsKey(-1L));
+        assertFalse(map.containsKey(1L));
+
+        assertEquals("minus", map.remove(-1L));
+        assertNull(map.remove(-1L));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0L));
+    }
+
+    /**
+     * 与{@link HashMap}对比随机增删，验证扩容以及删除后的前移不会丢失元素
+     */
+    @Test
+    public void testRandomCompare() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        Map<Long, Long> expectMap = new HashMap<>();
+        Random random = new Random(1L);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2048);
+            if (random.nextBoolean()) {
+                assertEquals(expectMap.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(expectMap.remove(key), map.remove(key));
+            }
+            assertEquals(expectMap.size(), map.size());
+        }
+
+        for (long key = 0; key < 2048; key++) {
+            assertEquals(expectMap.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package component.queue;
+
+import com.romje.component.queue.MpscArrayQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author liu xuan jie
+ */
+public class MpscArrayQueueTest {
+
+    @Test
+    public void testBounded() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(3);
+        assertEquals(4, queue.capacity());
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < queue.capacity(); i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(100));
+        assertEquals(4, queue.size());
+
+        // 先进先出，出队之后可以继续入队
+        assertEquals(0, queue.poll().intValue());
+        assertTrue(queue.offer(4));
+        List<Integer> drainList = new ArrayList<>();
+        assertEquals(2, queue.drain(drainList::add, 2));
+        assertEquals(List.of(1, 2), drainList);
+        assertEquals(2, queue.drain(drainList::add, Integer.MAX_VALUE));
+        assertEquals(List.of(1, 2, 3, 4), drainList);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * 多个生产者并发入队，单消费者出队，不丢失，不重复，单个生产者内部有序
+     */
+    @Test
+    public void testMultiProducer() throws InterruptedException {
+        int producerCount = 4;
+        int countPerProducer = 50_000;
+        MpscArrayQueue<long[]> queue = new MpscArrayQueue<>(1024);
+        List<Thread> producerList = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < countPerProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!queue.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producerList.add(thread);
+            thread.start();
+        }
+
+        long[] lastSequences = new long[producerCount];
+        Arrays.fill(lastSequences, -1L);
+        int received = 0;
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (received < producerCount * countPerProducer) {
+            assertTrue(System.nanoTime() < deadline, "consume timeout");
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(lastSequences[(int) element[0]] + 1, element[1]);
+            lastSequences[(int) element[0]] = element[1];
+            received++;
+        }
+
+        for (Thread thread : producerList) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * 生产者丢弃最旧元素与消费者并发出队，每个元素只会被取出一次
+     */
+    @Test
+    public void testConcurrentPollForDropOldest() throws InterruptedException {
+        int total = 500_000;
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(64);
+        AtomicInteger droppedCount = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                while (!queue.offer(i)) {
+                    if (queue.poll() != null) {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+            }
+        });
+        producer.start();
+
+        int consumedCount = 0;
+        int lastValue = -1;
+        while (producer.isAlive() || !queue.isEmpty()) {
+            Integer value = queue.poll();
+            if (value == null) {
+                continue;
+            }
+            assertTrue(value > lastValue);
+            lastValue = value;
+            consumedCount++;
+        }
+        producer.join();
+        assertEquals(total, consumedCount + droppedCount.get());
+    }
+}
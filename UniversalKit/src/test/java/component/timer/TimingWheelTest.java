@@ -0,0 +1,178 @@
+package component.timer;
+
+import com.romje.component.clock.IClock;
+import com.romje.component.timer.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author liu xuan jie
+ */
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10L;
+
+    /**
+     * 不期望任何定时任务抛出异常
+     */
+    private static final BiConsumer<Long, Exception> FAIL_HANDLER = (timerId, e) -> fail("timer:" + timerId, e);
+
+    /**
+     * 一次性定时任务不会提前触发，最多延迟一个刻度，包括需要多次降级的长延迟
+     */
+    @Test
+    public void testScheduleAccuracy() {
+        ManualClock clock = new ManualClock();
+        TimingWheel timingWheel = TimingWheel.of(clock, TICK_MILLIS, FAIL_HANDLER);
+
+        long[] delays = {0L, 1L, 10L, 15L, 2_559L, 2_560L, 30_000L, 3_600_000L, 86_400_000L};
+        long[] firedTimestamps = new long[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            timingWheel.schedule(delays[i], (timerId, millisTimestamp) -> firedTimestamps[index] = millisTimestamp);
+        }
+        assertEquals(delays.length, timingWheel.size());
+
+        for (long step = 0; step < 86_400_000L / TICK_MILLIS + 2; step++) {
+            clock.advanceMillis(TICK_MILLIS);
+            timingWheel.advance();
+        }
+
+        assertEquals(0, timingWheel.size());
+        for (int i = 0; i < delays.length; i++) {
+            assertTrue(firedTimestamps[i] >= delays[i], "delay " + delays[i] + " fired early");
+            assertTrue(firedTimestamps[i] <= delays[i] + TICK_MILLIS, "delay " + delays[i] + " fired late");
+        }
+    }
+
+    /**
+     * 时钟一次跳过很多刻度时，所有到期的任务都会触发
+     */
+    @Test
+    public void testClockJump() {
+        ManualClock clock = new ManualClock();
+        TimingWheel timingWheel = TimingWheel.of(clock, TICK_MILLIS, FAIL_HANDLER);
+        List<Long> firedList = new ArrayList<>();
+        Random random = new Random(1L);
+        for (int i = 0; i < 1000; i++) {
+            timingWheel.schedule(random.nextInt(1_000_000), (timerId, millisTimestamp) -> firedList.add(timerId));
+        }
+
+        clock.advanceMillis(1_000_000L);
+        assertEquals(1000, timingWheel.advance());
+        assertEquals(1000, firedList.size());
+        assertEquals(0, timingWheel.size());
+    }
+
+    @Test
+    public void testCancel() {
+        ManualClock clock = new ManualClock();
+        TimingWheel timingWheel = TimingWheel.of(clock, TICK_MILLIS, FAIL_HANDLER);
+        int[] firedCount = new int[1];
+        long timerId = timingWheel.schedule(100L, (id, millisTimestamp) -> firedCount[0]++);
+        assertTrue(timingWheel.isPending(timerId));
+        assertTrue(timingWheel.cancel(timerId));
+        assertFalse(timingWheel.cancel(timerId));
+        assertFalse(timingWheel.cancel(TimingWheel.INVALID_TIMER_ID));
+
+        // 节点被复用之后，旧的标识不能取消新的定时任务
+        long newTimerId = timingWheel.schedule(100L, (id, millisTimestamp) -> firedCount[0]++);
+        assertNotEquals(timerId, newTimerId);
+        assertFalse(timingWheel.cancel(timerId));
+        assertTrue(timingWheel.isPending(newTimerId));
+
+        clock.advanceMillis(200L);
+        timingWheel.advance();
+        assertEquals(1, firedCount[0]);
+        assertFalse(timingWheel.isPending(newTimerId));
+    }
+
+    @Test
+    public void testPeriodic() {
+        ManualClock clock = new ManualClock();
+        TimingWheel timingWheel = TimingWheel.of(clock, TICK_MILLIS, FAIL_HANDLER);
+        int[] firedCount = new int[1];
+
+        // 触发3次之后在回调中取消自己
+        timingWheel.schedulePeriodic(50L, 100L, (timerId, millisTimestamp) -> {
+            if (++firedCount[0] >= 3) {
+                timingWheel.cancel(timerId);
+            }
+        });
+
+        for (int i = 0; i < 100; i++) {
+            clock.advanceMillis(TICK_MILLIS);
+            timingWheel.advance();
+        }
+        assertEquals(3, firedCount[0]);
+        assertEquals(0, timingWheel.size());
+    }
+
+    /**
+     * 回调中取消同一槽位的其他任务，以及回调抛出异常，都不影响时间轮
+     */
+    @Test
+    public void testCancelInCallback() {
+        ManualClock clock = new ManualClock();
+        List<Long> exceptionList = new ArrayList<>();
+        TimingWheel timingWheel = TimingWheel.of(clock, TICK_MILLIS, (timerId, e) -> exceptionList.add(timerId));
+        int[] firedCount = new int[1];
+        long[] timerIds = new long[2];
+        timerIds[0] = timingWheel.schedule(50L, (timerId, millisTimestamp) -> firedCount[0]++);
+        timerIds[1] = timingWheel.schedule(50L, (timerId, millisTimestamp) -> firedCount[0]++);
+        // 同一槽位后插入的先触发，取消者在被取消者之前触发
+        timingWheel.schedule(50L, (timerId, millisTimestamp) -> {
+            firedCount[0]++;
+            assertTrue(timingWheel.cancel(timerIds[0]));
+            assertTrue(timingWheel.cancel(timerIds[1]));
+        });
+        long errorTimerId = timingWheel.schedule(50L, (timerId, millisTimestamp) -> {
+            throw new IllegalStateException("test");
+        });
+
+        clock.advanceMillis(100L);
+        timingWheel.advance();
+        assertEquals(0, timingWheel.size());
+        assertEquals(1, exceptionList.size());
+        assertEquals(errorTimerId, exceptionList.get(0).longValue());
+        assertEquals(1, firedCount[0]);
+    }
+
+    /**
+     * 测试使用的手动时钟
+     */
+    static class ManualClock implements IClock {
+
+        private long millisTimestamp;
+
+        void advanceMillis(long millis) {
+            this.millisTimestamp += millis;
+        }
+
+        @Override
+        public void updateTimeTo(long millisTimestamp) {
+            this.millisTimestamp = millisTimestamp;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return this.millisTimestamp;
+        }
+
+        @Override
+        public long secondTimestamp() {
+            return this.millisTimestamp / 1000L;
+        }
+
+        @Override
+        public long nanoTime() {
+            return this.millisTimestamp * 1_000_000L;
+        }
+    }
+}